@@ -0,0 +1,63 @@
+package it.gov.pagopa.register.benchmark;
+
+import it.gov.pagopa.register.configuration.ProductFileValidationConfig;
+import it.gov.pagopa.register.dto.operation.ValidationResultDTO;
+import it.gov.pagopa.register.service.validator.ProductFileValidatorService;
+import it.gov.pagopa.register.utils.CsvUtils;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.ERROR_CODE_EPREL;
+
+/** Upload path of a product file: parsing, formal validation and the error report */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvIngestBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  private int rows;
+
+  private MockMultipartFile multipartFile;
+  private List<CSVRecord> csvRecords;
+  private Map<CSVRecord, String> errorMessages;
+  private ProductFileValidatorService validatorService;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    byte[] csvFile = IngestBenchmarkData.csvFile(rows);
+    multipartFile = new MockMultipartFile("file", "products.csv", "text/csv", csvFile);
+    csvRecords = IngestBenchmarkData.csvRecords(csvFile);
+    errorMessages = new HashMap<>();
+    csvRecords.forEach(csvRecord -> errorMessages.put(csvRecord, ERROR_CODE_EPREL));
+    validatorService = new ProductFileValidatorService(new ProductFileValidationConfig());
+  }
+
+  @Benchmark
+  public List<CSVRecord> readCsvRecords() throws IOException {
+    return CsvUtils.readCsvRecords(multipartFile);
+  }
+
+  @Benchmark
+  public ValidationResultDTO validateRecords() {
+    return validatorService.validateRecords(csvRecords, IngestBenchmarkData.HEADERS, IngestBenchmarkData.CATEGORY_CODE);
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream writeCsvWithErrors() throws IOException {
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    CsvUtils.writeCsvWithErrors(csvRecords, IngestBenchmarkData.HEADERS, errorMessages, report);
+    return report;
+  }
+}
@@ -0,0 +1,58 @@
+package it.gov.pagopa.register.benchmark;
+
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.utils.CsvUtils;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
+
+/** Generates EPREL product files with valid rows, as uploaded by the producers */
+final class IngestBenchmarkData {
+
+  static final String CATEGORY_CODE = WASHINGMACHINES;
+  static final List<String> HEADERS = List.of(CODE_EPREL, CODE_GTIN_EAN, CODE_PRODUCT, CATEGORY, COUNTRY_OF_PRODUCTION);
+
+  private static final String[] COUNTRIES = {"IT", "DE", "FR", "ES", "CN", "PL", "TR"};
+
+  private IngestBenchmarkData() {}
+
+  static byte[] csvFile(int rows) {
+    StringBuilder csv = new StringBuilder(rows * 48);
+    csv.append(String.join(CsvUtils.DELIMITER, HEADERS)).append('\n');
+    String category = CATEGORIES_TO_IT_S.get(CATEGORY_CODE);
+    for (int i = 0; i < rows; i++) {
+      csv.append(1_000_000 + i).append(CsvUtils.DELIMITER)
+        .append(String.format("%013d", 8_000_000_000_000L + i)).append(CsvUtils.DELIMITER)
+        .append("PRD").append(i).append(CsvUtils.DELIMITER)
+        .append(category).append(CsvUtils.DELIMITER)
+        .append(COUNTRIES[i % COUNTRIES.length]).append('\n');
+    }
+    return csv.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  static List<CSVRecord> csvRecords(byte[] csvFile) throws IOException {
+    ByteArrayOutputStream file = new ByteArrayOutputStream(csvFile.length);
+    file.write(csvFile);
+    return CsvUtils.readCsvRecords(file);
+  }
+
+  static EprelProduct eprelProduct(String registrationNumber) {
+    return EprelProduct.builder()
+      .eprelRegistrationNumber(registrationNumber)
+      .productGroup("WASHING_MACHINES_2019")
+      .supplierOrTrademark("BRAND")
+      .modelIdentifier("MODEL-" + registrationNumber)
+      .energyClass("A")
+      .orgVerificationStatus("VERIFIED")
+      .trademarkVerificationStatus("VERIFIED")
+      .blocked(false)
+      .status("PUBLISHED")
+      .ratedCapacity("9")
+      .build();
+  }
+}
@@ -0,0 +1,67 @@
+package it.gov.pagopa.register.benchmark;
+
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.enums.UserRole;
+import it.gov.pagopa.register.mapper.operation.ProductMapper;
+import it.gov.pagopa.register.model.operation.Product;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CODE_EPREL;
+
+/** Mapping of the rows of a product file, from the CSV record to the saved product and back */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+  @Param({"100", "10000", "100000"})
+  private int rows;
+
+  private List<CSVRecord> csvRecords;
+  private List<EprelProduct> eprelProducts;
+  private List<Product> products;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    csvRecords = IngestBenchmarkData.csvRecords(IngestBenchmarkData.csvFile(rows));
+    eprelProducts = new ArrayList<>(rows);
+    products = new ArrayList<>(rows);
+    for (CSVRecord csvRecord : csvRecords) {
+      EprelProduct eprelProduct = IngestBenchmarkData.eprelProduct(csvRecord.get(CODE_EPREL));
+      eprelProducts.add(eprelProduct);
+      products.add(ProductMapper.mapEprelToProduct(csvRecord, eprelProduct, "ORG", "FILE", IngestBenchmarkData.CATEGORY_CODE, "ORG_NAME"));
+    }
+  }
+
+  @Benchmark
+  public void mapEprelToProduct(Blackhole blackhole) {
+    for (int i = 0; i < csvRecords.size(); i++) {
+      blackhole.consume(ProductMapper.mapEprelToProduct(csvRecords.get(i), eprelProducts.get(i), "ORG", "FILE",
+        IngestBenchmarkData.CATEGORY_CODE, "ORG_NAME"));
+    }
+  }
+
+  @Benchmark
+  public void toDTO(Blackhole blackhole) {
+    for (Product product : products) {
+      blackhole.consume(ProductMapper.toDTO(product, UserRole.INVITALIA.getRole()));
+    }
+  }
+
+  @Benchmark
+  public void mapProductToCsvRow(Blackhole blackhole) {
+    for (Product product : products) {
+      blackhole.consume(ProductMapper.mapProductToCsvRow(product, IngestBenchmarkData.CATEGORY_CODE, IngestBenchmarkData.HEADERS));
+    }
+  }
+}
@@ -70,6 +70,15 @@ public abstract class BaseKafkaConsumer<T> {
         return getClass().getSimpleName();
     }
 
+    /** Key used by {@link KeyedConcurrencyKafkaConsumer} to dispatch the message: messages with the same key are processed in order. As default, the record key */
+    protected String getConcurrencyKey(Message<String> message) {
+        Object key = message.getHeaders().get(KafkaHeaders.RECEIVED_KEY);
+        if (key instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return key != null ? key.toString() : null;
+    }
+
     /** The {@link ObjectReader} to use in order to deserialize the input message */
     protected abstract ObjectReader getObjectReader();
 
@@ -0,0 +1,111 @@
+package it.gov.pagopa.common.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Dispatches the records received by a listener to a fixed number of worker lanes, chosen by the record key,
+ * so that records sharing a key keep their order while different keys run in parallel.
+ * <p>
+ * Each record is acknowledged by its delegate once processed: the listener container has to run with
+ * {@code MANUAL} ack mode and async acks, so that offsets are committed only up to the lowest completed
+ * record of each partition (see {@link #configureContainer(ContainerProperties)}).
+ */
+@Slf4j
+public class KeyedConcurrencyKafkaConsumer implements Consumer<Message<String>>, AutoCloseable {
+
+    private final String name;
+    private final Consumer<Message<String>> delegate;
+    private final Function<Message<String>, String> keyExtractor;
+    private final List<ExecutorService> lanes;
+    private final Semaphore inFlight;
+
+    public KeyedConcurrencyKafkaConsumer(String name,
+                                         Consumer<Message<String>> delegate,
+                                         Function<Message<String>, String> keyExtractor,
+                                         KeyedConcurrencyProperties properties) {
+        this.name = name;
+        this.delegate = delegate;
+        this.keyExtractor = keyExtractor;
+        this.inFlight = new Semaphore(Math.max(1, properties.getMaxInFlight()));
+
+        int laneCount = Math.max(1, properties.getLanes());
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(Executors.newSingleThreadExecutor(Thread.ofVirtual().name(name + "-lane-" + i).factory()));
+        }
+    }
+
+    /** Builds a keyed consumer around a {@link BaseKafkaConsumer}, using its {@link BaseKafkaConsumer#getConcurrencyKey(Message)} */
+    public static KeyedConcurrencyKafkaConsumer of(BaseKafkaConsumer<?> consumer, KeyedConcurrencyProperties properties) {
+        return new KeyedConcurrencyKafkaConsumer(consumer.getFlowName(), consumer::execute, consumer::getConcurrencyKey, properties);
+    }
+
+    /** Lets the container commit acknowledged records out of order, committing each partition up to its first gap */
+    public static void configureContainer(ContainerProperties containerProperties) {
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setAsyncAcks(true);
+    }
+
+    @Override
+    public void accept(Message<String> message) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[%s] Interrupted while waiting for a free worker lane".formatted(name), e);
+        }
+
+        try {
+            lanes.get(selectLane(message)).execute(() -> {
+                try {
+                    delegate.accept(message);
+                } catch (RuntimeException e) {
+                    log.error("[{}] Unexpected error processing record: {}", name, e.getMessage(), e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private int selectLane(Message<String> message) {
+        String key = keyExtractor.apply(message);
+        if (key == null) {
+            Integer partition = message.getHeaders().get(KafkaHeaders.RECEIVED_PARTITION, Integer.class);
+            key = String.valueOf(partition);
+        }
+        return Math.floorMod(key.hashCode(), lanes.size());
+    }
+
+    /** Stops accepting records and waits for the dispatched ones to complete */
+    @Override
+    public void close() {
+        lanes.forEach(ExecutorService::shutdown);
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("[{}] Worker lane not terminated in time, interrupting it", name);
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package it.gov.pagopa.common.kafka;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class KeyedConcurrencyProperties {
+    /** If false, records are processed on the listener thread, one at a time */
+    private boolean enabled = false;
+    /** Number of worker lanes; records with the same key always run on the same lane */
+    private int lanes = 4;
+    /** Maximum number of records dispatched and not yet completed; the listener thread waits beyond it */
+    private int maxInFlight = 16;
+}
@@ -0,0 +1,137 @@
+package it.gov.pagopa.common.mongo.bulk;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.gov.pagopa.common.mongo.retry.MongoRequestRateTooLargeRetryer;
+import it.gov.pagopa.common.mongo.retry.exception.MongoRequestRateTooLargeRetryExpiredException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Replaces (or inserts) documents through unordered bulk writes, {@code chunkSize} documents at a time.
+ * When some writes of a chunk are throttled (16500/TooManyRequests) only those documents are retried,
+ * after the delay suggested by the RetryAfterMs of the error.
+ */
+@Slf4j
+@Component
+public class MongoBulkUpserter {
+
+  private static final int REQUEST_RATE_TOO_LARGE_CODE = 16500;
+
+  private final MongoTemplate mongoTemplate;
+  private final MeterRegistry meterRegistry;
+  private final int chunkSize;
+  private final long maxRetry;
+
+  public MongoBulkUpserter(MongoTemplate mongoTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${mongo.bulk-upsert.chunk-size:100}") int chunkSize,
+                           @Value("${mongo.request-rate-too-large.batch.max-retry:5}") long maxRetry) {
+    this.mongoTemplate = mongoTemplate;
+    this.meterRegistry = meterRegistry;
+    this.chunkSize = Math.max(1, chunkSize);
+    this.maxRetry = maxRetry;
+  }
+
+  public <T> void upsertAll(List<T> entities, Class<T> entityClass, Function<T, Object> idExtractor) {
+    String collectionName = mongoTemplate.getCollectionName(entityClass);
+    Timer chunkTimer = meterRegistry.timer("mongo.bulk.upsert.chunk", "collection", collectionName);
+
+    for (int from = 0; from < entities.size(); from += chunkSize) {
+      List<T> chunk = entities.subList(from, Math.min(from + chunkSize, entities.size()));
+      long startTime = System.nanoTime();
+      upsertChunk(collectionName, chunk, entityClass, idExtractor);
+      long elapsedNanos = System.nanoTime() - startTime;
+      chunkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+      log.info("[MONGO_BULK_UPSERT][{}] Upserted {} documents in {} ms",
+        collectionName, chunk.size(), elapsedNanos / 1_000_000);
+    }
+  }
+
+  private <T> void upsertChunk(String collectionName, List<T> chunk, Class<T> entityClass, Function<T, Object> idExtractor) {
+    List<T> pending = chunk;
+    long attempt = 0;
+    long startTime = System.currentTimeMillis();
+    while (true) {
+      Long retryAfterMs;
+      DataAccessException lastError;
+      try {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        for (T entity : pending) {
+          bulkOperations.replaceOne(Query.query(Criteria.where("_id").is(idExtractor.apply(entity))),
+            entity, FindAndReplaceOptions.options().upsert());
+        }
+        bulkOperations.execute();
+        return;
+      } catch (BulkOperationException e) {
+        List<T> throttled = new ArrayList<>();
+        retryAfterMs = null;
+        for (BulkWriteError error : e.getErrors()) {
+          if (!isRequestRateTooLarge(error)) {
+            throw e;
+          }
+          throttled.add(pending.get(error.getIndex()));
+          if (error.getMessage() != null) {
+            retryAfterMs = max(retryAfterMs, MongoRequestRateTooLargeRetryer.getRetryAfterMs(error.getMessage()));
+          }
+        }
+        pending = throttled;
+        lastError = e;
+      } catch (DataAccessException e) {
+        if (!MongoRequestRateTooLargeRetryer.isRequestRateTooLargeException(e)) {
+          throw e;
+        }
+        retryAfterMs = MongoRequestRateTooLargeRetryer.getRetryAfterMs(e);
+        lastError = e;
+      }
+
+      attempt++;
+      long millisElapsed = System.currentTimeMillis() - startTime;
+      if (maxRetry > 0 && attempt > maxRetry) {
+        throw new MongoRequestRateTooLargeRetryExpiredException("BULK_UPSERT_" + collectionName, maxRetry, attempt,
+          0, millisElapsed, retryAfterMs, lastError);
+      }
+      log.info("[MONGO_BULK_UPSERT][{}] Retrying {} throttled documents after {} ms: attempt {} of {}",
+        collectionName, pending.size(), retryAfterMs, attempt, maxRetry);
+      waitBeforeRetry(retryAfterMs);
+    }
+  }
+
+  private static boolean isRequestRateTooLarge(BulkWriteError error) {
+    return error.getCode() == REQUEST_RATE_TOO_LARGE_CODE
+      || (error.getMessage() != null && MongoRequestRateTooLargeRetryer.isRequestRateTooLargeError(error.getMessage()));
+  }
+
+  private static Long max(Long current, Long candidate) {
+    if (current == null) {
+      return candidate;
+    }
+    return candidate == null ? current : Math.max(current, candidate);
+  }
+
+  private static void waitBeforeRetry(Long retryAfterMs) {
+    if (retryAfterMs == null) {
+      return;
+    }
+    try {
+      Thread.sleep(retryAfterMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to retry a throttled bulk upsert", e);
+    }
+  }
+}
@@ -67,7 +67,11 @@ public final class MongoRequestRateTooLargeRetryer {
 
 
   public static Long getRetryAfterMs(DataAccessException ex) {
-    Matcher matcher = RETRY_AFTER_MS_PATTERN.matcher(ex.getMessage());
+    return getRetryAfterMs(ex.getMessage());
+  }
+
+  public static Long getRetryAfterMs(String errorMessage) {
+    Matcher matcher = RETRY_AFTER_MS_PATTERN.matcher(errorMessage);
     if (matcher.find()) {
       return Long.parseLong(matcher.group(1));
     }
@@ -75,7 +79,11 @@ public final class MongoRequestRateTooLargeRetryer {
   }
 
   public static boolean isRequestRateTooLargeException(DataAccessException ex) {
-    return ex.getMessage().contains("TooManyRequests") || ex.getMessage().contains("Error=16500,");
+    return isRequestRateTooLargeError(ex.getMessage());
+  }
+
+  public static boolean isRequestRateTooLargeError(String errorMessage) {
+    return errorMessage.contains("TooManyRequests") || errorMessage.contains("Error=16500,");
   }
 
 }
@@ -5,17 +5,29 @@ import com.azure.core.http.rest.Response;
 import com.azure.storage.blob.models.BlobItem;
 import com.azure.storage.blob.models.BlobProperties;
 import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.specialized.BlobInputStream;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Path;
 
 public interface AzureBlobClient {
     Response<BlockBlobItem> uploadFile(File file, String destination, String contentType);
     Response<BlockBlobItem> upload(InputStream inputStream, String destination, String contentType);
+    /** Streams the content written by the writer into staged blocks, committed as the blob only if the writer completes */
+    BlockBlobItem upload(BlobContentWriter writer, String destination, String contentType) throws IOException;
     Response<Boolean> deleteFile(String destination);
     PagedIterable<BlobItem> listFiles(String path);
     Response<BlobProperties> download(String filePath, Path destination);
     ByteArrayOutputStream download(String filePath);
+    InputStream openInputStream(String filePath);
+    BlobInputStream openBlobInputStream(String filePath);
+
+    @FunctionalInterface
+    interface BlobContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
 }
@@ -7,25 +7,37 @@ import com.azure.storage.blob.models.*;
 import com.azure.storage.blob.options.BlobDownloadToFileOptions;
 import com.azure.storage.blob.options.BlobParallelUploadOptions;
 import com.azure.storage.blob.options.BlobUploadFromFileOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import com.azure.storage.blob.specialized.BlockBlobClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 @Slf4j
 @Component
 @Scope(BeanDefinition.SCOPE_PROTOTYPE)
 public class AzureBlobClientImpl implements AzureBlobClient {
 
+    static final int STAGED_BLOCK_SIZE = 4 * 1024 * 1024;
+
     private final BlobContainerClient blobContainerClient;
 
    protected AzureBlobClientImpl(BlobContainerClient blobContainerClient) {
@@ -48,6 +60,20 @@ public class AzureBlobClientImpl implements AzureBlobClient {
                 .uploadWithResponse(new BlobParallelUploadOptions(inputStream), null, null);
     }
 
+    @Override
+    public BlockBlobItem upload(BlobContentWriter writer, String destination, String contentType) throws IOException {
+        log.info("Streaming (contentType={}) into azure blob at destination {}", contentType, destination);
+
+        BlockBlobClient blockBlobClient = blobContainerClient.getBlobClient(destination).getBlockBlobClient();
+        StagedBlockOutputStream outputStream = new StagedBlockOutputStream(blockBlobClient);
+        // the writer may close the stream even when it fails: nothing is committed until it returns normally,
+        // and the blocks staged by a failed write are discarded by the service
+        try (outputStream) {
+            writer.writeTo(outputStream);
+        }
+        return outputStream.commit(contentType);
+    }
+
     @Override
     public Response<Boolean> deleteFile(String destination) {
         log.info("Deleting file {} from azure blob container", destination);
@@ -105,6 +131,28 @@ public class AzureBlobClientImpl implements AzureBlobClient {
         }
     }
 
+    @Override
+    public InputStream openInputStream(String filePath) {
+        return openBlobInputStream(filePath);
+    }
+
+    /** The returned stream carries the blob properties, read along with its first chunk */
+    @Override
+    public BlobInputStream openBlobInputStream(String filePath) {
+        log.info("Opening stream on file {} from azure blob container", filePath);
+
+        try {
+            return blobContainerClient.getBlobClient(filePath)
+                    .openInputStream();
+        } catch (BlobStorageException e) {
+            if(e.getStatusCode()!=404){
+                throw e;
+            } else {
+                return null;
+            }
+        }
+    }
+
     private static void createDirectoryIfNotExists(Path localFile) {
         Path directory = localFile.getParent();
         if (!Files.exists(directory)) {
@@ -115,4 +163,55 @@ public class AzureBlobClientImpl implements AzureBlobClient {
             }
         }
     }
+
+    /** Buffers at most one block in memory, staging each one as soon as it is full */
+    private static final class StagedBlockOutputStream extends OutputStream {
+        private final BlockBlobClient blockBlobClient;
+        private final List<String> blockIds = new ArrayList<>();
+        private final byte[] buffer = new byte[STAGED_BLOCK_SIZE];
+        private int count;
+
+        private StagedBlockOutputStream(BlockBlobClient blockBlobClient) {
+            this.blockBlobClient = blockBlobClient;
+        }
+
+        @Override
+        public void write(int b) {
+            if (count == buffer.length) {
+                stageBuffer();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    stageBuffer();
+                }
+                int chunk = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, chunk);
+                count += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        private BlockBlobItem commit(String contentType) {
+            if (count > 0) {
+                stageBuffer();
+            }
+            return blockBlobClient.commitBlockListWithResponse(
+                    new BlockBlobCommitBlockListOptions(blockIds)
+                            .setHeaders(new BlobHttpHeaders().setContentType(contentType)),
+                    null, null).getValue();
+        }
+
+        private void stageBuffer() {
+            String blockId = Base64.getEncoder().encodeToString(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+            blockBlobClient.stageBlock(blockId, new ByteArrayInputStream(buffer, 0, count), count);
+            blockIds.add(blockId);
+            count = 0;
+        }
+    }
 }
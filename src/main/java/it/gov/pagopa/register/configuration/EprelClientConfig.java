@@ -0,0 +1,85 @@
+package it.gov.pagopa.register.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.rest-client.eprel")
+public class EprelClientConfig {
+  private Http http = new Http();
+  private Lookup lookup = new Lookup();
+  private Cache cache = new Cache();
+  private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+  @Getter
+  @Setter
+  public static class Http {
+    /** Maximum time to establish a connection to EPREL */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /** Maximum inactivity while waiting for the EPREL response */
+    private Duration readTimeout = Duration.ofSeconds(5);
+    /** Maximum time to wait for a free pooled connection */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    /** Maximum number of pooled connections, in line with lookup.max-concurrency */
+    private int maxConnections = 32;
+    /** Maximum number of pooled connections to a single host */
+    private int maxConnectionsPerRoute = 32;
+    /** Keep-alive of a connection when EPREL does not send one */
+    private Duration keepAlive = Duration.ofSeconds(30);
+    /** Idle connections older than this are closed by the pool */
+    private Duration idleTimeout = Duration.ofSeconds(60);
+    /** Maximum lifetime of a pooled connection, so DNS changes are picked up */
+    private Duration timeToLive = Duration.ofMinutes(5);
+  }
+
+  @Getter
+  @Setter
+  public static class Lookup {
+    /** If false, EPREL codes of a file are looked up one at a time */
+    private boolean concurrent = true;
+    /** Maximum number of in-flight EPREL calls for a single file */
+    private int maxConcurrencyPerFile = 8;
+    /** Maximum number of in-flight EPREL calls across the whole JVM */
+    private int maxConcurrency = 32;
+  }
+
+  @Getter
+  @Setter
+  public static class Cache {
+    /** If false, every lookup goes to EPREL */
+    private boolean enabled = true;
+    /** If false, only the in-memory tier is used */
+    private boolean persistent = true;
+    /** Maximum number of entries kept in memory */
+    private int maxSize = 10_000;
+    /** Validity of a successful EPREL response */
+    private Duration positiveTtl = Duration.ofHours(24);
+    /** Validity of a 4xx EPREL response */
+    private Duration negativeTtl = Duration.ofHours(1);
+  }
+
+  @Getter
+  @Setter
+  public static class CircuitBreaker {
+    /** Percentage of failed calls in the sliding window that opens the circuit */
+    private float failureRateThreshold = 50;
+    /** Number of most recent calls considered to compute the failure rate */
+    private int slidingWindowSize = 20;
+    /** Minimum number of calls before the failure rate is evaluated */
+    private int minimumNumberOfCalls = 10;
+    /** Time spent open before letting trial calls through */
+    private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+    /** Number of trial calls allowed while half-open */
+    private int permittedCallsInHalfOpenState = 3;
+    /** Delay between two health probes while EPREL is unavailable */
+    private Duration probeInterval = Duration.ofSeconds(10);
+    /** Registration number requested by the health probe */
+    private String probeRegistrationNumber = "TEST";
+  }
+}
@@ -0,0 +1,36 @@
+package it.gov.pagopa.register.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "product-file-upload")
+public class ProductFileUploadConfig {
+  private Async async = new Async();
+
+  @Getter
+  @Setter
+  public static class Async {
+    /** If true, uploads are accepted with 202 and validated in background */
+    private boolean enabled = false;
+    /** Number of threads validating accepted files */
+    private int workers = 4;
+    /** Maximum number of accepted files waiting for a worker, further uploads are refused */
+    private int queueCapacity = 100;
+    /**
+     * Directory where accepted files are kept until validated, required when enabled: it must be a persistent volume,
+     * not a temporary directory, so that the files accepted before a restart are still there
+     */
+    private String stagingDir;
+    /** Files still validating after this long were lost by a stopped instance and are rejected */
+    private Duration validatingTimeout = Duration.ofMinutes(30);
+    /** How often the lost files are looked for */
+    private Duration sweepInterval = Duration.ofMinutes(5);
+  }
+}
@@ -1,14 +1,89 @@
 package it.gov.pagopa.register.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
+/**
+ * HTTP client of EPREL: a bounded pool of keep-alive connections with connect, read and pool wait timeouts, so a
+ * hung EPREL socket fails the lookup instead of stalling the consumer. The pool gauges are published under
+ * {@code httpcomponents.httpclient.pool.*} and the calls under {@code http.client.requests}.
+ */
 @Configuration
 public class RestTemplateConfig {
 
+  static final String EPREL_POOL_NAME = "eprel";
+
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager eprelConnectionManager(EprelClientConfig eprelClientConfig,
+                                                                   MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManager connectionManager = connectionManager(eprelClientConfig.getHttp());
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, EPREL_POOL_NAME).bindTo(meterRegistry);
+    return connectionManager;
+  }
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient eprelHttpClient(PoolingHttpClientConnectionManager eprelConnectionManager,
+                                             EprelClientConfig eprelClientConfig) {
+    return httpClient(eprelConnectionManager, eprelClientConfig.getHttp());
+  }
+
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient eprelHttpClient) {
+    return restTemplateBuilder
+      .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(eprelHttpClient))
+      .build();
+  }
+
+  static PoolingHttpClientConnectionManager connectionManager(EprelClientConfig.Http http) {
+    return PoolingHttpClientConnectionManagerBuilder.create()
+      .setMaxConnTotal(http.getMaxConnections())
+      .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+      .setDefaultSocketConfig(SocketConfig.custom()
+        .setSoTimeout(timeout(http.getReadTimeout()))
+        .setSoKeepAlive(true)
+        .build())
+      .setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setConnectTimeout(timeout(http.getConnectTimeout()))
+        .setSocketTimeout(timeout(http.getReadTimeout()))
+        .setTimeToLive(timeValue(http.getTimeToLive()))
+        .build())
+      .build();
+  }
+
+  static CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager, EprelClientConfig.Http http) {
+    return HttpClients.custom()
+      .setConnectionManager(connectionManager)
+      .setDefaultRequestConfig(RequestConfig.custom()
+        .setConnectionRequestTimeout(timeout(http.getConnectionRequestTimeout()))
+        .setResponseTimeout(timeout(http.getReadTimeout()))
+        .setConnectionKeepAlive(timeValue(http.getKeepAlive()))
+        .build())
+      .evictExpiredConnections()
+      .evictIdleConnections(timeValue(http.getIdleTimeout()))
+      .build();
+  }
+
+  private static Timeout timeout(Duration duration) {
+    return Timeout.ofMilliseconds(duration.toMillis());
+  }
+
+  private static TimeValue timeValue(Duration duration) {
+    return TimeValue.ofMilliseconds(duration.toMillis());
   }
 }
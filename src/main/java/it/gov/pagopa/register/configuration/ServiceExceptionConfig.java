@@ -1,6 +1,7 @@
 package it.gov.pagopa.register.configuration;
 
 import it.gov.pagopa.common.web.exception.ServiceException;
+import it.gov.pagopa.register.exception.operation.InvalidContinuationTokenException;
 import it.gov.pagopa.register.exception.operation.ReportNotFoundException;
 import it.gov.pagopa.register.exception.role.ConsentNotFoundException;
 import it.gov.pagopa.register.exception.role.PermissionNotFoundException;
@@ -26,6 +27,7 @@ public class ServiceExceptionConfig {
 
     //BadRequest
     exceptionMap.put(VersionNotMatchedException.class, HttpStatus.BAD_REQUEST);
+    exceptionMap.put(InvalidContinuationTokenException.class, HttpStatus.BAD_REQUEST);
 
     return exceptionMap;
   }
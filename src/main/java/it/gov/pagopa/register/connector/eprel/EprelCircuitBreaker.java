@@ -0,0 +1,126 @@
+package it.gov.pagopa.register.connector.eprel;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import it.gov.pagopa.register.configuration.EprelClientConfig;
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.exception.operation.EprelException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker around {@link EprelConnector#callEprel(String)}. Server errors and timeouts are counted as
+ * failures on a sliding window, client errors are valid EPREL answers. While the circuit is open calls fail fast
+ * with an {@link EprelException} and a background probe polls EPREL until it answers again, then closes the
+ * circuit and notifies the registered recovery listeners.
+ */
+@Slf4j
+@Component
+public class EprelCircuitBreaker {
+
+  private final EprelConnector eprelConnector;
+  private final EprelClientConfig.CircuitBreaker circuitBreakerConfig;
+  private final CircuitBreaker circuitBreaker;
+  private final ScheduledExecutorService probeExecutor =
+    Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("eprel-health-probe").factory());
+  private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+  private ScheduledFuture<?> probe;
+
+  public EprelCircuitBreaker(EprelConnector eprelConnector, EprelClientConfig eprelClientConfig) {
+    this.eprelConnector = eprelConnector;
+    this.circuitBreakerConfig = eprelClientConfig.getCircuitBreaker();
+
+    CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+      .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+      .slidingWindowSize(circuitBreakerConfig.getSlidingWindowSize())
+      .minimumNumberOfCalls(circuitBreakerConfig.getMinimumNumberOfCalls())
+      .failureRateThreshold(circuitBreakerConfig.getFailureRateThreshold())
+      .waitDurationInOpenState(circuitBreakerConfig.getWaitDurationInOpenState())
+      .permittedNumberOfCallsInHalfOpenState(circuitBreakerConfig.getPermittedCallsInHalfOpenState())
+      .recordExceptions(HttpServerErrorException.class, ResourceAccessException.class)
+      .build();
+    this.circuitBreaker = CircuitBreaker.of("eprel", config);
+    this.circuitBreaker.getEventPublisher().onStateTransition(event -> {
+      log.warn("[EPREL_CIRCUIT_BREAKER] - State transition {}", event.getStateTransition());
+      if (event.getStateTransition().getToState() == CircuitBreaker.State.OPEN) {
+        startProbe();
+      }
+    });
+  }
+
+  public EprelProduct callEprel(String registrationNumber) {
+    try {
+      return circuitBreaker.executeSupplier(() -> eprelConnector.callEprel(registrationNumber));
+    } catch (CallNotPermittedException e) {
+      throw new EprelException("EPREL circuit breaker is open");
+    }
+  }
+
+  public CircuitBreaker.State getState() {
+    return circuitBreaker.getState();
+  }
+
+  /** Registers a callback run by the probe once EPREL is reachable again */
+  public void addRecoveryListener(Runnable listener) {
+    recoveryListeners.add(listener);
+  }
+
+  /** Starts polling EPREL in background, unless a probe is already running */
+  public synchronized void startProbe() {
+    if (probe != null && !probe.isDone()) {
+      return;
+    }
+    log.info("[EPREL_HEALTH] - Starting health probe every {}", circuitBreakerConfig.getProbeInterval());
+    long intervalMillis = circuitBreakerConfig.getProbeInterval().toMillis();
+    probe = probeExecutor.scheduleWithFixedDelay(this::probe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  void probe() {
+    try {
+      eprelConnector.callEprel(circuitBreakerConfig.getProbeRegistrationNumber());
+      log.info("[EPREL_HEALTH] - EPREL answered the health probe");
+    } catch (HttpClientErrorException e) {
+      log.info("[EPREL_HEALTH] - EPREL answered the health probe with client error {}", e.getStatusCode());
+    } catch (RuntimeException e) {
+      log.warn("[EPREL_HEALTH] - EPREL still unavailable: {}", e.getMessage());
+      return;
+    }
+    onRecovery();
+  }
+
+  private void onRecovery() {
+    synchronized (this) {
+      if (probe != null) {
+        probe.cancel(false);
+      }
+    }
+    if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+      circuitBreaker.transitionToClosedState();
+    }
+    for (Runnable listener : recoveryListeners) {
+      try {
+        listener.run();
+      } catch (RuntimeException e) {
+        log.error("[EPREL_HEALTH] - Error notifying EPREL recovery: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    probeExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,96 @@
+package it.gov.pagopa.register.connector.eprel;
+
+import it.gov.pagopa.register.configuration.EprelClientConfig;
+import it.gov.pagopa.register.dto.utils.EprelLookupResult;
+import it.gov.pagopa.register.exception.operation.EprelException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class EprelLookupExecutor {
+
+  private final EprelResponseCache eprelResponseCache;
+  private final EprelClientConfig.Lookup lookupConfig;
+  private final Semaphore globalPermits;
+
+  public EprelLookupExecutor(EprelResponseCache eprelResponseCache, EprelClientConfig eprelClientConfig) {
+    this.eprelResponseCache = eprelResponseCache;
+    this.lookupConfig = eprelClientConfig.getLookup();
+    this.globalPermits = new Semaphore(Math.max(1, lookupConfig.getMaxConcurrency()), true);
+  }
+
+  /**
+   * Calls EPREL once for each distinct registration number, running up to
+   * {@code maxConcurrencyPerFile} calls at a time on virtual threads.
+   * After the first server error no new call is started and the remaining codes are marked as aborted.
+   */
+  public Map<String, EprelLookupResult> lookupAll(Collection<String> registrationNumbers) {
+    Set<String> distinctCodes = new LinkedHashSet<>(registrationNumbers);
+    Map<String, EprelLookupResult> results = Collections.synchronizedMap(new HashMap<>());
+    AtomicBoolean aborted = new AtomicBoolean(false);
+
+    int maxConcurrencyPerFile = lookupConfig.getMaxConcurrencyPerFile();
+    if (!lookupConfig.isConcurrent() || maxConcurrencyPerFile <= 1 || distinctCodes.size() <= 1) {
+      Semaphore filePermits = new Semaphore(1);
+      distinctCodes.forEach(code -> results.put(code, lookupWithPermits(code, filePermits, aborted)));
+      return results;
+    }
+
+    log.info("[EPREL_LOOKUP] - Looking up {} EPREL codes with max concurrency {}", distinctCodes.size(), maxConcurrencyPerFile);
+    Semaphore filePermits = new Semaphore(maxConcurrencyPerFile);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (String code : distinctCodes) {
+        executor.execute(() -> results.put(code, lookupWithPermits(code, filePermits, aborted)));
+      }
+    }
+    return results;
+  }
+
+  private EprelLookupResult lookupWithPermits(String registrationNumber, Semaphore filePermits, AtomicBoolean aborted) {
+    try {
+      filePermits.acquire();
+      try {
+        globalPermits.acquire();
+        try {
+          return lookup(registrationNumber, aborted);
+        } finally {
+          globalPermits.release();
+        }
+      } finally {
+        filePermits.release();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      aborted.set(true);
+      return EprelLookupResult.failure(new EprelException("EPREL lookup interrupted"));
+    }
+  }
+
+  private EprelLookupResult lookup(String registrationNumber, AtomicBoolean aborted) {
+    if (aborted.get()) {
+      return EprelLookupResult.aborted();
+    }
+    try {
+      return EprelLookupResult.success(eprelResponseCache.get(registrationNumber));
+    } catch (HttpClientErrorException e) {
+      return EprelLookupResult.failure(e);
+    } catch (HttpServerErrorException | ResourceAccessException e) {
+      log.error("[EPREL_LOOKUP] - EPREL server error for code {}: {}", registrationNumber, e.getMessage());
+      aborted.set(true);
+      return EprelLookupResult.failure(e);
+    } catch (RuntimeException e) {
+      aborted.set(true);
+      return EprelLookupResult.failure(e);
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package it.gov.pagopa.register.connector.eprel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.gov.pagopa.register.configuration.EprelClientConfig;
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.model.operation.EprelCacheEntry;
+import it.gov.pagopa.register.repository.operation.EprelCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-tier cache in front of {@link EprelCircuitBreaker#callEprel(String)}: a bounded in-memory LRU backed by the
+ * {@code eprel_cache} collection. Successful responses and 4xx responses are cached with different TTLs,
+ * server errors are never cached. Concurrent lookups of the same code share a single EPREL call.
+ */
+@Slf4j
+@Component
+public class EprelResponseCache {
+
+  private final EprelCircuitBreaker eprelCircuitBreaker;
+  private final EprelCacheRepository eprelCacheRepository;
+  private final EprelClientConfig.Cache cacheConfig;
+  private final Clock clock;
+
+  private final Map<String, EprelCacheEntry> memoryTier;
+  private final Map<String, CompletableFuture<EprelCacheEntry>> inFlight = new ConcurrentHashMap<>();
+
+  private final Counter memoryHits;
+  private final Counter mongoHits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  @Autowired
+  public EprelResponseCache(EprelCircuitBreaker eprelCircuitBreaker,
+                            EprelCacheRepository eprelCacheRepository,
+                            EprelClientConfig eprelClientConfig,
+                            MeterRegistry meterRegistry) {
+    this(eprelCircuitBreaker, eprelCacheRepository, eprelClientConfig, meterRegistry, Clock.systemUTC());
+  }
+
+  EprelResponseCache(EprelCircuitBreaker eprelCircuitBreaker,
+                     EprelCacheRepository eprelCacheRepository,
+                     EprelClientConfig eprelClientConfig,
+                     MeterRegistry meterRegistry,
+                     Clock clock) {
+    this.eprelCircuitBreaker = eprelCircuitBreaker;
+    this.eprelCacheRepository = eprelCacheRepository;
+    this.cacheConfig = eprelClientConfig.getCache();
+    this.clock = clock;
+
+    this.memoryHits = meterRegistry.counter("eprel.cache.requests", "result", "hit", "tier", "memory");
+    this.mongoHits = meterRegistry.counter("eprel.cache.requests", "result", "hit", "tier", "mongo");
+    this.misses = meterRegistry.counter("eprel.cache.requests", "result", "miss", "tier", "none");
+    this.evictions = meterRegistry.counter("eprel.cache.evictions");
+
+    int maxSize = Math.max(1, cacheConfig.getMaxSize());
+    this.memoryTier = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, EprelCacheEntry> eldest) {
+        boolean evict = size() > maxSize;
+        if (evict) {
+          evictions.increment();
+        }
+        return evict;
+      }
+    };
+  }
+
+  /**
+   * Returns the EPREL product for the given registration number, calling EPREL only on a cache miss.
+   * A cached client error is re-thrown as an {@link HttpClientErrorException} with the original status.
+   */
+  public EprelProduct get(String registrationNumber) {
+    if (!cacheConfig.isEnabled()) {
+      return eprelCircuitBreaker.callEprel(registrationNumber);
+    }
+
+    EprelCacheEntry entry = getFromMemory(registrationNumber);
+    if (entry != null) {
+      memoryHits.increment();
+    } else {
+      entry = loadSingleFlight(registrationNumber);
+    }
+    return unwrap(entry);
+  }
+
+  private EprelCacheEntry loadSingleFlight(String registrationNumber) {
+    CompletableFuture<EprelCacheEntry> future = new CompletableFuture<>();
+    CompletableFuture<EprelCacheEntry> existing = inFlight.putIfAbsent(registrationNumber, future);
+    if (existing != null) {
+      return join(existing);
+    }
+
+    try {
+      EprelCacheEntry entry = load(registrationNumber);
+      putInMemory(entry);
+      future.complete(entry);
+      return entry;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(registrationNumber, future);
+    }
+  }
+
+  private EprelCacheEntry load(String registrationNumber) {
+    Optional<EprelCacheEntry> persisted = getFromMongo(registrationNumber);
+    if (persisted.isPresent()) {
+      mongoHits.increment();
+      return persisted.get();
+    }
+
+    misses.increment();
+    EprelCacheEntry entry;
+    try {
+      EprelProduct product = eprelCircuitBreaker.callEprel(registrationNumber);
+      entry = buildEntry(registrationNumber, product, null, null, cacheConfig.getPositiveTtl());
+    } catch (HttpClientErrorException e) {
+      entry = buildEntry(registrationNumber, null, e.getStatusCode().value(), e.getStatusText(), cacheConfig.getNegativeTtl());
+    }
+    saveToMongo(entry);
+    return entry;
+  }
+
+  private EprelCacheEntry buildEntry(String registrationNumber, EprelProduct product, Integer errorStatus, String errorStatusText, Duration ttl) {
+    return EprelCacheEntry.builder()
+      .id(registrationNumber)
+      .product(product)
+      .errorStatus(errorStatus)
+      .errorStatusText(errorStatusText)
+      .expireAt(Instant.now(clock).plus(ttl))
+      .ttl((int) ttl.toSeconds())
+      .build();
+  }
+
+  private synchronized EprelCacheEntry getFromMemory(String registrationNumber) {
+    EprelCacheEntry entry = memoryTier.get(registrationNumber);
+    if (entry != null && entry.isExpired(Instant.now(clock))) {
+      memoryTier.remove(registrationNumber);
+      return null;
+    }
+    return entry;
+  }
+
+  private synchronized void putInMemory(EprelCacheEntry entry) {
+    memoryTier.put(entry.getId(), entry);
+  }
+
+  private Optional<EprelCacheEntry> getFromMongo(String registrationNumber) {
+    if (!cacheConfig.isPersistent()) {
+      return Optional.empty();
+    }
+    try {
+      // The TTL index removes expired documents only periodically, so expiration is checked on read as well
+      return eprelCacheRepository.findById(registrationNumber)
+        .filter(entry -> !entry.isExpired(Instant.now(clock)));
+    } catch (RuntimeException e) {
+      log.warn("[EPREL_CACHE] - Unable to read cached EPREL response for code {}: {}", registrationNumber, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private void saveToMongo(EprelCacheEntry entry) {
+    if (!cacheConfig.isPersistent()) {
+      return;
+    }
+    try {
+      eprelCacheRepository.save(entry);
+    } catch (RuntimeException e) {
+      log.warn("[EPREL_CACHE] - Unable to store EPREL response for code {}: {}", entry.getId(), e.getMessage());
+    }
+  }
+
+  private static EprelCacheEntry join(CompletableFuture<EprelCacheEntry> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static EprelProduct unwrap(EprelCacheEntry entry) {
+    if (entry.getErrorStatus() != null) {
+      throw HttpClientErrorException.create(HttpStatusCode.valueOf(entry.getErrorStatus()),
+        entry.getErrorStatusText(), HttpHeaders.EMPTY, null, null);
+    }
+    // Callers may adapt the product to the category being validated, so the cached instance is never shared
+    return entry.getProduct() != null ? entry.getProduct().toBuilder().build() : null;
+  }
+}
@@ -15,7 +15,8 @@ public class AggregationConstants {
   public static final String FIELD_ORGANIZATION_ID = "organizationId";
   public static final String FIELD_ID = "_id";
   public static final String FIELD_STATUS = "status";
-  public static final String RUNTIME_FIELD_CATEGORY_IT = "categoryIt";
+  public static final String FIELD_CATEGORY_IT = "categoryIt";
+  public static final String FIELD_ENERGY_RANK = "energyRank";
 
   public static final String LOWER_SUFFIX = "_lower";
 
@@ -7,6 +7,9 @@ import it.gov.pagopa.register.enums.UploadCsvStatus;
 import java.util.*;
 import java.util.regex.Pattern;
 
+import static it.gov.pagopa.register.utils.CsvFieldUtils.isAlphanumeric;
+import static it.gov.pagopa.register.utils.CsvFieldUtils.isIsoCountry;
+import static it.gov.pagopa.register.utils.CsvFieldUtils.isNumeric;
 import static it.gov.pagopa.register.utils.EprelUtils.isEnergyClassValid;
 
 public class AssetRegisterConstants {
@@ -135,6 +138,7 @@ public class AssetRegisterConstants {
     public static final String UNKNOWN_CATEGORY_ERROR_KEY = "product.invalid.file.category";
     public static final String EMPTY_FILE_ERROR_KEY = "product.invalid.file.empty";
     public static final String UPLOAD_ALREADY_IN_PROGRESS = "product.invalid.file.already_in_progress";
+    public static final String UPLOAD_QUEUE_FULL = "product.invalid.file.queue_full";
   }
 
   public static final class UpdateKeyConstant {
@@ -145,11 +149,14 @@ public class AssetRegisterConstants {
 
   public static final class CsvValidationRules {
     private CsvValidationRules() {}
+    private static final Pattern BRAND_PATTERN = Pattern.compile(BRAND_REGEX);
+    private static final Pattern MODEL_PATTERN = Pattern.compile(MODEL_REGEX);
+
     public static final ColumnValidationRule GTIN_EAN_RULE =
-      new ColumnValidationRule((v, z) -> v != null && v.matches(CODE_GTIN_EAN_REGEX), ERROR_GTIN_EAN);
+      new ColumnValidationRule((v, z) -> isAlphanumeric(v, 1, 14, false), ERROR_GTIN_EAN);
 
     public static final ColumnValidationRule CODE_PRODUCT_RULE =
-      new ColumnValidationRule((v, z) -> v != null && v.matches(CODE_PRODUCT_REGEX), ERROR_CODE_PRODUCT);
+      new ColumnValidationRule((v, z) -> isAlphanumeric(v, 0, 100, true), ERROR_CODE_PRODUCT);
 
     public static final ColumnValidationRule CATEGOY_COOKINGHOBS_RULE =
       new ColumnValidationRule(String::equals, ERROR_CATEGORY_PRODUCTS);
@@ -158,16 +165,16 @@ public class AssetRegisterConstants {
       new ColumnValidationRule(String::equals, ERROR_CATEGORY_PRODUCTS);
 
     public static final ColumnValidationRule COUNTRY_OF_PRODUCTION_RULE =
-      new ColumnValidationRule((v, z) -> Arrays.asList(Locale.getISOCountries()).contains(v), ERROR_COUNTRY_OF_PRODUCTION);
+      new ColumnValidationRule((v, z) -> isIsoCountry(v), ERROR_COUNTRY_OF_PRODUCTION);
 
     public static final ColumnValidationRule BRAND_RULE =
-      new ColumnValidationRule((v, z) -> v != null && v.matches(BRAND_REGEX), ERROR_BRAND);
+      new ColumnValidationRule((v, z) -> v != null && BRAND_PATTERN.matcher(v).matches(), ERROR_BRAND);
 
     public static final ColumnValidationRule MODEL_RULE =
-      new ColumnValidationRule((v, z) -> v != null && v.matches(MODEL_REGEX), ERROR_MODEL);
+      new ColumnValidationRule((v, z) -> v != null && MODEL_PATTERN.matcher(v).matches(), ERROR_MODEL);
 
     public static final ColumnValidationRule CODE_EPREL_RULE =
-      new ColumnValidationRule((v, z) -> v != null && v.matches(CODE_EPREL_REGEX), ERROR_CODE_EPREL);
+      new ColumnValidationRule((v, z) -> isNumeric(v), ERROR_CODE_EPREL);
   }
 
 
@@ -222,6 +229,7 @@ public class AssetRegisterConstants {
 
 
   public static final List<String> BLOCKING_STATUSES = List.of(
+    UploadCsvStatus.VALIDATING.name(),
     UploadCsvStatus.IN_PROCESS.name(),
     UploadCsvStatus.UPLOADED.name()
   );
@@ -13,6 +13,7 @@ public final class ExceptionConstants {
         public static final String INVALID_REQUEST = "INVALID_REQUEST";
         public static final String REPORT_NOT_FOUND = "REPORT_NOT_FOUND";
         public static final String EPREL_EXCEPTION = "EPREL_EXCEPTION";
+        public static final String INVALID_CONTINUATION_TOKEN = "INVALID_CONTINUATION_TOKEN";
 
         private ExceptionCode() {}
     }
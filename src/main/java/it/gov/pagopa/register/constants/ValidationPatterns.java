@@ -9,4 +9,5 @@ public class ValidationPatterns {
   public static final String GTIN_CODE = "^[a-zA-Z0-9]{1,14}$";
   public static final String ANY_TEXT = ".*";
   public static final String ROLE_PATTERN = "^(operatore|invitalia|invitalia_admin)$";
+  public static final String BASE64_URL = "^[A-Za-z0-9_-]+$";
 }
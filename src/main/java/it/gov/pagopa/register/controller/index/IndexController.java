@@ -0,0 +1,23 @@
+package it.gov.pagopa.register.controller.index;
+
+import it.gov.pagopa.register.service.index.IndexManagementService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/idpay/register/indexes")
+@RequiredArgsConstructor
+public class IndexController {
+
+  private final IndexManagementService indexManagementService;
+
+  @PostMapping
+  public ResponseEntity<List<String>> ensureIndexes() {
+    return ResponseEntity.ok(indexManagementService.ensureIndexes());
+  }
+}
@@ -1,5 +1,6 @@
 package it.gov.pagopa.register.controller.operation;
 
+import it.gov.pagopa.register.dto.operation.ProductCriteriaDTO;
 import it.gov.pagopa.register.dto.operation.ProductListDTO;
 import it.gov.pagopa.register.dto.operation.ProductUpdateStatusRequestDTO;
 import it.gov.pagopa.register.dto.operation.UpdateResultDTO;
@@ -40,11 +41,29 @@ public class ProductController {
     @RequestParam(required = false) ProductCategories category,
     @RequestParam(required = false) @Pattern(regexp = ANY_TEXT) String  brand,
     @RequestParam(required = false) @Pattern(regexp = ANY_TEXT) String  model,
+    @RequestParam(defaultValue = "false") boolean cursorPagination,
+    @RequestParam(required = false) @Pattern(regexp = BASE64_URL) String continuationToken,
     @PageableDefault(size = 20, sort = "registrationDate", direction = Sort.Direction.DESC) Pageable pageable
   ) {
     String categoryName = Optional.ofNullable(category).map(Enum::name).orElse(null);
     String statusName = Optional.ofNullable(status).map(Enum::name).orElse(null);
 
+    if (cursorPagination || continuationToken != null) {
+      ProductCriteriaDTO criteria = ProductCriteriaDTO.builder()
+        .organizationId(organizationId)
+        .category(categoryName)
+        .productFileId(productFileId)
+        .eprelCode(eprelCode)
+        .gtinCode(gtinCode)
+        .productName(productName)
+        .fullProductName(fullProductName)
+        .brand(brand)
+        .model(model)
+        .status(statusName)
+        .build();
+      return ResponseEntity.ok(productService.fetchProductsByFiltersAfter(criteria, pageable, continuationToken, role));
+    }
+
     ProductListDTO result = productService.fetchProductsByFilters(
       organizationId,
       categoryName,
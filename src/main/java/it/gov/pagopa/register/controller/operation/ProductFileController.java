@@ -6,6 +6,7 @@ import it.gov.pagopa.register.service.operation.ProductFileService;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
@@ -45,6 +46,9 @@ public class ProductFileController {
     @RequestPart("csv") MultipartFile csv
   ) {
     ProductFileResult result = productFileService.uploadFile(csv, category, organizationId, userId, userEmail, organizationName);
+    if (result.isAccepted()) {
+      return ResponseEntity.accepted().body(result);
+    }
     return ResponseEntity.ok(result);
   }
 
@@ -62,15 +66,18 @@ public class ProductFileController {
   }
 
   @GetMapping("/product-files/{productFileId}/report")
-  public ResponseEntity<byte[]> downloadProductFileReport(
+  public ResponseEntity<InputStreamResource> downloadProductFileReport(
     @RequestHeader("x-organization-id") @Pattern(regexp = UUID_V4_PATTERN) String organizationId,
     @PathVariable @Pattern(regexp = OBJECT_ID_PATTERN) String productFileId
   ) {
     FileReportDTO file = productFileService.downloadReport(productFileId, organizationId);
+    // The blob is copied to the response as it is read, and closed once written
     return ResponseEntity.ok()
       .header("Content-Disposition", "attachment; filename=" + file.getFilename())
       .contentType(MediaType.APPLICATION_JSON)
-      .body(file.getData());
+      .contentLength(file.getContentLength())
+      .eTag(file.getETag())
+      .body(new InputStreamResource(file.getData()));
   }
 
   @GetMapping("/product-files/batch-list")
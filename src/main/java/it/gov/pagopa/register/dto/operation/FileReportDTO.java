@@ -3,12 +3,16 @@ package it.gov.pagopa.register.dto.operation;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.InputStream;
+
 @Data
 @Builder
 public class FileReportDTO {
 
-  private byte[] data;
+  private InputStream data;
   private String filename;
+  private long contentLength;
+  private String eTag;
 
 }
 
@@ -21,4 +21,5 @@ public class ProductFileDTO {
   private LocalDateTime dateUpload;
   private Integer findedProductsNumber;
   private Integer addedProductNumber;
+  private String errorKey;
 }
@@ -1,5 +1,6 @@
 package it.gov.pagopa.register.dto.operation;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import org.apache.commons.csv.CSVRecord;
@@ -14,6 +15,8 @@ public class ProductFileResult {
   private final String errorKey;
   private String productFileId;
   private List<CSVRecord> records;
+  @JsonIgnore
+  private byte[] content;
   private ProductFileResult(String status, String errorKey) {
     this.status = status;
     this.errorKey = errorKey;
@@ -38,6 +41,17 @@ public class ProductFileResult {
     return new ProductFileResult("OK", null,records);
   }
 
+  public static ProductFileResult ok(List<CSVRecord> records, byte[] content) {
+    ProductFileResult result = ok(records);
+    result.content = content;
+    return result;
+  }
+
+  /** The file was accepted and is validated in background */
+  public static ProductFileResult accepted(String productFileId) {
+    return new ProductFileResult("ACCEPTED", null, productFileId);
+  }
+
   public static ProductFileResult ko(String errorKey) {
     return new ProductFileResult("KO", errorKey);
   }
@@ -50,4 +64,8 @@ public class ProductFileResult {
     return this.status.equals("KO");
   }
 
+  public boolean isAccepted(){
+    return this.status.equals("ACCEPTED");
+  }
+
 }
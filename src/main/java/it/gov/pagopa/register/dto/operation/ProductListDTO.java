@@ -1,5 +1,6 @@
 package it.gov.pagopa.register.dto.operation;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,4 +19,7 @@ public class ProductListDTO {
   private Integer pageSize;
   private Long totalElements;
   private Integer totalPages;
+  /** Token of the following page with the keyset pagination, null on the last page */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String continuationToken;
 }
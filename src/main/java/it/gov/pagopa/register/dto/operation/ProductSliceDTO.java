@@ -0,0 +1,16 @@
+package it.gov.pagopa.register.dto.operation;
+
+import it.gov.pagopa.register.model.operation.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** A page of products read after a continuation token, with the token of the following page */
+@Data
+@AllArgsConstructor
+public class ProductSliceDTO {
+  private List<Product> content;
+  /** Null on the last page */
+  private String continuationToken;
+}
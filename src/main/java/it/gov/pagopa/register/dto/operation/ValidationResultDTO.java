@@ -6,6 +6,8 @@ import org.apache.commons.csv.CSVRecord;
 import java.util.List;
 import java.util.Map;
 
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.UploadKeyConstant.REPORT_FORMAL_FILE_ERROR_KEY;
+
 @Getter
 public class ValidationResultDTO {
   private final String status;     // "OK" or "KO"
@@ -14,11 +16,28 @@ public class ValidationResultDTO {
   private Map<CSVRecord, String> errorMessages;
   private List<CSVRecord> records;
   private List<String> headers;
+  /** Raw bytes of the validated file, read once and reused for the upload */
+  private byte[] content;
 
   public static ValidationResultDTO ok(List<CSVRecord> records, List<String> headers) {
     return new ValidationResultDTO("OK", null,records,headers);
   }
 
+  public static ValidationResultDTO ok(List<CSVRecord> records, List<String> headers, byte[] content) {
+    ValidationResultDTO result = ok(records, headers);
+    result.content = content;
+    return result;
+  }
+
+  /** Result of a well-formed file having records that break the column rules */
+  public static ValidationResultDTO invalidRecords(List<CSVRecord> records, List<String> headers,
+                                                   List<CSVRecord> invalidRecords, Map<CSVRecord, String> errorMessages) {
+    ValidationResultDTO result = new ValidationResultDTO("KO", REPORT_FORMAL_FILE_ERROR_KEY, invalidRecords, errorMessages);
+    result.records = records;
+    result.headers = headers;
+    return result;
+  }
+
   public static ValidationResultDTO ok() {
     return new ValidationResultDTO("OK", null);
   }
@@ -48,4 +67,8 @@ public class ValidationResultDTO {
     public boolean isKo() {
       return this.status.equals("KO");
     }
+
+    public boolean hasInvalidRecords() {
+      return this.invalidRecords != null && !this.invalidRecords.isEmpty();
+    }
 }
@@ -0,0 +1,34 @@
+package it.gov.pagopa.register.dto.utils;
+
+import it.gov.pagopa.register.exception.operation.EprelException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EprelLookupResult {
+
+  private final EprelProduct product;
+  private final RuntimeException error;
+
+  public static EprelLookupResult success(EprelProduct product) {
+    return new EprelLookupResult(product, null);
+  }
+
+  public static EprelLookupResult failure(RuntimeException error) {
+    return new EprelLookupResult(null, error);
+  }
+
+  public static EprelLookupResult aborted() {
+    return failure(new EprelException("EPREL lookup aborted due to a previous server error"));
+  }
+
+  /** Returns the EPREL response, re-throwing the exception raised by the connector if the call failed */
+  public EprelProduct get() {
+    if (error != null) {
+      throw error;
+    }
+    return product;
+  }
+}
@@ -3,7 +3,9 @@ package it.gov.pagopa.register.enums;
 
 public enum UploadCsvStatus {
 
+  VALIDATING,
   FORMAL_ERROR,
+  REJECTED,
   PARTIAL,
   UPLOADED,
   IN_PROCESS,
@@ -1,8 +1,13 @@
 package it.gov.pagopa.register.event.consumer;
 
+import it.gov.pagopa.common.kafka.KeyedConcurrencyKafkaConsumer;
+import it.gov.pagopa.common.kafka.KeyedConcurrencyProperties;
 import it.gov.pagopa.register.service.consumer.ProductFileConsumerService;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
 import org.springframework.messaging.Message;
 
 import java.util.function.Consumer;
@@ -11,7 +16,27 @@ import java.util.function.Consumer;
 public class ProductFileConsumerConfig {
 
   @Bean
-  public Consumer<Message<String>> productFileConsumer(ProductFileConsumerService productFileConsumerService) {
+  @ConfigurationProperties(prefix = "product-file-consumer.keyed-concurrency")
+  public KeyedConcurrencyProperties productFileConsumerConcurrency() {
+    return new KeyedConcurrencyProperties();
+  }
+
+  @Bean
+  public Consumer<Message<String>> productFileConsumer(ProductFileConsumerService productFileConsumerService,
+                                                       KeyedConcurrencyProperties productFileConsumerConcurrency) {
+    if (productFileConsumerConcurrency.isEnabled()) {
+      return KeyedConcurrencyKafkaConsumer.of(productFileConsumerService, productFileConsumerConcurrency);
+    }
     return productFileConsumerService::execute;
   }
+
+  @Bean
+  public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> productFileConsumerContainerCustomizer(
+    KeyedConcurrencyProperties productFileConsumerConcurrency) {
+    return (container, destinationName, group) -> {
+      if (productFileConsumerConcurrency.isEnabled()) {
+        KeyedConcurrencyKafkaConsumer.configureContainer(container.getContainerProperties());
+      }
+    };
+  }
 }
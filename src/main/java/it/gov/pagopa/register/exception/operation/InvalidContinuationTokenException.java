@@ -0,0 +1,20 @@
+package it.gov.pagopa.register.exception.operation;
+
+import it.gov.pagopa.common.web.exception.ServiceException;
+import it.gov.pagopa.common.web.exception.ServiceExceptionPayload;
+import it.gov.pagopa.register.constants.ExceptionConstants;
+
+public class InvalidContinuationTokenException extends ServiceException {
+    public InvalidContinuationTokenException(String message) {
+        this(ExceptionConstants.ExceptionCode.INVALID_CONTINUATION_TOKEN, message);
+    }
+
+    public InvalidContinuationTokenException(String code, String message) {
+        this(code, message, null, false, null);
+    }
+
+    public InvalidContinuationTokenException(String code, String message, ServiceExceptionPayload response, boolean printStackTrace, Throwable ex) {
+        super(code, message, response, printStackTrace, ex);
+    }
+
+}
@@ -22,6 +22,7 @@ public class ProductFileMapper {
       .dateUpload(productFile.getDateUpload())
       .findedProductsNumber(productFile.getFindedProductsNumber())
       .addedProductNumber(productFile.getAddedProductNumber())
+      .errorKey(productFile.getErrorKey())
       .build();
   }
 
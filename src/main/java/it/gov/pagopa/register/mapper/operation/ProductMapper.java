@@ -6,6 +6,8 @@ import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.enums.UserRole;
 import it.gov.pagopa.register.model.operation.Product;
 import it.gov.pagopa.register.model.operation.StatusChangeEvent;
+import it.gov.pagopa.register.utils.ProductSearchTokens;
+import it.gov.pagopa.register.utils.ProductSortKeys;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
@@ -94,7 +96,7 @@ public class ProductMapper {
     String productName = CATEGORIES_TO_IT_S.get(COOKINGHOBS) + " " + csvRecord.get(BRAND) + " " + csvRecord.get(MODEL);
     String fullProductName = gtinCode + " - " + productName;
 
-    return Product.builder()
+    Product product = Product.builder()
       .productFileId(productFileId)
       .organizationId(orgId)
       .registrationDate(LocalDateTime.now(ZoneOffset.UTC))
@@ -112,6 +114,9 @@ public class ProductMapper {
       .statusChangeChronology(new ArrayList<>())
       .formalMotivation("")
       .build();
+    product.setSearchTokens(ProductSearchTokens.of(product));
+    ProductSortKeys.apply(product);
+    return product;
   }
 
   public static Product mapEprelToProduct(CSVRecord csvRecord, EprelProduct eprelData, String orgId, String productFileId, String category, String organizationName) {
@@ -124,7 +129,7 @@ public class ProductMapper {
     String productName = limitName(mapName(null, eprelData, normalizedCategory, capacity));
     String fullProductName = limitName(mapName(gtinCode, eprelData, normalizedCategory, capacity));
 
-    return Product.builder()
+    Product product = Product.builder()
       .productFileId(productFileId)
       .organizationId(orgId)
       .registrationDate(LocalDateTime.now(ZoneOffset.UTC))
@@ -145,6 +150,9 @@ public class ProductMapper {
       .statusChangeChronology(new ArrayList<>())
       .formalMotivation("")
       .build();
+    product.setSearchTokens(ProductSearchTokens.of(product));
+    ProductSortKeys.apply(product);
+    return product;
   }
 
   public static String mapCapacity(String category, EprelProduct eprelData) {
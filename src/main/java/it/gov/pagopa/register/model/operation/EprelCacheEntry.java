@@ -0,0 +1,34 @@
+package it.gov.pagopa.register.model.operation;
+
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@Document("eprel_cache")
+@NoArgsConstructor
+@AllArgsConstructor
+public class EprelCacheEntry {
+  /** EPREL registration number */
+  @Id
+  private String id;
+  private EprelProduct product;
+  /** HTTP status of a cached client error, null for a successful response */
+  private Integer errorStatus;
+  private String errorStatusText;
+  /** Read as a miss from this instant on */
+  private Instant expireAt;
+  /** Seconds after the last write when Cosmos DB removes the entry, see IndexManagementService */
+  private Integer ttl;
+
+  public boolean isExpired(Instant now) {
+    return expireAt == null || !expireAt.isAfter(now);
+  }
+}
@@ -0,0 +1,26 @@
+package it.gov.pagopa.register.model.operation;
+
+import it.gov.pagopa.register.dto.operation.StorageEventDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldNameConstants;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@Document("eprel_pending_event")
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldNameConstants
+public class EprelPendingEvent {
+  /** Subject of the storage event, so that an event parked twice is stored once */
+  @Id
+  private String id;
+  private StorageEventDTO event;
+  private LocalDateTime parkedAt;
+}
@@ -0,0 +1,49 @@
+package it.gov.pagopa.register.model.operation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@Document("notification_outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldNameConstants
+public class NotificationOutboxEntry {
+
+  public enum Type { UPLOAD_OK, UPLOAD_PARTIAL, UPDATE_STATUS }
+
+  public enum State { PENDING, SENDING, SENT, FAILED }
+
+  /** Per-document ttl of the entries still to be sent, which Cosmos DB never removes */
+  public static final int NEVER_EXPIRES = -1;
+
+  /** Idempotency key: an email enqueued twice with the same key is sent once */
+  @Id
+  private String id;
+  private Type type;
+  private String recipientEmail;
+  /** Name of the uploaded file, for the upload emails */
+  private String fileName;
+  /** Product names, status and formal motivation, for the status update emails */
+  private List<String> products;
+  private String status;
+  private String formalMotivation;
+
+  private State state;
+  private int attempts;
+  /** When the entry can be claimed: the retry time of a pending entry, the lease expiry of an entry being sent */
+  private Instant nextAttemptAt;
+  private String lastError;
+  private Instant createdAt;
+  /** Seconds after the last write when Cosmos DB removes the entry: the retention once sent or failed */
+  private Integer ttl;
+}
@@ -7,9 +7,11 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.FieldNameConstants;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Builder
@@ -40,4 +42,22 @@ public class Product {
   private String productName;
   private String fullProductName;
   private String organizationName;
+  /** See {@link it.gov.pagopa.register.utils.ProductSearchTokens} */
+  private List<String> searchTokens;
+
+  // Sort keys, see it.gov.pagopa.register.utils.ProductSortKeys
+  private Integer energyRank;
+  private String categoryIt;
+  @Field("_id_lower")
+  private String gtinCodeLower;
+  @Field("organizationName_lower")
+  private String organizationNameLower;
+  @Field("productName_lower")
+  private String productNameLower;
+  @Field("fullProductName_lower")
+  private String fullProductNameLower;
+  @Field("brand_lower")
+  private String brandLower;
+  @Field("model_lower")
+  private String modelLower;
 }
@@ -3,6 +3,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -13,6 +14,7 @@ import java.time.LocalDateTime;
 @Document("product_file")
 @NoArgsConstructor
 @AllArgsConstructor
+@FieldNameConstants
 public class ProductFile {
   @Id
   private String id;
@@ -26,4 +28,5 @@ public class ProductFile {
   private Integer addedProductNumber;
   private String userEmail;
   private String organizationName;
+  private String errorKey;
 }
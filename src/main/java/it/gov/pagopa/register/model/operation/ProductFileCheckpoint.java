@@ -0,0 +1,39 @@
+package it.gov.pagopa.register.model.operation;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/** Progress of a product file whose processing was interrupted, so that a retry resumes after the last saved chunk */
+@Data
+@Builder
+@Document("product_file_checkpoint")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFileCheckpoint {
+  /** Id of the {@link ProductFile} */
+  @Id
+  private String id;
+  /** Number of CSV records already validated and saved */
+  private long processedRecords;
+  private int savedProducts;
+  private Set<String> savedGtins;
+  private List<InvalidRecord> invalidRecords;
+  private LocalDateTime updatedAt;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class InvalidRecord {
+    private List<String> values;
+    private String errorMessage;
+  }
+}
@@ -3,11 +3,13 @@ package it.gov.pagopa.register.model.operation;
 import it.gov.pagopa.register.enums.ProductStatus;
 import lombok.Builder;
 import lombok.Data;
+import lombok.experimental.FieldNameConstants;
 
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@FieldNameConstants
 public class StatusChangeEvent {
   private String username;
   private String role;
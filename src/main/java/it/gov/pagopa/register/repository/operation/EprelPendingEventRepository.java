@@ -0,0 +1,10 @@
+package it.gov.pagopa.register.repository.operation;
+
+import it.gov.pagopa.register.model.operation.EprelPendingEvent;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EprelPendingEventRepository extends MongoRepository<EprelPendingEvent, String> {
+
+}
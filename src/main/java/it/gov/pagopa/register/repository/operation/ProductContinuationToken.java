@@ -0,0 +1,47 @@
+package it.gov.pagopa.register.repository.operation;
+
+import it.gov.pagopa.register.exception.operation.InvalidContinuationTokenException;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque token of the keyset pagination: the sort keys of the page and the values they have on its last product,
+ * as base64url extended JSON so dates and numbers keep their BSON type.
+ */
+public class ProductContinuationToken {
+
+  private static final String KEYS = "k";
+  private static final String VALUES = "v";
+
+  private ProductContinuationToken() {}
+
+  public static String encode(List<Sort.Order> keys, List<Object> values) {
+    Document token = new Document(KEYS, describe(keys)).append(VALUES, values);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Returns the values of the keys, checking that the token was issued for the same sort */
+  public static List<Object> decode(String token, List<Sort.Order> keys) {
+    Document decoded;
+    try {
+      decoded = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+    } catch (RuntimeException e) {
+      throw new InvalidContinuationTokenException("Malformed continuation token");
+    }
+
+    List<?> values = decoded.get(VALUES, List.class);
+    if (!describe(keys).equals(decoded.get(KEYS)) || values == null || values.size() != keys.size()) {
+      throw new InvalidContinuationTokenException("Continuation token not issued for the requested sort");
+    }
+    return new ArrayList<>(values);
+  }
+
+  private static List<String> describe(List<Sort.Order> keys) {
+    return keys.stream().map(order -> order.getProperty() + ":" + order.getDirection()).toList();
+  }
+}
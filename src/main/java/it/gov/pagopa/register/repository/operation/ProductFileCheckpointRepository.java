@@ -0,0 +1,10 @@
+package it.gov.pagopa.register.repository.operation;
+
+import it.gov.pagopa.register.model.operation.ProductFileCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductFileCheckpointRepository extends MongoRepository<ProductFileCheckpoint, String> {
+
+}
@@ -1,9 +1,12 @@
 package it.gov.pagopa.register.repository.operation;
 
+import com.mongodb.client.result.UpdateResult;
 import it.gov.pagopa.register.dto.operation.EmailProductDTO;
 import it.gov.pagopa.register.dto.operation.ProductCriteriaDTO;
+import it.gov.pagopa.register.dto.operation.ProductSliceDTO;
 import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.model.operation.StatusChangeEvent;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.core.query.Criteria;
 
@@ -13,6 +16,8 @@ public interface ProductSpecificRepository {
 
   List<Product> findByFilter(Criteria criteria, Pageable pageable);
 
+  ProductSliceDTO findByFilterAfter(Criteria criteria, Pageable pageable, String continuationToken);
+
   Criteria getCriteria(ProductCriteriaDTO criteria);
 
   Long getCount(Criteria criteria);
@@ -25,6 +30,13 @@ public interface ProductSpecificRepository {
 
   List<Product> findByIds(List<String> productIds);
 
+  List<Product> findStatusesByIds(List<String> productIds);
+
+  UpdateResult transitionStatuses(List<String> productIds, ProductStatus currentStatus, ProductStatus targetStatus,
+                                  String formalMotivation, StatusChangeEvent statusChangeEvent);
+
+  List<String> findIdsByStatusChange(List<String> productIds, StatusChangeEvent statusChangeEvent);
+
   List<String> getAllowedInitialStates(ProductStatus targetStatus, String role);
 
 }
@@ -1,19 +1,30 @@
 package it.gov.pagopa.register.repository.operation;
 
+import com.mongodb.client.result.UpdateResult;
 import it.gov.pagopa.register.constants.AggregationConstants;
 import it.gov.pagopa.register.dto.operation.EmailProductDTO;
 import it.gov.pagopa.register.dto.operation.ProductCriteriaDTO;
+import it.gov.pagopa.register.dto.operation.ProductSliceDTO;
 import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.enums.UserRole;
 import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.model.operation.ProductFile;
+import it.gov.pagopa.register.model.operation.StatusChangeEvent;
+import it.gov.pagopa.register.utils.ProductSearchTokens;
+import it.gov.pagopa.register.utils.ProductSortKeys;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
 import java.util.*;
+import java.util.regex.Pattern;
 
 import static it.gov.pagopa.register.constants.AggregationConstants.*;
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
@@ -24,28 +35,108 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
 
   private final MongoTemplate mongoTemplate;
 
+  /** The sort keys are persisted on the product (see {@link ProductSortKeys}), so pages are sorted on indexed fields */
   @Override
   public List<Product> findByFilter(Criteria criteria, Pageable pageable) {
-   Aggregation special = buildAggregation(criteria, pageable);
-    if (special != null) {
-      return aggregateResults(special);
+    Pageable page = pageable.getSort().isSorted()
+      ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(sortKeys(pageable.getSort())))
+      : pageable;
+    return mongoTemplate.find(Query.query(criteria).with(page), Product.class);
+  }
+
+  /**
+   * Keyset pagination: instead of skipping the previous pages, the products are read after the sort key values of
+   * the last product of the previous page, carried by the continuation token.
+   */
+  @Override
+  public ProductSliceDTO findByFilterAfter(Criteria criteria, Pageable pageable, String continuationToken) {
+    List<Sort.Order> keys = sortKeys(pageable.getSort());
+
+    Criteria pageCriteria = criteria;
+    if (continuationToken != null) {
+      List<Object> lastValues = ProductContinuationToken.decode(continuationToken, keys);
+      pageCriteria = new Criteria().andOperator(criteria, seekCriteria(keys, lastValues));
+    }
+    Query query = Query.query(pageCriteria).with(Sort.by(keys)).limit(pageable.getPageSize());
+
+    List<org.bson.Document> documents = mongoTemplate.find(query, org.bson.Document.class, PRODUCT_COLLECTION_NAME);
+    List<Product> products = documents.stream()
+      .map(document -> mongoTemplate.getConverter().read(Product.class, document))
+      .toList();
+
+    String nextToken = null;
+    if (!documents.isEmpty() && documents.size() == pageable.getPageSize()) {
+      org.bson.Document last = documents.getLast();
+      List<Object> lastValues = new ArrayList<>(keys.size());
+      for (Sort.Order key : keys) {
+        lastValues.add(last.get(key.getProperty()));
+      }
+      nextToken = ProductContinuationToken.encode(keys, lastValues);
     }
+    return new ProductSliceDTO(products, nextToken);
+  }
 
-    boolean hasSort = pageable.getSort().isSorted();
-    if (hasSort) {
-      boolean hasCiSort = pageable.getSort().stream()
-        .map(Sort.Order::getProperty)
-        .map(this::toDbField)
-        .anyMatch(AggregationConstants.CASE_INSENSITIVE_FIELDS::contains);
+  /**
+   * Persisted fields sorting the products as requested: the energy rank for the energy class, the Italian category
+   * name for category and batch name, the lowercase copies of the case-insensitive fields, followed by {@code _id}
+   * so the order is total.
+   */
+  private List<Sort.Order> sortKeys(Sort sort) {
+    List<Sort.Order> orders = new ArrayList<>();
+    if (isSortedBy(sort, FIELD_ENERGY_CLASS)) {
+      orders.add(new Sort.Order(getSortDirection(sort, FIELD_ENERGY_CLASS), FIELD_ENERGY_RANK));
+    } else if (isSortedBy(sort, FIELD_BATCH_NAME)) {
+      orders.add(new Sort.Order(getSortDirection(sort, FIELD_BATCH_NAME), FIELD_CATEGORY_IT));
+      orders.add(new Sort.Order(getSortDirection(sort, FIELD_BATCH_NAME), FIELD_PRODUCT_FILE_ID));
+    } else if (isSortedBy(sort, FIELD_CATEGORY)) {
+      orders.add(new Sort.Order(getSortDirection(sort, FIELD_CATEGORY), FIELD_CATEGORY_IT));
+    } else {
+      for (Sort.Order order : sort) {
+        String dbProp = toDbField(order.getProperty());
+        orders.add(new Sort.Order(order.getDirection(), AggregationConstants.CASE_INSENSITIVE_FIELDS.contains(dbProp)
+          ? dbProp + AggregationConstants.LOWER_SUFFIX
+          : dbProp));
+      }
+    }
 
-      Aggregation agg = hasCiSort
-        ? buildCaseInsensitiveSortAggregation(criteria, pageable)
-        : buildGenericSortAggregation(criteria, pageable);
+    if (orders.isEmpty() || !FIELD_ID.equals(orders.getLast().getProperty())) {
+      Sort.Direction direction = orders.isEmpty() ? Sort.Direction.ASC : orders.getLast().getDirection();
+      orders.add(new Sort.Order(direction, FIELD_ID));
+    }
+    return orders;
+  }
 
-      return aggregateResults(agg);
+  /**
+   * Products coming after the given key values in the sort order: for some key, equal on the previous keys and
+   * after the value on that key. Nulls sort first, so they come after any value only in descending order.
+   */
+  private static Criteria seekCriteria(List<Sort.Order> keys, List<Object> lastValues) {
+    List<Criteria> branches = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i++) {
+      Criteria after = afterValue(keys.get(i), lastValues.get(i));
+      if (after == null) {
+        continue;
+      }
+      List<Criteria> branch = new ArrayList<>();
+      for (int j = 0; j < i; j++) {
+        branch.add(Criteria.where(keys.get(j).getProperty()).is(lastValues.get(j)));
+      }
+      branch.add(after);
+      branches.add(branch.size() == 1 ? after : new Criteria().andOperator(branch));
     }
+    return branches.isEmpty()
+      ? Criteria.where(FIELD_ID).exists(false)
+      : new Criteria().orOperator(branches);
+  }
 
-    return mongoTemplate.find(Query.query(criteria).with(pageable), Product.class);
+  private static Criteria afterValue(Sort.Order key, Object value) {
+    String field = key.getProperty();
+    if (key.isAscending()) {
+      return value == null ? Criteria.where(field).ne(null) : Criteria.where(field).gt(value);
+    }
+    return value == null
+      ? null
+      : new Criteria().orOperator(Criteria.where(field).lt(value), Criteria.where(field).is(null));
   }
 
   @Override
@@ -62,23 +153,15 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     if (inputCriteria.getProductFileId() != null) {
       criteria.and(Product.Fields.productFileId).is(inputCriteria.getProductFileId());
     }
-    if (inputCriteria.getEprelCode() != null) {
-      criteria.and(Product.Fields.eprelCode).regex(".*" + inputCriteria.getEprelCode() + ".*", "i");
-    }
-    if (inputCriteria.getGtinCode() != null) {
-      criteria.and(FIELD_ID).regex(".*" + inputCriteria.getGtinCode() + ".*", "i");
-    }
-    if (inputCriteria.getProductName() != null) {
-      criteria.and(Product.Fields.productName).regex(".*" + inputCriteria.getProductName() + ".*", "i");
-    }
-    if (inputCriteria.getFullProductName() != null) {
-      criteria.and(Product.Fields.fullProductName).regex(".*" + inputCriteria.getFullProductName() + ".*", "i");
-    }
-    if (inputCriteria.getBrand() != null) {
-      criteria.and(Product.Fields.brand).regex(".*" + inputCriteria.getBrand() + ".*", "i");
-    }
-    if (inputCriteria.getModel() != null) {
-      criteria.and(Product.Fields.model).regex(".*" + inputCriteria.getModel() + ".*", "i");
+    List<String> searchTokens = new ArrayList<>();
+    addTextFilter(criteria, searchTokens, Product.Fields.eprelCode, ProductSearchTokens.EPREL_CODE, inputCriteria.getEprelCode());
+    addTextFilter(criteria, searchTokens, FIELD_ID, ProductSearchTokens.GTIN_CODE, inputCriteria.getGtinCode());
+    addTextFilter(criteria, searchTokens, Product.Fields.productName, ProductSearchTokens.PRODUCT_NAME, inputCriteria.getProductName());
+    addTextFilter(criteria, searchTokens, Product.Fields.fullProductName, ProductSearchTokens.FULL_PRODUCT_NAME, inputCriteria.getFullProductName());
+    addTextFilter(criteria, searchTokens, Product.Fields.brand, ProductSearchTokens.BRAND, inputCriteria.getBrand());
+    addTextFilter(criteria, searchTokens, Product.Fields.model, ProductSearchTokens.MODEL, inputCriteria.getModel());
+    if (!searchTokens.isEmpty()) {
+      criteria.and(Product.Fields.searchTokens).all(searchTokens);
     }
     if (inputCriteria.getStatus() != null) {
       criteria.and(Product.Fields.status).is(inputCriteria.getStatus());
@@ -87,6 +170,18 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     return criteria;
   }
 
+  /**
+   * Substring filter: the search tokens select the candidates on the index, the regex on the field discards the
+   * candidates having all the trigrams but not the whole value. Values shorter than a trigram use the regex only.
+   */
+  private static void addTextFilter(Criteria criteria, List<String> searchTokens, String field, String tokenField, String value) {
+    if (value == null) {
+      return;
+    }
+    searchTokens.addAll(ProductSearchTokens.forQuery(tokenField, value));
+    criteria.and(field).regex(Pattern.quote(value), "i");
+  }
+
   @Override
   public Long getCount(Criteria criteria) {
     Query query = new Query().addCriteria(criteria);
@@ -113,24 +208,46 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     return results.getMappedResults();
   }
 
+  /**
+   * The products are matched on {@code _id} first, then their files are read with one query by distinct file id and
+   * the product names are grouped by the email of the user who uploaded the file.
+   */
   @Override
   public List<EmailProductDTO> getProductNamesGroupedByEmail(List<String> gtinCodes) {
-    Aggregation aggregation = Aggregation.newAggregation(
-      Aggregation.addFields()
-        .addField("productFileIdObj")
-        .withValue(ConvertOperators.ToObjectId.toObjectId("$productFileId"))
-        .build(),
-      Aggregation.match(Criteria.where("_id").in(gtinCodes)),
-      Aggregation.lookup("product_file", "productFileIdObj", "_id", "fileInfo"),
-      Aggregation.unwind("fileInfo"),
-      Aggregation.group("fileInfo.userEmail")
-        .addToSet("productName").as("productNames")
-    );
-
-    AggregationResults<EmailProductDTO> results =
-      mongoTemplate.aggregate(aggregation, "product", EmailProductDTO.class);
+    Query productQuery = Query.query(Criteria.where(FIELD_ID).in(gtinCodes));
+    productQuery.fields().include(Product.Fields.productFileId, Product.Fields.productName);
+    List<Product> products = mongoTemplate.find(productQuery, Product.class);
+
+    List<String> productFileIds = products.stream()
+      .map(Product::getProductFileId)
+      .filter(Objects::nonNull)
+      .distinct()
+      .toList();
+    if (productFileIds.isEmpty()) {
+      return List.of();
+    }
+    Query fileQuery = Query.query(Criteria.where(FIELD_ID).in(productFileIds));
+    fileQuery.fields().include(ProductFile.Fields.userEmail);
+    Map<String, String> userEmailByFileId = new HashMap<>();
+    for (ProductFile productFile : mongoTemplate.find(fileQuery, ProductFile.class)) {
+      if (productFile.getUserEmail() != null) {
+        userEmailByFileId.put(productFile.getId(), productFile.getUserEmail());
+      }
+    }
 
-    return results.getMappedResults();
+    Map<String, Set<String>> productNamesByEmail = new LinkedHashMap<>();
+    for (Product product : products) {
+      String userEmail = userEmailByFileId.get(product.getProductFileId());
+      if (userEmail != null) {
+        productNamesByEmail.computeIfAbsent(userEmail, email -> new LinkedHashSet<>()).add(product.getProductName());
+      }
+    }
+    return productNamesByEmail.entrySet().stream()
+      .map(entry -> EmailProductDTO.builder()
+        .id(entry.getKey())
+        .productNames(new ArrayList<>(entry.getValue()))
+        .build())
+      .toList();
   }
 
   @Override
@@ -138,6 +255,44 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     Criteria criteria = new Criteria().and(FIELD_ID).in(productIds);
     return mongoTemplate.find(Query.query(criteria), Product.class);
   }
+  /** Only the status of the products, to validate a status transition without reading the whole documents */
+  @Override
+  public List<Product> findStatusesByIds(List<String> productIds) {
+    Query query = Query.query(Criteria.where(FIELD_ID).in(productIds));
+    query.fields().include(FIELD_STATUS);
+    return mongoTemplate.find(query, Product.class);
+  }
+
+  /**
+   * Moves the products still in the current status to the target status with a single conditional update, appending
+   * the event to their chronology. Products moved meanwhile by someone else do not match and are left untouched.
+   */
+  @Override
+  public UpdateResult transitionStatuses(List<String> productIds, ProductStatus currentStatus, ProductStatus targetStatus,
+                                         String formalMotivation, StatusChangeEvent statusChangeEvent) {
+    Query query = Query.query(Criteria.where(FIELD_ID).in(productIds).and(FIELD_STATUS).is(currentStatus.name()));
+    Update update = new Update()
+      .set(FIELD_STATUS, targetStatus.name())
+      .push(Product.Fields.statusChangeChronology, statusChangeEvent);
+    if (StringUtils.isNotBlank(formalMotivation)) {
+      update.set(Product.Fields.formalMotivation, formalMotivation);
+    }
+    return mongoTemplate.updateMulti(query, update, Product.class);
+  }
+
+  /** Codes of the products whose chronology holds the given event, that is the ones moved by that transition */
+  @Override
+  public List<String> findIdsByStatusChange(List<String> productIds, StatusChangeEvent statusChangeEvent) {
+    Query query = Query.query(Criteria.where(FIELD_ID).in(productIds)
+      .and(Product.Fields.statusChangeChronology).elemMatch(Criteria
+        .where(StatusChangeEvent.Fields.username).is(statusChangeEvent.getUsername())
+        .and(StatusChangeEvent.Fields.updateDate).is(statusChangeEvent.getUpdateDate())));
+    query.fields().include(FIELD_ID);
+    return mongoTemplate.find(query, Product.class).stream()
+      .map(Product::getGtinCode)
+      .toList();
+  }
+
 
 
   @Override
@@ -154,96 +309,12 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     return mongoTemplate.find(Query.query(criteria), Product.class);
   }
 
-  private Aggregation buildAggregation(Criteria criteria, Pageable pageable) {
-    Sort sort = pageable.getSort();
-
-    if (isSortedBy(sort, FIELD_ENERGY_CLASS)) {
-      return buildEnergyClassAggregation(criteria, pageable);
-    }
-
-    if (isSortedBy(sort, FIELD_CATEGORY) || isSortedBy(sort, FIELD_BATCH_NAME)) {
-      return buildCategoryAggregation(criteria, pageable, isSortedBy(sort, FIELD_BATCH_NAME));
-    }
-
-    return null;
-  }
-
   private boolean isSortedBy(Sort sort, String property) {
     return sort.stream().anyMatch(order -> order.getProperty().equalsIgnoreCase(property));
   }
 
-  private List<Product> aggregateResults(Aggregation aggregation) {
-    return mongoTemplate.aggregate(aggregation, PRODUCT_COLLECTION_NAME, Product.class).getMappedResults();
-  }
-
-  private Aggregation buildEnergyClassAggregation(Criteria criteria, Pageable pageable) {
-    Sort.Direction direction = getSortDirection(pageable, FIELD_ENERGY_CLASS);
-
-    return Aggregation.newAggregation(
-      addEnergyRankField(),
-      Aggregation.match(criteria),
-      Aggregation.sort(Sort.by(direction, "energyRank")),
-      Aggregation.skip(pageable.getOffset()),
-      Aggregation.limit(pageable.getPageSize())
-    );
-  }
-
-  private AggregationOperation addEnergyRankField() {
-    return Aggregation.addFields()
-      .addField("energyRank")
-      .withValue(
-        ConditionalOperators.switchCases(
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("A+++")).then(10),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("A++")).then(9),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("A+")).then(8),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("A")).then(7),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("B")).then(6),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("C")).then(5),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("D")).then(4),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("E")).then(3),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_ENERGY_CLASS).equalToValue("F")).then(2)
-        ).defaultTo(1)
-      ).build();
-  }
-
-  private Aggregation buildCategoryAggregation(Criteria criteria, Pageable pageable, boolean sortByBatchName) {
-    List<Sort.Order> orders = new ArrayList<>();
-
-    if (sortByBatchName) {
-      orders.add(new Sort.Order(getSortDirection(pageable, FIELD_BATCH_NAME), RUNTIME_FIELD_CATEGORY_IT));
-      orders.add(new Sort.Order(getSortDirection(pageable, FIELD_BATCH_NAME), FIELD_PRODUCT_FILE_ID));
-    } else {
-      orders.add(new Sort.Order(getSortDirection(pageable, FIELD_CATEGORY), RUNTIME_FIELD_CATEGORY_IT));
-    }
-
-    return Aggregation.newAggregation(
-      addCategoryTranslationField(),
-      Aggregation.match(criteria),
-      Aggregation.sort(Sort.by(orders)),
-      Aggregation.skip(pageable.getOffset()),
-      Aggregation.limit(pageable.getPageSize())
-    );
-  }
-
-  private AggregationOperation addCategoryTranslationField() {
-    return Aggregation.addFields()
-      .addField(RUNTIME_FIELD_CATEGORY_IT)
-      .withValue(
-        ConditionalOperators.switchCases(
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(WASHINGMACHINES)).then(WASHINGMACHINES_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(WASHERDRIERS)).then(WASHERDRIERS_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(OVENS)).then(OVENS_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(RANGEHOODS)).then(RANGEHOODS_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(DISHWASHERS)).then(DISHWASHERS_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(TUMBLEDRYERS)).then(TUMBLEDRYERS_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(REFRIGERATINGAPPL)).then(REFRIGERATINGAPPL_IT_P),
-          ConditionalOperators.Switch.CaseOperator.when(ComparisonOperators.valueOf(FIELD_CATEGORY).equalToValue(COOKINGHOBS)).then(COOKINGHOBS_IT_P)
-        )
-      ).build();
-  }
-
-  private Sort.Direction getSortDirection(Pageable pageable, String property) {
-    return Optional.ofNullable(pageable.getSort().getOrderFor(property))
+  private Sort.Direction getSortDirection(Sort sort, String property) {
+    return Optional.ofNullable(sort.getOrderFor(property))
       .map(Sort.Order::getDirection)
       .orElse(Sort.Direction.ASC);
   }
@@ -281,47 +352,6 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     return validInitialStates.getOrDefault(targetStatus.name(), List.of());
   }
 
-  private Aggregation buildCaseInsensitiveSortAggregation(Criteria criteria, Pageable pageable) {
-    List<AggregationOperation> ops = new ArrayList<>();
-
-    ops.add(Aggregation.match(criteria));
-
-    for (Sort.Order order : pageable.getSort()) {
-      String dbProp = toDbField(order.getProperty());
-      if (AggregationConstants.CASE_INSENSITIVE_FIELDS.contains(dbProp)) {
-        ops.add(Aggregation.addFields()
-          .addField(dbProp + AggregationConstants.LOWER_SUFFIX)
-          .withValue(new org.bson.Document("$toLower", "$" + dbProp))
-          .build());
-      }
-    }
-
-    List<Sort.Order> sortOrders = new ArrayList<>();
-    for (Sort.Order order : pageable.getSort()) {
-      String dbProp = toDbField(order.getProperty());
-      String sortKey = AggregationConstants.CASE_INSENSITIVE_FIELDS.contains(dbProp)
-        ? dbProp + AggregationConstants.LOWER_SUFFIX
-        : dbProp;
-      sortOrders.add(new Sort.Order(order.getDirection(), sortKey));
-    }
-    ops.add(Aggregation.sort(Sort.by(sortOrders)));
-
-    ops.add(Aggregation.skip(pageable.getOffset()));
-    ops.add(Aggregation.limit(pageable.getPageSize()));
-
-    ProjectionOperation project = Aggregation.project(Product.class);
-    for (Sort.Order order : pageable.getSort()) {
-      String dbProp = toDbField(order.getProperty());
-      if (AggregationConstants.CASE_INSENSITIVE_FIELDS.contains(dbProp)) {
-        project = project.andExclude(dbProp + AggregationConstants.LOWER_SUFFIX);
-      }
-    }
-    ops.add(project);
-
-    return Aggregation.newAggregation(ops);
-  }
-
-
   private String toDbField(String prop) {
     if ("gtinCode".equalsIgnoreCase(prop)) {
       return "_id";
@@ -329,25 +359,6 @@ public class ProductSpecificRepositoryImpl implements ProductSpecificRepository
     return prop;
   }
 
-  private Aggregation buildGenericSortAggregation(Criteria criteria, Pageable pageable) {
-    List<AggregationOperation> ops = new ArrayList<>();
-    ops.add(Aggregation.match(criteria));
-
-    List<Sort.Order> sortOrders = new ArrayList<>();
-    for (Sort.Order o : pageable.getSort()) {
-      sortOrders.add(new Sort.Order(o.getDirection(), toDbField(o.getProperty())));
-    }
-    if (sortOrders.isEmpty()) {
-      sortOrders.add(Sort.Order.asc("_id"));
-    }
-    ops.add(Aggregation.sort(Sort.by(sortOrders)));
-
-    ops.add(Aggregation.skip(pageable.getOffset()));
-    ops.add(Aggregation.limit(pageable.getPageSize()));
-    ops.add(Aggregation.project(Product.class));
-
-    return Aggregation.newAggregation(ops);
-  }
 
 
 }
@@ -0,0 +1,99 @@
+package it.gov.pagopa.register.service.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.register.connector.eprel.EprelCircuitBreaker;
+import it.gov.pagopa.register.dto.operation.StorageEventDTO;
+import it.gov.pagopa.register.event.producer.ProductFileProducer;
+import it.gov.pagopa.register.model.operation.EprelPendingEvent;
+import it.gov.pagopa.register.repository.operation.EprelPendingEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the storage events that could not be processed because EPREL was unavailable, and publishes them
+ * again on the product file topic once the EPREL health probe reports that it is reachable.
+ */
+@Slf4j
+@Service
+public class EprelPendingEventService {
+
+  private final EprelPendingEventRepository eprelPendingEventRepository;
+  private final EprelCircuitBreaker eprelCircuitBreaker;
+  private final ProductFileProducer productFileProducer;
+  private final ObjectMapper objectMapper;
+  private final ProductFileAbandonService productFileAbandonService;
+  private final MongoTemplate mongoTemplate;
+
+  public EprelPendingEventService(EprelPendingEventRepository eprelPendingEventRepository,
+                                  EprelCircuitBreaker eprelCircuitBreaker,
+                                  ProductFileProducer productFileProducer,
+                                  ObjectMapper objectMapper,
+                                  ProductFileAbandonService productFileAbandonService,
+                                  MongoTemplate mongoTemplate) {
+    this.eprelPendingEventRepository = eprelPendingEventRepository;
+    this.eprelCircuitBreaker = eprelCircuitBreaker;
+    this.productFileProducer = productFileProducer;
+    this.objectMapper = objectMapper;
+    this.productFileAbandonService = productFileAbandonService;
+    this.mongoTemplate = mongoTemplate;
+    eprelCircuitBreaker.addRecoveryListener(this::resume);
+  }
+
+  public void park(List<StorageEventDTO> events) {
+    LocalDateTime now = LocalDateTime.now();
+    List<EprelPendingEvent> pendingEvents = events.stream()
+      .map(event -> EprelPendingEvent.builder()
+        .id(event.getSubject())
+        .event(event)
+        .parkedAt(now)
+        .build())
+      .toList();
+    eprelPendingEventRepository.saveAll(pendingEvents);
+    log.info("[EPREL_PENDING_EVENT] - Parked {} events until EPREL is available", pendingEvents.size());
+    eprelCircuitBreaker.startProbe();
+  }
+
+  /** Events parked before a restart are resumed by a new probe */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (eprelPendingEventRepository.count() > 0) {
+      eprelCircuitBreaker.startProbe();
+    }
+  }
+
+  /**
+   * Every replica sees the recovery, so each event is removed before being published: only the replica that removed
+   * it publishes it. An event that cannot be published again unlocks its file as PARTIAL, so the organization can
+   * upload again
+   */
+  public void resume() {
+    int resumed = 0;
+    EprelPendingEvent pendingEvent;
+    while ((pendingEvent = claimOldest()) != null) {
+      try {
+        String json = objectMapper.writeValueAsString(List.of(pendingEvent.getEvent()));
+        if (!productFileProducer.scheduleMessage(json)) {
+          productFileAbandonService.abandon(pendingEvent.getId());
+        }
+      } catch (JsonProcessingException e) {
+        log.error("[EPREL_PENDING_EVENT] - Unable to serialize event {}: {}", pendingEvent.getId(), e.getMessage());
+        productFileAbandonService.abandon(pendingEvent.getId());
+      }
+      resumed++;
+    }
+    log.info("[EPREL_PENDING_EVENT] - Resumed {} events parked while EPREL was unavailable", resumed);
+  }
+
+  private EprelPendingEvent claimOldest() {
+    return mongoTemplate.findAndRemove(new Query().with(Sort.by(EprelPendingEvent.Fields.parkedAt)), EprelPendingEvent.class);
+  }
+}
@@ -0,0 +1,54 @@
+package it.gov.pagopa.register.service.consumer;
+
+import it.gov.pagopa.register.repository.operation.ProductFileCheckpointRepository;
+import it.gov.pagopa.register.repository.operation.ProductFileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.regex.Matcher;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CSV;
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.SUBJECT_PATTERN;
+import static it.gov.pagopa.register.enums.UploadCsvStatus.IN_PROCESS;
+import static it.gov.pagopa.register.enums.UploadCsvStatus.PARTIAL;
+
+/**
+ * Gives up the ingestion of a file whose storage event will not be processed: a file left IN_PROCESS is set to
+ * PARTIAL, so it does not block the uploads of its organization, while a file that already got its final status
+ * keeps it. Its checkpoint is deleted, since nothing will resume from it.
+ */
+@Slf4j
+@Service
+public class ProductFileAbandonService {
+
+  private final ProductFileRepository productFileRepository;
+  private final ProductFileCheckpointRepository productFileCheckpointRepository;
+
+  public ProductFileAbandonService(ProductFileRepository productFileRepository,
+                                   ProductFileCheckpointRepository productFileCheckpointRepository) {
+    this.productFileRepository = productFileRepository;
+    this.productFileCheckpointRepository = productFileCheckpointRepository;
+  }
+
+  public void abandon(String subject) {
+    Matcher matcher = subject != null ? SUBJECT_PATTERN.matcher(subject) : null;
+    if (matcher == null || !matcher.find()) {
+      log.warn("[PRODUCT_UPLOAD] - Invalid subject format: {}", subject);
+      return;
+    }
+    String productFileId = matcher.group(4).replace(CSV, "");
+    try {
+      productFileCheckpointRepository.deleteById(productFileId);
+      productFileRepository.findById(productFileId)
+        .filter(productFile -> IN_PROCESS.name().equals(productFile.getUploadStatus()))
+        .ifPresent(productFile -> {
+          productFile.setUploadStatus(PARTIAL.name());
+          productFile.setAddedProductNumber(0);
+          productFileRepository.save(productFile);
+          log.warn("[PRODUCT_UPLOAD] - File {} abandoned, status set to {}", productFileId, PARTIAL);
+        });
+    } catch (RuntimeException e) {
+      log.error("[PRODUCT_UPLOAD] - Unable to abandon file {}: {}", productFileId, e.getMessage());
+    }
+  }
+}
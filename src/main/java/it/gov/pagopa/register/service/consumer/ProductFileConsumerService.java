@@ -1,44 +1,49 @@
 package it.gov.pagopa.register.service.consumer;
 
 import com.azure.storage.blob.models.BlobStorageException;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import it.gov.pagopa.common.kafka.BaseKafkaConsumer;
-import it.gov.pagopa.register.connector.notification.NotificationServiceImpl;
+import it.gov.pagopa.common.mongo.bulk.MongoBulkUpserter;
 import it.gov.pagopa.register.connector.storage.FileStorageClient;
 import it.gov.pagopa.register.dto.operation.StorageEventDTO;
 import it.gov.pagopa.register.dto.utils.EventDetails;
 import it.gov.pagopa.register.dto.utils.ProductValidationResult;
-import it.gov.pagopa.register.event.producer.ProductFileProducer;
 import it.gov.pagopa.register.exception.operation.EprelException;
 import it.gov.pagopa.register.model.operation.Product;
 import it.gov.pagopa.register.model.operation.ProductFile;
+import it.gov.pagopa.register.model.operation.ProductFileCheckpoint;
+import it.gov.pagopa.register.repository.operation.ProductFileCheckpointRepository;
 import it.gov.pagopa.register.repository.operation.ProductFileRepository;
 import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.metrics.ProductIngestMetrics;
+import it.gov.pagopa.register.service.notification.NotificationOutboxService;
 import it.gov.pagopa.register.service.validator.CookinghobsValidatorService;
 import it.gov.pagopa.register.service.validator.EprelProductValidatorService;
 import it.gov.pagopa.register.utils.CsvUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.attribute.FileAttribute;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 import static it.gov.pagopa.register.enums.UploadCsvStatus.*;
+import static it.gov.pagopa.register.mapper.operation.ProductMapper.mapProductToCsvRow;
+import static it.gov.pagopa.register.service.metrics.ProductIngestMetrics.*;
+import static it.gov.pagopa.register.utils.ValidationUtils.addError;
 
 @Slf4j
 @Service
@@ -50,11 +55,15 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
   private final FileStorageClient fileStorageClient;
   private final EprelProductValidatorService eprelProductValidator;
   private final CookinghobsValidatorService cookinghobsValidatorService;
-  private final NotificationServiceImpl notificationService;
-  private final ProductFileProducer productFileProducer;
-
-  private final ConsumerControlService consumerControlService;
-  private final ObjectMapper objectMapper;
+  private final NotificationOutboxService notificationOutboxService;
+
+  private final EprelPendingEventService eprelPendingEventService;
+  private final ProductFileAbandonService productFileAbandonService;
+  private final ProductFileCheckpointRepository productFileCheckpointRepository;
+  private final MongoBulkUpserter mongoBulkUpserter;
+  private final ProductIngestMetrics productIngestMetrics;
+  private final int processingChunkSize;
+  private final int maxConcurrentOrganizations;
   protected ProductFileConsumerService(@Value("${spring.application.name}") String applicationName,
                                        ProductRepository productRepository,
                                        FileStorageClient fileStorageClient,
@@ -62,9 +71,14 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
                                        ProductFileRepository productFileRepository,
                                        EprelProductValidatorService eprelProductValidator,
                                        CookinghobsValidatorService cookinghobsValidatorService,
-                                       NotificationServiceImpl notificationService,
-                                       ProductFileProducer productFileProducer,
-                                       ConsumerControlService consumerControlService){
+                                       NotificationOutboxService notificationOutboxService,
+                                       EprelPendingEventService eprelPendingEventService,
+                                       ProductFileAbandonService productFileAbandonService,
+                                       ProductFileCheckpointRepository productFileCheckpointRepository,
+                                       MongoBulkUpserter mongoBulkUpserter,
+                                       ProductIngestMetrics productIngestMetrics,
+                                       @Value("${product-file-validation.processingChunkSize:50}") int processingChunkSize,
+                                       @Value("${product-file-consumer.maxConcurrentOrganizations:4}") int maxConcurrentOrganizations){
     super(applicationName);
     this.productRepository = productRepository;
     this.fileStorageClient = fileStorageClient;
@@ -72,10 +86,14 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
     this.productFileRepository = productFileRepository;
     this.eprelProductValidator = eprelProductValidator;
     this.cookinghobsValidatorService = cookinghobsValidatorService;
-    this.notificationService = notificationService;
-    this.productFileProducer = productFileProducer;
-    this.objectMapper = objectMapper;
-    this.consumerControlService = consumerControlService;
+    this.notificationOutboxService = notificationOutboxService;
+    this.eprelPendingEventService = eprelPendingEventService;
+    this.productFileAbandonService = productFileAbandonService;
+    this.productFileCheckpointRepository = productFileCheckpointRepository;
+    this.mongoBulkUpserter = mongoBulkUpserter;
+    this.productIngestMetrics = productIngestMetrics;
+    this.processingChunkSize = Math.max(1, processingChunkSize);
+    this.maxConcurrentOrganizations = maxConcurrentOrganizations;
   }
 
   @Override
@@ -84,6 +102,22 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
     return objectReader;
   }
 
+  /** Messages are dispatched by the organization of their first event, so files of one organization keep their order */
+  @Override
+  protected String getConcurrencyKey(Message<String> message) {
+    try {
+      List<StorageEventDTO> events = objectReader.readValue(message.getPayload());
+      return events == null ? null : events.stream()
+        .filter(Objects::nonNull)
+        .map(ProductFileConsumerService::organizationKey)
+        .filter(key -> !key.isEmpty())
+        .findFirst()
+        .orElse(null);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   @Override
   protected void onDeserializationError(Message<String> message, Throwable e) {
     log.error("[PRODUCT_UPLOAD] - Deserialization error: {}", e.getMessage(), e);
@@ -94,49 +128,75 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
     log.error("[PRODUCT_UPLOAD] - Unexpected error: {}", e.getMessage(), e);
   }
 
+  /**
+   * Events of different organizations are processed concurrently, at most {@code maxConcurrentOrganizations} at a
+   * time, while events of the same organization keep their order. Once an event fails for an EPREL error, the
+   * following events of the same organization are parked with it until EPREL is available again, while the other
+   * events go on. Returns only when every event is done.
+   */
   @Override
   public void execute(List<StorageEventDTO> events, Message<String> message) {
     log.info("[PRODUCT_UPLOAD] - Executing with {} events", events.size());
 
-    List<StorageEventDTO> toRetry = new ArrayList<>();
-
+    Map<String, List<StorageEventDTO>> eventsByOrganization = new LinkedHashMap<>();
     for (StorageEventDTO event : events) {
       if (isValidEvent(event)) {
-        try {
-          processEvent(event);
-        } catch (EprelException e) {
-          toRetry.add(event);
+        eventsByOrganization.computeIfAbsent(organizationKey(event), k -> new ArrayList<>()).add(event);
+      }
+    }
+
+    Set<StorageEventDTO> failed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    if (eventsByOrganization.size() <= 1 || maxConcurrentOrganizations <= 1) {
+      eventsByOrganization.values().forEach(organizationEvents -> processOrganizationEvents(organizationEvents, failed));
+    } else {
+      log.info("[PRODUCT_UPLOAD] - Processing events of {} organizations concurrently", eventsByOrganization.size());
+      Semaphore permits = new Semaphore(maxConcurrentOrganizations);
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (List<StorageEventDTO> organizationEvents : eventsByOrganization.values()) {
+          executor.execute(() -> processOrganizationEventsWithPermit(organizationEvents, failed, permits));
         }
       }
     }
+
+    List<StorageEventDTO> toRetry = events.stream().filter(failed::contains).toList();
     if (!toRetry.isEmpty()) {
-        consumerControlService.stopConsumer();
-        retryLater(toRetry);
-        consumerControlService.startEprelHealthCheck();
-      }
+      eprelPendingEventService.park(toRetry);
+    }
   }
 
-  private void retryLater(List<StorageEventDTO> events) {
+  private void processOrganizationEventsWithPermit(List<StorageEventDTO> organizationEvents, Set<StorageEventDTO> failed, Semaphore permits) {
     try {
-      String json = objectMapper.writeValueAsString(events);
-      Boolean sent = productFileProducer.scheduleMessage(json);
-      if(Boolean.FALSE.equals(sent)){
-        unlockFile(events);
-      }
-    } catch (JsonProcessingException e) {
-      unlockFile(events);
-      log.error("JsonProcessingException: {}", e.getMessage());
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failed.addAll(organizationEvents);
+      return;
+    }
+    try {
+      processOrganizationEvents(organizationEvents, failed);
+    } finally {
+      permits.release();
     }
   }
 
-  private void unlockFile(List<StorageEventDTO> events) {
-    for (StorageEventDTO event : events) {
-      String subject = event.getSubject();
-      EventDetails eventDetails = parseEventSubject(subject);
-      setProductFileStatus(eventDetails.getProductFileId(), String.valueOf(PARTIAL), 0);
+  private void processOrganizationEvents(List<StorageEventDTO> organizationEvents, Set<StorageEventDTO> failed) {
+    for (int i = 0; i < organizationEvents.size(); i++) {
+      try {
+        processEvent(organizationEvents.get(i));
+      } catch (EprelException e) {
+        failed.addAll(organizationEvents.subList(i, organizationEvents.size()));
+        return;
+      } catch (RuntimeException e) {
+        log.error("[PRODUCT_UPLOAD] - Unexpected error processing event {}: {}", organizationEvents.get(i).getSubject(), e.getMessage(), e);
+        productFileAbandonService.abandon(organizationEvents.get(i).getSubject());
+      }
     }
   }
 
+  private static String organizationKey(StorageEventDTO event) {
+    Matcher matcher = event.getSubject() != null ? SUBJECT_PATTERN.matcher(event.getSubject()) : null;
+    return matcher != null && matcher.find() ? matcher.group(1).trim() : "";
+  }
 
   private boolean isValidEvent(StorageEventDTO event) {
     if (event == null || event.getData() == null) {
@@ -202,10 +262,11 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
   }
 
   private void processFileFromStorage(String blobPath, String url, EventDetails eventDetails) throws EprelException{
-    ByteArrayOutputStream downloadedData;
+    InputStream inputStream;
     try {
-        downloadedData = fileStorageClient.download(blobPath);
-        if (downloadedData == null) {
+        inputStream = productIngestMetrics.record(STAGE_DOWNLOAD, eventDetails.getCategory(),
+          () -> fileStorageClient.openInputStream(blobPath));
+        if (inputStream == null) {
           log.warn("[PRODUCT_UPLOAD] - File not found or download failed for path: {} (from URL: {})", blobPath, url);
           setProductFileStatus(eventDetails.getProductFileId(), String.valueOf(PARTIAL), 0);
           return;
@@ -215,74 +276,197 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
       setProductFileStatus(eventDetails.getProductFileId(), String.valueOf(PARTIAL), 0);
       return;
     }
-    log.info("[PRODUCT_UPLOAD] - File downloaded successfully from path: {}", blobPath);
-    processCsvFromStorage(downloadedData, eventDetails.getProductFileId(), eventDetails.getCategory(), eventDetails.getOrgId(), eventDetails.getOrganizationName());
+    log.info("[PRODUCT_UPLOAD] - File stream opened successfully on path: {}", blobPath);
+    processCsvFromStorage(inputStream, eventDetails.getProductFileId(), eventDetails.getCategory(), eventDetails.getOrgId(), eventDetails.getOrganizationName());
     }
 
-  public void processCsvFromStorage(ByteArrayOutputStream byteArrayOutputStream,
+  /**
+   * Parses the file while reading it and validates and saves its records {@code processingChunkSize} at a time,
+   * so only the current chunk and the invalid records are kept in memory.
+   * The progress is checkpointed after each chunk: when a previous attempt was interrupted, for instance by an
+   * EPREL error, the records it already saved are skipped and its invalid records are restored. The checkpoint is
+   * kept only for the files parked until EPREL is available again, and removed however else the ingestion ends.
+   */
+  public void processCsvFromStorage(InputStream inputStream,
                                     String fileId,
                                     String category,
                                     String orgId,
                                     String organizationName) {
 
-    try {
-      boolean isCookingHob = COOKINGHOBS.equalsIgnoreCase(category);
-      setProductFileStatus(fileId, String.valueOf(IN_PROCESS), 0);
-      List<String> headers = CsvUtils.readHeader(byteArrayOutputStream);
-      List<CSVRecord> records = CsvUtils.readCsvRecords(byteArrayOutputStream);
+    setProductFileStatus(fileId, String.valueOf(IN_PROCESS), 0);
+    // Time spent reading and parsing the records of each chunk, blob reads included since the file is streamed
+    long readStartTime = System.nanoTime();
+    boolean eprelPending = false;
+    try (InputStream csvStream = inputStream;
+         CSVParser parser = CsvUtils.openCsvParser(csvStream)) {
+      List<String> headers = parser.getHeaderNames();
       log.info("[PRODUCT_UPLOAD] - Valid CSV headers: {}", headers);
-      ProductValidationResult validationResult;
-      if (isCookingHob) {
-        validationResult = cookinghobsValidatorService.validateRecords(records, orgId, fileId,headers,organizationName);
-      } else {
-        validationResult = eprelProductValidator.validateRecords(records, EPREL_FIELDS, category, orgId, fileId, headers,organizationName);
+      FileIngestion ingestion = new FileIngestion(fileId, category, orgId, organizationName, headers);
+      restoreCheckpoint(ingestion);
+      long recordIndex = 0;
+      List<CSVRecord> chunk = new ArrayList<>(processingChunkSize);
+      for (CSVRecord csvRecord : parser) {
+        if (++recordIndex <= ingestion.processedRecords) {
+          continue;
+        }
+        chunk.add(csvRecord);
+        if (chunk.size() >= processingChunkSize) {
+          productIngestMetrics.record(STAGE_PARSE, category, OUTCOME_SUCCESS, System.nanoTime() - readStartTime);
+          processChunk(chunk, ingestion);
+          saveCheckpoint(ingestion);
+          chunk = new ArrayList<>(processingChunkSize);
+          readStartTime = System.nanoTime();
+        }
       }
-      processResult(validationResult.getValidRecords().values().stream().toList(), validationResult.getInvalidRecords(), validationResult.getErrorMessages(), fileId, headers, category);
-    } catch (IOException e) {
+      productIngestMetrics.record(STAGE_PARSE, category, OUTCOME_SUCCESS, System.nanoTime() - readStartTime);
+      if (!chunk.isEmpty()) {
+        processChunk(chunk, ingestion);
+      }
+      processResult(ingestion.savedProducts, ingestion.invalidRecords, ingestion.errorMessages, fileId, headers, category);
+    } catch (IOException | UncheckedIOException e) {
+      productIngestMetrics.record(STAGE_PARSE, category, OUTCOME_ERROR, System.nanoTime() - readStartTime);
       log.error("[UPLOAD_PRODUCT_FILE] - Error while reading CSV", e);
       setProductFileStatus(fileId, String.valueOf(PARTIAL), 0);
+    } catch (EprelException e) {
+      eprelPending = true;
+      throw e;
+    } finally {
+      if (!eprelPending) {
+        deleteCheckpoint(fileId);
+      }
+    }
+  }
+
+  private void processChunk(List<CSVRecord> chunk, FileIngestion ingestion) {
+    ProductValidationResult validationResult;
+    if (COOKINGHOBS.equalsIgnoreCase(ingestion.category)) {
+      validationResult = cookinghobsValidatorService.validateRecords(chunk, ingestion.orgId, ingestion.fileId, ingestion.headers, ingestion.organizationName);
+    } else {
+      validationResult = eprelProductValidator.validateRecords(chunk, EPREL_FIELDS, ingestion.category, ingestion.orgId, ingestion.fileId, ingestion.headers, ingestion.organizationName);
+    }
+    ingestion.invalidRecords.addAll(validationResult.getInvalidRecords());
+    ingestion.errorMessages.putAll(validationResult.getErrorMessages());
+    ingestion.processedRecords += chunk.size();
+    productIngestMetrics.countRecords(ingestion.category, OUTCOME_INVALID, validationResult.getInvalidRecords().size());
+
+    Map<String, Product> validRecords = validationResult.getValidRecords();
+    if (validRecords.isEmpty()) {
+      return;
     }
+    markDuplicatesOfPreviousChunks(validRecords.keySet(), ingestion);
+    productIngestMetrics.record(STAGE_SAVE, ingestion.category,
+      () -> mongoBulkUpserter.upsertAll(validRecords.values().stream().toList(), Product.class, Product::getGtinCode));
+    productIngestMetrics.countRecords(ingestion.category, OUTCOME_VALID, validRecords.size());
+    ingestion.savedGtins.addAll(validRecords.keySet());
+    ingestion.savedProducts += validRecords.size();
+    log.info("[PRODUCT_UPLOAD] - Saved {} valid products for file {}", validRecords.size(), ingestion.fileId);
   }
 
-  private void processResult(List<Product> validProduct, List<CSVRecord> errors, Map<CSVRecord, String> messages, String productFileId, List<String> headers, String category) {
-    if (!validProduct.isEmpty()) {
-      List<Product> savedProduct = productRepository.saveAll(validProduct);
-      log.info("[PRODUCT_UPLOAD] - Saved {} valid products for file {}", savedProduct.size(), productFileId);
+  private void restoreCheckpoint(FileIngestion ingestion) throws IOException {
+    Optional<ProductFileCheckpoint> checkpoint;
+    try {
+      checkpoint = productFileCheckpointRepository.findById(ingestion.fileId);
+    } catch (RuntimeException e) {
+      log.warn("[PRODUCT_UPLOAD] - Unable to read checkpoint of file {}, processing it from the start: {}", ingestion.fileId, e.getMessage());
+      return;
+    }
+    if (checkpoint.isEmpty()) {
+      return;
+    }
+
+    ProductFileCheckpoint saved = checkpoint.get();
+    ingestion.processedRecords = saved.getProcessedRecords();
+    ingestion.savedProducts = saved.getSavedProducts();
+    if (saved.getSavedGtins() != null) {
+      ingestion.savedGtins.addAll(saved.getSavedGtins());
+    }
+    if (saved.getInvalidRecords() != null) {
+      for (ProductFileCheckpoint.InvalidRecord invalidRecord : saved.getInvalidRecords()) {
+        CSVRecord csvRecord = CsvUtils.toCsvRecord(ingestion.headers, invalidRecord.getValues());
+        addError(csvRecord, invalidRecord.getErrorMessage(), ingestion.invalidRecords, ingestion.errorMessages);
+      }
+    }
+    log.info("[PRODUCT_UPLOAD] - Resuming file {} after {} already processed records", ingestion.fileId, ingestion.processedRecords);
+  }
+
+  private void saveCheckpoint(FileIngestion ingestion) {
+    ProductFileCheckpoint checkpoint = ProductFileCheckpoint.builder()
+      .id(ingestion.fileId)
+      .processedRecords(ingestion.processedRecords)
+      .savedProducts(ingestion.savedProducts)
+      .savedGtins(new HashSet<>(ingestion.savedGtins))
+      .invalidRecords(ingestion.invalidRecords.stream()
+        .map(csvRecord -> new ProductFileCheckpoint.InvalidRecord(List.of(csvRecord.values()), ingestion.errorMessages.get(csvRecord)))
+        .toList())
+      .updatedAt(LocalDateTime.now())
+      .build();
+    try {
+      productFileCheckpointRepository.save(checkpoint);
+    } catch (RuntimeException e) {
+      log.warn("[PRODUCT_UPLOAD] - Unable to save checkpoint of file {}: {}", ingestion.fileId, e.getMessage());
+    }
+  }
+
+  private void deleteCheckpoint(String fileId) {
+    try {
+      productFileCheckpointRepository.deleteById(fileId);
+    } catch (RuntimeException e) {
+      log.warn("[PRODUCT_UPLOAD] - Unable to delete checkpoint of file {}: {}", fileId, e.getMessage());
+    }
+  }
+
+  /**
+   * Within a chunk the validators keep only the last row of a duplicated GTIN; a row duplicating one saved with a
+   * previous chunk overwrites it, so the saved one is reported as duplicated as the validators would have done.
+   */
+  private void markDuplicatesOfPreviousChunks(Set<String> gtinCodes, FileIngestion ingestion) {
+    for (String gtinCode : gtinCodes) {
+      if (ingestion.savedGtins.contains(gtinCode)) {
+        productRepository.findById(gtinCode).ifPresent(previous -> {
+          CSVRecord duplicateRow = mapProductToCsvRow(previous, ingestion.category, ingestion.headers);
+          addError(duplicateRow, DUPLICATE_GTIN_EAN, ingestion.invalidRecords, ingestion.errorMessages);
+        });
+        ingestion.savedProducts--;
+        log.warn("[PRODUCT_UPLOAD] - Duplicate GTIN {} across chunks of file {}", gtinCode, ingestion.fileId);
+      }
+    }
+  }
+
+  private void processResult(int savedProducts, List<CSVRecord> errors, Map<CSVRecord, String> messages, String productFileId, List<String> headers, String category) {
+    String fileName = CATEGORIES_TO_IT_P.get(category) + "_" + productFileId + CSV;
+    if (savedProducts > 0) {
       if (!errors.isEmpty()) {
-        processErrorRecords(errors, messages, productFileId, headers);
-        String userEmail = setProductFileStatus(productFileId, String.valueOf(PARTIAL), validProduct.size());
+        processErrorRecords(errors, messages, productFileId, headers, category);
+        String userEmail = setProductFileStatus(productFileId, String.valueOf(PARTIAL), savedProducts);
         log.info("[PRODUCT_UPLOAD] - File {} processed with {} errors", productFileId, errors.size());
-        notificationService.sendEmailPartial(CATEGORIES_TO_IT_P.get(category) + "_" + productFileId + CSV, userEmail);
+        productIngestMetrics.record(STAGE_NOTIFICATION, category,
+          () -> notificationOutboxService.enqueueUploadPartial(productFileId, fileName, userEmail));
       } else {
-        String userEmail = setProductFileStatus(productFileId, String.valueOf(LOADED), savedProduct.size());
+        String userEmail = setProductFileStatus(productFileId, String.valueOf(LOADED), savedProducts);
         log.info("[PRODUCT_UPLOAD] - File {} processed successfully with no errors", productFileId);
-        notificationService.sendEmailOk(CATEGORIES_TO_IT_P.get(category)  + "_" + productFileId + CSV, userEmail);
+        productIngestMetrics.record(STAGE_NOTIFICATION, category,
+          () -> notificationOutboxService.enqueueUploadOk(productFileId, fileName, userEmail));
       }
     } else if (!errors.isEmpty()) {
-      processErrorRecords(errors, messages, productFileId, headers);
+      processErrorRecords(errors, messages, productFileId, headers, category);
       String userEmail = setProductFileStatus(productFileId, String.valueOf(PARTIAL), 0);
       log.info("[PRODUCT_UPLOAD] - File {} processed with {} errors", productFileId, errors.size());
-      notificationService.sendEmailPartial(CATEGORIES_TO_IT_P.get(category)  + "_" + productFileId + CSV, userEmail);
+      productIngestMetrics.record(STAGE_NOTIFICATION, category,
+        () -> notificationOutboxService.enqueueUploadPartial(productFileId, fileName, userEmail));
     }
   }
 
-  @SuppressWarnings("java:S5443") //The system used will be Linux so never create a file without specified permissions
-  private void processErrorRecords(List<CSVRecord> errors, Map<CSVRecord, String> messages, String productFileId, List<String> headers) {
+  private void processErrorRecords(List<CSVRecord> errors, Map<CSVRecord, String> messages, String productFileId, List<String> headers, String category) {
+    long startTime = System.nanoTime();
     try {
-      Path tempFilePath;
-      if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
-        Set<PosixFilePermission> perms = PosixFilePermissions.fromString("rw-------");
-        FileAttribute<Set<PosixFilePermission>> attr = PosixFilePermissions.asFileAttribute(perms);
-        tempFilePath = Files.createTempFile("errors-", CSV, attr);
-      } else {
-        tempFilePath = Files.createTempFile("errors-", CSV);
-      }
-      CsvUtils.writeCsvWithErrors(errors, headers, messages,  tempFilePath);
       String destination = REPORT_PARTIAL_ERROR + productFileId + CSV;
-      fileStorageClient.upload(Files.newInputStream(tempFilePath), destination, "text/csv");
-      Files.deleteIfExists(tempFilePath);
+      // staged block by block and committed only once complete, so a failure never leaves a truncated report
+      fileStorageClient.upload(report -> CsvUtils.writeCsvWithErrors(errors, headers, messages, report),
+        destination, "text/csv");
+      productIngestMetrics.record(STAGE_REPORT_UPLOAD, category, OUTCOME_SUCCESS, System.nanoTime() - startTime);
       log.info("[PRODUCT_UPLOAD] - Error file uploaded to {}", destination);
     } catch (Exception e) {
+      productIngestMetrics.record(STAGE_REPORT_UPLOAD, category, OUTCOME_ERROR, System.nanoTime() - startTime);
       log.error("[UPLOAD_PRODUCT_FILE] - Generic Error ", e);
     }
   }
@@ -303,4 +487,25 @@ public class ProductFileConsumerService extends BaseKafkaConsumer<List<StorageEv
     }
   }
 
+  private static final class FileIngestion {
+    private final String fileId;
+    private final String category;
+    private final String orgId;
+    private final String organizationName;
+    private final List<String> headers;
+    private final Set<String> savedGtins = new HashSet<>();
+    private final List<CSVRecord> invalidRecords = new ArrayList<>();
+    private final Map<CSVRecord, String> errorMessages = new HashMap<>();
+    private long processedRecords;
+    private int savedProducts;
+
+    private FileIngestion(String fileId, String category, String orgId, String organizationName, List<String> headers) {
+      this.fileId = fileId;
+      this.category = category;
+      this.orgId = orgId;
+      this.organizationName = organizationName;
+      this.headers = headers;
+    }
+  }
+
 }
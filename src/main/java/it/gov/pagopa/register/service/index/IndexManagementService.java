@@ -0,0 +1,149 @@
+package it.gov.pagopa.register.service.index;
+
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry;
+import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.model.operation.ProductFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static it.gov.pagopa.register.constants.AggregationConstants.*;
+
+/**
+ * Indexes of the collections, declared after the shape of the repository queries (equality fields first, then the
+ * sort, then the range fields). Automatic index creation is disabled, so they are ensured at startup and on demand
+ * through the admin endpoint. Creating an index that already exists is a no-op.
+ */
+@Slf4j
+@Service
+public class IndexManagementService {
+
+  public record IndexDeclaration(String collection, Index index) {}
+
+  static final String PRODUCT_FILE_COLLECTION_NAME = "product_file";
+  static final String EPREL_CACHE_COLLECTION_NAME = "eprel_cache";
+  static final String NOTIFICATION_OUTBOX_COLLECTION_NAME = "notification_outbox";
+
+  /**
+   * Cosmos DB expires documents only through a TTL index on {@code _ts}, the time of their last write, and lets each
+   * document override the default with its {@code ttl} field. The default applies to the documents without one.
+   */
+  static final String COSMOS_TIMESTAMP = "_ts";
+  static final Duration DEFAULT_TTL = Duration.ofDays(7);
+
+  public static final List<IndexDeclaration> DECLARED_INDEXES = declaredIndexes();
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean ensureOnStartup;
+
+  public IndexManagementService(MongoTemplate mongoTemplate,
+                                @Value("${mongo-indexes.ensure-on-startup:true}") boolean ensureOnStartup) {
+    this.mongoTemplate = mongoTemplate;
+    this.ensureOnStartup = ensureOnStartup;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (ensureOnStartup) {
+      ensureIndexes();
+    }
+  }
+
+  /** Ensures every declared index, going on with the others when one cannot be created */
+  public List<String> ensureIndexes() {
+    List<String> ensured = new ArrayList<>();
+    for (IndexDeclaration declaration : DECLARED_INDEXES) {
+      try {
+        ensured.add(declaration.collection() + "." + mongoTemplate.indexOps(declaration.collection()).createIndex(declaration.index()));
+      } catch (RuntimeException e) {
+        log.error("[MONGO_INDEXES] - Unable to ensure index {} on {}: {}",
+          declaration.index().getIndexKeys().toJson(), declaration.collection(), e.getMessage());
+      }
+    }
+    log.info("[MONGO_INDEXES] - Ensured {} of {} declared indexes", ensured.size(), DECLARED_INDEXES.size());
+    return ensured;
+  }
+
+  private static List<IndexDeclaration> declaredIndexes() {
+    List<IndexDeclaration> indexes = new ArrayList<>();
+
+    // Product list: default sort per organization and status views of Invitalia
+    indexes.add(product(new Index()
+      .on(FIELD_ORGANIZATION_ID, Sort.Direction.ASC)
+      .on(Product.Fields.registrationDate, Sort.Direction.DESC)
+      .on(FIELD_ID, Sort.Direction.DESC)));
+    indexes.add(product(new Index()
+      .on(FIELD_STATUS, Sort.Direction.ASC)
+      .on(Product.Fields.registrationDate, Sort.Direction.DESC)
+      .on(FIELD_ID, Sort.Direction.DESC)));
+    indexes.add(product(new Index()
+      .on(FIELD_ORGANIZATION_ID, Sort.Direction.ASC)
+      .on(FIELD_STATUS, Sort.Direction.ASC)));
+    indexes.add(product(new Index()
+      .on(FIELD_ORGANIZATION_ID, Sort.Direction.ASC)
+      .on(FIELD_CATEGORY, Sort.Direction.ASC)));
+    // Batch filter and distinct batches of an organization
+    indexes.add(product(new Index()
+      .on(FIELD_ORGANIZATION_ID, Sort.Direction.ASC)
+      .on(FIELD_PRODUCT_FILE_ID, Sort.Direction.ASC)
+      .on(FIELD_CATEGORY, Sort.Direction.ASC)));
+    indexes.add(product(new Index()
+      .on(FIELD_PRODUCT_FILE_ID, Sort.Direction.ASC)));
+    // Text filters, see ProductSearchTokens
+    indexes.add(product(new Index()
+      .on(Product.Fields.searchTokens, Sort.Direction.ASC)));
+    // Sort keys of the product list, see ProductSortKeys, with the _id tie-breaker
+    for (List<String> keys : List.of(
+      List.of(Product.Fields.registrationDate),
+      List.of(FIELD_ENERGY_RANK),
+      List.of(FIELD_CATEGORY_IT),
+      List.of(FIELD_CATEGORY_IT, FIELD_PRODUCT_FILE_ID),
+      List.of(FIELD_ID + LOWER_SUFFIX),
+      List.of(Product.Fields.organizationName + LOWER_SUFFIX),
+      List.of(Product.Fields.productName + LOWER_SUFFIX),
+      List.of(Product.Fields.fullProductName + LOWER_SUFFIX),
+      List.of(Product.Fields.brand + LOWER_SUFFIX),
+      List.of(Product.Fields.model + LOWER_SUFFIX))) {
+      Index index = new Index();
+      keys.forEach(key -> index.on(key, Sort.Direction.ASC));
+      indexes.add(product(index.on(FIELD_ID, Sort.Direction.ASC)));
+    }
+
+    // existsByOrganizationIdAndUploadStatusIn
+    indexes.add(new IndexDeclaration(PRODUCT_FILE_COLLECTION_NAME, new Index()
+      .on(ProductFile.Fields.organizationId, Sort.Direction.ASC)
+      .on(ProductFile.Fields.uploadStatus, Sort.Direction.ASC)));
+    // findByOrganizationIdAndUploadStatusNot sorted by dateUpload: the status is a range, so it comes after the sort
+    indexes.add(new IndexDeclaration(PRODUCT_FILE_COLLECTION_NAME, new Index()
+      .on(ProductFile.Fields.organizationId, Sort.Direction.ASC)
+      .on(ProductFile.Fields.dateUpload, Sort.Direction.DESC)
+      .on(ProductFile.Fields.uploadStatus, Sort.Direction.ASC)));
+
+    // EPREL responses are removed once their ttl has elapsed
+    indexes.add(new IndexDeclaration(EPREL_CACHE_COLLECTION_NAME, new Index()
+      .on(COSMOS_TIMESTAMP, Sort.Direction.ASC)
+      .expire(DEFAULT_TTL)));
+
+    // Claim of the due notifications, and removal of the sent and failed ones
+    indexes.add(new IndexDeclaration(NOTIFICATION_OUTBOX_COLLECTION_NAME, new Index()
+      .on(NotificationOutboxEntry.Fields.state, Sort.Direction.ASC)
+      .on(NotificationOutboxEntry.Fields.nextAttemptAt, Sort.Direction.ASC)));
+    indexes.add(new IndexDeclaration(NOTIFICATION_OUTBOX_COLLECTION_NAME, new Index()
+      .on(COSMOS_TIMESTAMP, Sort.Direction.ASC)
+      .expire(DEFAULT_TTL)));
+    return List.copyOf(indexes);
+  }
+
+  private static IndexDeclaration product(Index index) {
+    return new IndexDeclaration(PRODUCT_COLLECTION_NAME, index);
+  }
+}
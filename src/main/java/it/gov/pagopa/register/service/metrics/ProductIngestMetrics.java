@@ -0,0 +1,83 @@
+package it.gov.pagopa.register.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CATEGORIES_TO_IT_S;
+
+/**
+ * Timers of the stages of the product file ingestion, published as {@code product.ingest.stage} tagged by stage,
+ * category and outcome, and counters of the ingested rows, published as {@code product.ingest.records}. The lookups
+ * are batched per chunk, so their timers measure a chunk rather than a single row.
+ */
+@Component
+public class ProductIngestMetrics {
+
+  public static final String STAGE_TIMER = "product.ingest.stage";
+  public static final String RECORDS_COUNTER = "product.ingest.records";
+
+  public static final String STAGE_DOWNLOAD = "download";
+  public static final String STAGE_PARSE = "parse";
+  public static final String STAGE_DB_LOOKUP = "db_lookup";
+  public static final String STAGE_EPREL_LOOKUP = "eprel_lookup";
+  public static final String STAGE_MAPPING = "mapping";
+  public static final String STAGE_SAVE = "save";
+  public static final String STAGE_REPORT_UPLOAD = "report_upload";
+  public static final String STAGE_NOTIFICATION = "notification";
+
+  public static final String OUTCOME_SUCCESS = "success";
+  public static final String OUTCOME_ERROR = "error";
+  public static final String OUTCOME_VALID = "valid";
+  public static final String OUTCOME_INVALID = "invalid";
+
+  private final MeterRegistry meterRegistry;
+
+  public ProductIngestMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /** Times the given stage, with an error outcome when it throws */
+  public <T> T record(String stage, String category, Supplier<T> action) {
+    long startTime = System.nanoTime();
+    String outcome = OUTCOME_ERROR;
+    try {
+      T result = action.get();
+      outcome = OUTCOME_SUCCESS;
+      return result;
+    } finally {
+      record(stage, category, outcome, System.nanoTime() - startTime);
+    }
+  }
+
+  public void record(String stage, String category, Runnable action) {
+    record(stage, category, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /** Records a stage timed by the caller, for instance summed over the rows of a chunk */
+  public void record(String stage, String category, String outcome, long elapsedNanos) {
+    timer(stage, category, outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void countRecords(String category, String outcome, int count) {
+    if (count > 0) {
+      meterRegistry.counter(RECORDS_COUNTER, "category", tag(category), "outcome", outcome).increment(count);
+    }
+  }
+
+  private Timer timer(String stage, String category, String outcome) {
+    return meterRegistry.timer(STAGE_TIMER, "stage", stage, "category", tag(category), "outcome", outcome);
+  }
+
+  /** Unknown categories are grouped, so a malformed event cannot grow the number of series */
+  private static String tag(String category) {
+    String code = category == null ? null : category.toUpperCase();
+    return code != null && CATEGORIES_TO_IT_S.containsKey(code) ? code : "other";
+  }
+}
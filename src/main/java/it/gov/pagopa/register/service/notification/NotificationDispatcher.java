@@ -0,0 +1,112 @@
+package it.gov.pagopa.register.service.notification;
+
+import it.gov.pagopa.register.connector.notification.NotificationService;
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the notification outbox: every poll it claims the due entries and sends them, at most {@code workers}
+ * at a time, so the email service latency is paid neither by the HTTP requests nor by the Kafka consumers.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+  private final NotificationOutboxService notificationOutboxService;
+  private final NotificationService notificationService;
+  private final boolean enabled;
+  private final Duration pollInterval;
+  private final Semaphore permits;
+  private final ScheduledExecutorService poller =
+    Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("notification-outbox-poller").factory());
+  private final ExecutorService senders =
+    Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-outbox-sender-", 0).factory());
+
+  public NotificationDispatcher(NotificationOutboxService notificationOutboxService,
+                                NotificationService notificationService,
+                                @Value("${notification-outbox.enabled:true}") boolean enabled,
+                                @Value("${notification-outbox.poll-interval:PT2S}") Duration pollInterval,
+                                @Value("${notification-outbox.workers:4}") int workers) {
+    this.notificationOutboxService = notificationOutboxService;
+    this.notificationService = notificationService;
+    this.enabled = enabled;
+    this.pollInterval = pollInterval;
+    this.permits = new Semaphore(Math.max(1, workers));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (enabled) {
+      long intervalMillis = pollInterval.toMillis();
+      poller.scheduleWithFixedDelay(this::drain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Sends the due entries until the outbox has none left, waiting for a free worker before claiming each one */
+  void drain() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        permits.acquire();
+        NotificationOutboxEntry entry;
+        try {
+          entry = notificationOutboxService.claimNext();
+        } catch (RuntimeException e) {
+          permits.release();
+          throw e;
+        }
+        if (entry == null) {
+          permits.release();
+          return;
+        }
+        senders.execute(() -> {
+          try {
+            send(entry);
+          } finally {
+            permits.release();
+          }
+        });
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.error("[NOTIFICATION_OUTBOX] - Unable to read the notification outbox: {}", e.getMessage());
+    }
+  }
+
+  void send(NotificationOutboxEntry entry) {
+    try {
+      switch (entry.getType()) {
+        case UPLOAD_OK -> notificationService.sendEmailOk(entry.getFileName(), entry.getRecipientEmail());
+        case UPLOAD_PARTIAL -> notificationService.sendEmailPartial(entry.getFileName(), entry.getRecipientEmail());
+        case UPDATE_STATUS -> notificationService.sendEmailUpdateStatus(entry.getProducts(), entry.getFormalMotivation(),
+          entry.getStatus(), entry.getRecipientEmail());
+      }
+      notificationOutboxService.markSent(entry);
+      log.info("[NOTIFICATION_OUTBOX] - Sent {} email {}", entry.getType(), entry.getId());
+    } catch (RuntimeException e) {
+      log.warn("[NOTIFICATION_OUTBOX] - Unable to send {} email {}: {}", entry.getType(), entry.getId(), e.getMessage());
+      notificationOutboxService.markFailed(entry, e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    poller.shutdownNow();
+    senders.shutdown();
+    if (!senders.awaitTermination(10, TimeUnit.SECONDS)) {
+      senders.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package it.gov.pagopa.register.service.notification;
+
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry;
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry.Fields;
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry.State;
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry.Type;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+
+/**
+ * Outbox of the emails to send: callers enqueue them right after the change they notify, and
+ * {@link NotificationDispatcher} sends them in background, retrying with exponential backoff.
+ */
+@Slf4j
+@Service
+public class NotificationOutboxService {
+
+  private final MongoTemplate mongoTemplate;
+  private final Duration lease;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final int maxAttempts;
+  private final Duration retention;
+  private final Clock clock;
+
+  @Autowired
+  public NotificationOutboxService(MongoTemplate mongoTemplate,
+                                   @Value("${notification-outbox.lease:PT2M}") Duration lease,
+                                   @Value("${notification-outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                                   @Value("${notification-outbox.max-backoff:PT30M}") Duration maxBackoff,
+                                   @Value("${notification-outbox.max-attempts:8}") int maxAttempts,
+                                   @Value("${notification-outbox.retention:P7D}") Duration retention) {
+    this(mongoTemplate, lease, initialBackoff, maxBackoff, maxAttempts, retention, Clock.systemUTC());
+  }
+
+  NotificationOutboxService(MongoTemplate mongoTemplate, Duration lease, Duration initialBackoff, Duration maxBackoff,
+                            int maxAttempts, Duration retention, Clock clock) {
+    this.mongoTemplate = mongoTemplate;
+    this.lease = lease;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retention = retention;
+    this.clock = clock;
+  }
+
+  public void enqueueUploadOk(String productFileId, String fileName, String recipientEmail) {
+    enqueue(NotificationOutboxEntry.builder()
+      .id(Type.UPLOAD_OK + ":" + productFileId)
+      .type(Type.UPLOAD_OK)
+      .fileName(fileName)
+      .recipientEmail(recipientEmail));
+  }
+
+  public void enqueueUploadPartial(String productFileId, String fileName, String recipientEmail) {
+    enqueue(NotificationOutboxEntry.builder()
+      .id(Type.UPLOAD_PARTIAL + ":" + productFileId)
+      .type(Type.UPLOAD_PARTIAL)
+      .fileName(fileName)
+      .recipientEmail(recipientEmail));
+  }
+
+  public void enqueueUpdateStatus(String transitionId, List<String> products, String formalMotivation, String status,
+                                  String recipientEmail) {
+    enqueue(NotificationOutboxEntry.builder()
+      .id(Type.UPDATE_STATUS + ":" + transitionId + ":" + recipientEmail)
+      .type(Type.UPDATE_STATUS)
+      .products(products)
+      .formalMotivation(formalMotivation)
+      .status(status)
+      .recipientEmail(recipientEmail));
+  }
+
+  private void enqueue(NotificationOutboxEntry.NotificationOutboxEntryBuilder builder) {
+    Instant now = Instant.now(clock);
+    NotificationOutboxEntry entry = builder
+      .state(State.PENDING)
+      .nextAttemptAt(now)
+      .createdAt(now)
+      .ttl(NotificationOutboxEntry.NEVER_EXPIRES)
+      .build();
+    try {
+      mongoTemplate.insert(entry);
+      log.info("[NOTIFICATION_OUTBOX] - Enqueued {} email {}", entry.getType(), entry.getId());
+    } catch (DuplicateKeyException e) {
+      log.info("[NOTIFICATION_OUTBOX] - Email {} already enqueued", entry.getId());
+    }
+  }
+
+  /**
+   * Claims the next entry due for sending, leasing it so that no other instance sends it meanwhile. An entry whose
+   * sender died is claimed again once its lease expires.
+   */
+  public NotificationOutboxEntry claimNext() {
+    Instant now = Instant.now(clock);
+    Query query = Query.query(Criteria.where(Fields.state).in(State.PENDING, State.SENDING)
+        .and(Fields.nextAttemptAt).lte(now))
+      .with(Sort.by(Fields.nextAttemptAt));
+    Update update = new Update()
+      .set(Fields.state, State.SENDING)
+      .set(Fields.nextAttemptAt, now.plus(lease));
+    return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+      NotificationOutboxEntry.class);
+  }
+
+  public void markSent(NotificationOutboxEntry entry) {
+    updateLeased(entry, new Update()
+      .set(Fields.state, State.SENT)
+      .inc(Fields.attempts, 1)
+      .unset(Fields.lastError)
+      .set(Fields.ttl, (int) retention.toSeconds()));
+  }
+
+  /** Schedules a new attempt with exponential backoff, or gives up after the maximum number of attempts */
+  public void markFailed(NotificationOutboxEntry entry, String error) {
+    int attempts = entry.getAttempts() + 1;
+    Instant now = Instant.now(clock);
+    Update update = new Update()
+      .set(Fields.attempts, attempts)
+      .set(Fields.lastError, error);
+    if (attempts >= maxAttempts) {
+      log.error("[NOTIFICATION_OUTBOX] - Giving up {} email {} after {} attempts: {}", entry.getType(), entry.getId(), attempts, error);
+      update.set(Fields.state, State.FAILED).set(Fields.ttl, (int) retention.toSeconds());
+    } else {
+      update.set(Fields.state, State.PENDING).set(Fields.nextAttemptAt, now.plus(backoff(attempts)));
+    }
+    updateLeased(entry, update);
+  }
+
+  /**
+   * Updates the entry only while it still holds the lease returned by {@link #claimNext()}: once the lease expired,
+   * another instance may have claimed the entry again, and its outcome must not be overwritten
+   */
+  private void updateLeased(NotificationOutboxEntry entry, Update update) {
+    Query leased = Query.query(Criteria.where(Fields.id).is(entry.getId())
+      .and(Fields.state).is(State.SENDING)
+      .and(Fields.nextAttemptAt).is(entry.getNextAttemptAt()));
+    if (mongoTemplate.updateFirst(leased, update, NotificationOutboxEntry.class).getMatchedCount() == 0) {
+      log.warn("[NOTIFICATION_OUTBOX] - Lease on {} email {} expired, outcome not recorded", entry.getType(), entry.getId());
+    }
+  }
+
+  Duration backoff(int attempts) {
+    Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+}
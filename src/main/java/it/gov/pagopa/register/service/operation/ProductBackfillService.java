@@ -0,0 +1,91 @@
+package it.gov.pagopa.register.service.operation;
+
+import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.utils.ProductSearchTokens;
+import it.gov.pagopa.register.utils.ProductSortKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static it.gov.pagopa.register.constants.AggregationConstants.*;
+
+/**
+ * Writes the search tokens and the sort keys of the products saved before they were introduced, a batch at a time,
+ * so the product list filters and sorts them. New products get them when mapped from the file.
+ */
+@Slf4j
+@Service
+public class ProductBackfillService {
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean enabled;
+  private final int batchSize;
+
+  public ProductBackfillService(MongoTemplate mongoTemplate,
+                                @Value("${product-backfill.enabled:true}") boolean enabled,
+                                @Value("${product-backfill.batch-size:500}") int batchSize) {
+    this.mongoTemplate = mongoTemplate;
+    this.enabled = enabled;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (enabled) {
+      Thread.ofVirtual().name("product-backfill").start(this::backfill);
+    }
+  }
+
+  public long backfill() {
+    long updated = 0;
+    try {
+      List<Product> products;
+      do {
+        Query query = Query.query(new Criteria().orOperator(
+          Criteria.where(Product.Fields.searchTokens).exists(false),
+          Criteria.where(FIELD_ENERGY_RANK).exists(false))).limit(batchSize);
+        query.fields().include(Product.Fields.eprelCode, Product.Fields.productName, Product.Fields.fullProductName,
+          Product.Fields.brand, Product.Fields.model, Product.Fields.organizationName, Product.Fields.energyClass,
+          Product.Fields.category);
+        products = mongoTemplate.find(query, Product.class);
+        if (!products.isEmpty()) {
+          BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+          for (Product product : products) {
+            bulkOperations.updateOne(Query.query(Criteria.where(FIELD_ID).is(product.getGtinCode())), backfillUpdate(product));
+          }
+          bulkOperations.execute();
+          updated += products.size();
+        }
+      } while (products.size() == batchSize);
+      if (updated > 0) {
+        log.info("[PRODUCT_BACKFILL] - Search tokens and sort keys written for {} products", updated);
+      }
+    } catch (RuntimeException e) {
+      log.error("[PRODUCT_BACKFILL] - Backfill stopped after {} products: {}", updated, e.getMessage(), e);
+    }
+    return updated;
+  }
+
+  private static Update backfillUpdate(Product product) {
+    ProductSortKeys.apply(product);
+    return new Update()
+      .set(Product.Fields.searchTokens, ProductSearchTokens.of(product))
+      .set(FIELD_ENERGY_RANK, product.getEnergyRank())
+      .set(FIELD_CATEGORY_IT, product.getCategoryIt())
+      .set(FIELD_ID + LOWER_SUFFIX, product.getGtinCodeLower())
+      .set(Product.Fields.organizationName + LOWER_SUFFIX, product.getOrganizationNameLower())
+      .set(Product.Fields.productName + LOWER_SUFFIX, product.getProductNameLower())
+      .set(Product.Fields.fullProductName + LOWER_SUFFIX, product.getFullProductNameLower())
+      .set(Product.Fields.brand + LOWER_SUFFIX, product.getBrandLower())
+      .set(Product.Fields.model + LOWER_SUFFIX, product.getModelLower());
+  }
+}
@@ -0,0 +1,76 @@
+package it.gov.pagopa.register.service.operation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of the product list totals, keyed by the filter criteria, so paging through the same filters
+ * does not count the matching products again on each page. A zero TTL disables it.
+ * <p>
+ * Each instance keeps its own entries and no write invalidates them, so after any product write a total may be stale
+ * on every instance for up to the TTL.
+ */
+@Component
+public class ProductCountCache {
+
+  private record Entry(long count, Instant expireAt) {}
+
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<String, Entry> entries;
+
+  @Autowired
+  public ProductCountCache(@Value("${product-count-cache.ttl:PT30S}") Duration ttl,
+                           @Value("${product-count-cache.max-size:1000}") int maxSize) {
+    this(ttl, maxSize, Clock.systemUTC());
+  }
+
+  ProductCountCache(Duration ttl, int maxSize, Clock clock) {
+    this.ttl = ttl;
+    this.clock = clock;
+    int size = Math.max(1, maxSize);
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > size;
+      }
+    };
+  }
+
+  /** Returns the cached total for the criteria, counting it with the given supplier when missing or expired */
+  public long count(Criteria criteria, LongSupplier counter) {
+    if (ttl.isZero() || ttl.isNegative()) {
+      return counter.getAsLong();
+    }
+    String key = criteria.getCriteriaObject().toJson();
+    Entry entry = get(key);
+    if (entry != null) {
+      return entry.count();
+    }
+    long count = counter.getAsLong();
+    put(key, new Entry(count, Instant.now(clock).plus(ttl)));
+    return count;
+  }
+
+  private synchronized Entry get(String key) {
+    Entry entry = entries.get(key);
+    if (entry != null && !entry.expireAt().isAfter(Instant.now(clock))) {
+      entries.remove(key);
+      return null;
+    }
+    return entry;
+  }
+
+  private synchronized void put(String key, Entry entry) {
+    entries.put(key, entry);
+  }
+}
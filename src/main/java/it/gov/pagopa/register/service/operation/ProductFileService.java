@@ -1,5 +1,7 @@
 package it.gov.pagopa.register.service.operation;
 
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.specialized.BlobInputStream;
 import it.gov.pagopa.register.connector.storage.FileStorageClient;
 import it.gov.pagopa.register.constants.AssetRegisterConstants;
 import it.gov.pagopa.register.dto.operation.*;
@@ -22,17 +24,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.FileAttribute;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Set;
 
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 import static it.gov.pagopa.register.constants.LogConstants.*;
@@ -48,6 +45,7 @@ public class ProductFileService {
   private final ProductRepository productRepository;
   private final FileStorageClient fileStorageClient;
   private final ProductFileValidatorService productFileValidator;
+  private final ProductFileUploadWorker productFileUploadWorker;
 
   public ProductFileResponseDTO getFilesByPage(String organizationId, Pageable pageable) {
     log.info("[GET_FILES_BY_PAGE] - Fetching files for organizationId: {}", organizationId);
@@ -79,18 +77,21 @@ public class ProductFileService {
 
     String filePath = resolveReportPath(productFile);
 
-    ByteArrayOutputStream result = fileStorageClient.download(filePath);
+    BlobInputStream result = fileStorageClient.openBlobInputStream(filePath);
 
     if (result == null) {
       log.error("[DOWNLOAD_REPORT] - Report not found on Azure for path: {}", filePath);
       throw new ReportNotFoundException("Report not found on Azure for path: " + filePath);
     }
 
-    log.info("[DOWNLOAD_REPORT] - Report downloaded successfully for file: {}", productFile.getFileName());
+    BlobProperties properties = result.getProperties();
+    log.info("[DOWNLOAD_REPORT] - Streaming report of {} bytes for file: {}", properties.getBlobSize(), productFile.getFileName());
 
     return FileReportDTO.builder()
-      .data(result.toByteArray())
+      .data(result)
       .filename(FilenameUtils.getBaseName(productFile.getFileName()) + "_errors.csv")
+      .contentLength(properties.getBlobSize())
+      .eTag(properties.getETag())
       .build();
   }
 
@@ -102,7 +103,9 @@ public class ProductFileService {
       return REPORT_PARTIAL_ERROR + id + CSV;
     }
 
-    if (UploadCsvStatus.FORMAL_ERROR.name().equals(status)) {
+    if (UploadCsvStatus.FORMAL_ERROR.name().equals(status)
+      || (UploadCsvStatus.REJECTED.name().equals(status)
+        && AssetRegisterConstants.UploadKeyConstant.REPORT_FORMAL_FILE_ERROR_KEY.equals(productFile.getErrorKey()))) {
       return REPORT_FORMAL_ERROR + id + CSV;
     }
 
@@ -112,6 +115,9 @@ public class ProductFileService {
 
   public ProductFileResult uploadFile(MultipartFile file, String category, String organizationId,
                                       String userId, String userEmail, String organizationName) {
+    if (productFileUploadWorker.isEnabled()) {
+      return acceptFile(file, category, organizationId, userId, userEmail, organizationName);
+    }
     try {
       ProductFileResult result = validateFile(file, category, organizationId, userId, userEmail, organizationName);
 
@@ -125,7 +131,7 @@ public class ProductFileService {
       );
 
       String path = String.format("CSV/%s/%s/%s/%s.csv", organizationId, organizationName, category, productFile.getId());
-      fileStorageClient.upload(file.getInputStream(), path, file.getContentType());
+      fileStorageClient.upload(new ByteArrayInputStream(result.getContent()), path, file.getContentType());
 
       log.info(FILE_PROCESSED_LOG, file.getOriginalFilename());
       return ProductFileResult.ok();
@@ -148,27 +154,24 @@ public class ProductFileService {
       log.info("[PROCESS_FILE] - Processing file: {} for organizationId: {}", originalFileName, organizationId);
 
       ValidationResultDTO validation = productFileValidator.validateFile(file, category);
-      if (validation.isKo()) {
-        log.warn(VALIDATION_FAILED_LOG, originalFileName);
-        return ProductFileResult.ko(validation.getErrorKey());
-      }
-
-      ValidationResultDTO recordValidation = productFileValidator.validateRecords(
-        validation.getRecords(), validation.getHeaders(), category);
-
-      if (recordValidation.isKo()) {
+      if (validation.hasInvalidRecords()) {
         log.warn(VALIDATION_FAILED_LOG, originalFileName);
 
         ProductFile productFile = saveProductFile(category, organizationId, userId, userEmail,
           originalFileName, validation.getRecords(), organizationName);
 
-        uploadFormalErrorFile(file, recordValidation, validation.getHeaders(), productFile);
+        uploadFormalErrorFile(file.getContentType(), validation, validation.getHeaders(), productFile);
 
         log.warn("[PROCESS_FILE] - File processed with formal errors: {}", originalFileName);
         return ProductFileResult.ko(AssetRegisterConstants.UploadKeyConstant.REPORT_FORMAL_FILE_ERROR_KEY, productFile.getId());
       }
 
-      return ProductFileResult.ok(validation.getRecords());
+      if (validation.isKo()) {
+        log.warn(VALIDATION_FAILED_LOG, originalFileName);
+        return ProductFileResult.ko(validation.getErrorKey());
+      }
+
+      return ProductFileResult.ok(validation.getRecords(), validation.getContent());
 
     } catch (Exception e) {
       log.error(GENERIC_ERROR_LOG, file.getOriginalFilename(), e);
@@ -176,32 +179,111 @@ public class ProductFileService {
     }
   }
 
-  private void uploadFormalErrorFile(MultipartFile file, ValidationResultDTO validationRecords,
-                                     List<String> headers, ProductFile productFile) throws IOException {
+  /**
+   * Saves the file in {@code VALIDATING} status, stages its content and leaves the formal validation to the upload
+   * workers, so the request is not held while the file is validated and uploaded to the storage.
+   */
+  private ProductFileResult acceptFile(MultipartFile file, String category, String organizationId,
+                                       String userId, String userEmail, String organizationName) {
+    if (productFileRepository.existsByOrganizationIdAndUploadStatusIn(organizationId, BLOCKING_STATUSES)) {
+      log.warn("[PROCESS_FILE] - Existing file in UPLOADED or IN_PROCESS state for org: {}", organizationId);
+      return ProductFileResult.ko(AssetRegisterConstants.UploadKeyConstant.UPLOAD_ALREADY_IN_PROGRESS);
+    }
 
-    Path tempFilePath = createTempFilePath();
+    Path staged = null;
+    try {
+      staged = productFileUploadWorker.stage(file);
+      ProductFile productFile = productFileRepository.save(ProductFile.builder()
+        .fileName(file.getOriginalFilename())
+        .uploadStatus(UploadCsvStatus.VALIDATING.name())
+        .category(category)
+        .addedProductNumber(NumberUtils.INTEGER_ZERO)
+        .userId(userId)
+        .organizationId(organizationId)
+        .dateUpload(LocalDateTime.now())
+        .userEmail(userEmail)
+        .organizationName(organizationName)
+        .build());
+
+      Path stagedFile = staged;
+      String contentType = file.getContentType();
+      if (!productFileUploadWorker.submit(() -> validateAcceptedFile(productFile, stagedFile, contentType))) {
+        productFileRepository.delete(productFile);
+        Files.deleteIfExists(staged);
+        return ProductFileResult.ko(AssetRegisterConstants.UploadKeyConstant.UPLOAD_QUEUE_FULL);
+      }
 
-    CsvUtils.writeCsvWithErrors(
-      validationRecords.getInvalidRecords(),
-      headers,
-      validationRecords.getErrorMessages(),
-      tempFilePath
-    );
+      log.info("[PROCESS_FILE] - File {} accepted with id {}", file.getOriginalFilename(), productFile.getId());
+      return ProductFileResult.accepted(productFile.getId());
 
-    String destination = REPORT_FORMAL_ERROR + productFile.getId() + CSV;
-    fileStorageClient.upload(Files.newInputStream(tempFilePath), destination, file.getContentType());
+    } catch (Exception e) {
+      log.error(GENERIC_ERROR_LOG, file.getOriginalFilename(), e);
+      deleteStagedFile(staged);
+      return ProductFileResult.ko("GENERIC_ERROR");
+    }
+  }
+
+  /**
+   * Runs on the upload workers. Valid files are uploaded to the storage, which starts their processing, while
+   * rejected files are kept in {@code REJECTED} status with the validation error key, shown by the file listing.
+   */
+  void validateAcceptedFile(ProductFile productFile, Path staged, String contentType) {
+    String fileName = productFile.getFileName();
+    try {
+      ValidationResultDTO validation = productFileValidator.validateFile(fileName, Files.readAllBytes(staged), productFile.getCategory());
+      if (validation.getRecords() != null) {
+        productFile.setFindedProductsNumber(validation.getRecords().size());
+      }
+
+      if (validation.isKo()) {
+        log.warn(VALIDATION_FAILED_LOG, fileName);
+        productFile.setUploadStatus(UploadCsvStatus.REJECTED.name());
+        productFile.setErrorKey(validation.getErrorKey());
+        productFileRepository.save(productFile);
+        if (validation.hasInvalidRecords()) {
+          uploadFormalErrorFile(contentType, validation, validation.getHeaders(), productFile);
+        }
+        return;
+      }
+
+      productFile.setUploadStatus(UploadCsvStatus.UPLOADED.name());
+      productFileRepository.save(productFile);
+      String path = String.format("CSV/%s/%s/%s/%s.csv", productFile.getOrganizationId(),
+        productFile.getOrganizationName(), productFile.getCategory(), productFile.getId());
+      fileStorageClient.upload(new ByteArrayInputStream(validation.getContent()), path, contentType);
+      log.info(FILE_PROCESSED_LOG, fileName);
 
-    Files.deleteIfExists(tempFilePath);
+    } catch (Exception e) {
+      log.error(GENERIC_ERROR_LOG, fileName, e);
+      productFile.setUploadStatus(UploadCsvStatus.REJECTED.name());
+      productFile.setErrorKey("GENERIC_ERROR");
+      productFileRepository.save(productFile);
+    } finally {
+      deleteStagedFile(staged);
+    }
   }
 
-  @SuppressWarnings("java:S5443") //The system used will be Linux so never create a file without specified permissions
-  private Path createTempFilePath() throws IOException {
-    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
-      Set<PosixFilePermission> perms = PosixFilePermissions.fromString("rw-------");
-      FileAttribute<Set<PosixFilePermission>> attr = PosixFilePermissions.asFileAttribute(perms);
-      return Files.createTempFile("errors-", ".csv", attr);
+  private static void deleteStagedFile(Path staged) {
+    if (staged == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(staged);
+    } catch (IOException e) {
+      log.warn("[PROCESS_FILE] - Unable to delete staged file {}: {}", staged, e.getMessage());
     }
-    return Files.createTempFile("errors-", ".csv");
+  }
+
+  private void uploadFormalErrorFile(String contentType, ValidationResultDTO validationRecords,
+                                     List<String> headers, ProductFile productFile) throws IOException {
+    String destination = REPORT_FORMAL_ERROR + productFile.getId() + CSV;
+    // staged block by block and committed only once complete, so a failure never leaves a truncated report
+    fileStorageClient.upload(report -> CsvUtils.writeCsvWithErrors(
+      validationRecords.getInvalidRecords(),
+      headers,
+      validationRecords.getErrorMessages(),
+      report
+    ), destination, contentType);
   }
 
   private ProductFile saveProductFile(String category, String organizationId, String userId, String userEmail,
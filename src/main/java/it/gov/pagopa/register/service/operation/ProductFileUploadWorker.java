@@ -0,0 +1,76 @@
+package it.gov.pagopa.register.service.operation;
+
+import it.gov.pagopa.register.configuration.ProductFileUploadConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool validating the files accepted by the asynchronous upload. Accepted files are staged on local disk,
+ * since the multipart content is no longer available once the request is completed.
+ */
+@Slf4j
+@Component
+public class ProductFileUploadWorker {
+
+  private final ProductFileUploadConfig.Async config;
+  private final ThreadPoolExecutor executor;
+
+  public ProductFileUploadWorker(ProductFileUploadConfig productFileUploadConfig) {
+    this.config = productFileUploadConfig.getAsync();
+    if (config.isEnabled() && (config.getStagingDir() == null || config.getStagingDir().isBlank())) {
+      throw new IllegalStateException("product-file-upload.async.staging-dir is required when the asynchronous upload is enabled");
+    }
+    this.executor = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(config.getQueueCapacity()),
+      Thread.ofPlatform().name("product-file-upload-", 0).factory(),
+      new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public boolean isEnabled() {
+    return config.isEnabled();
+  }
+
+  @SuppressWarnings("java:S5443") //The staging directory is private to the service and files are created owner-only
+  public Path stage(MultipartFile file) throws IOException {
+    Path stagingDir = Files.createDirectories(Path.of(config.getStagingDir()));
+    Path staged = FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+      ? Files.createTempFile(stagingDir, "upload-", ".csv",
+          PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))
+      : Files.createTempFile(stagingDir, "upload-", ".csv");
+    file.transferTo(staged);
+    return staged;
+  }
+
+  /** Returns false when all the workers are busy and the queue is full */
+  public boolean submit(Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      log.warn("[PRODUCT_FILE_UPLOAD] - Upload queue is full ({} files waiting)", executor.getQueue().size());
+      return false;
+    }
+  }
+
+  /** Files already accepted are validated before the application stops */
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.warn("[PRODUCT_FILE_UPLOAD] - {} accepted files were not validated before shutdown", executor.getQueue().size());
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package it.gov.pagopa.register.service.operation;
+
+import it.gov.pagopa.register.configuration.ProductFileUploadConfig;
+import it.gov.pagopa.register.enums.UploadCsvStatus;
+import it.gov.pagopa.register.model.operation.ProductFile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects the accepted files whose validation was lost to a crash or a restart: their staged content was on the
+ * stopped instance, and {@code VALIDATING} would otherwise block the uploads of the organization forever.
+ */
+@Slf4j
+@Component
+public class ProductFileValidatingSweeper {
+
+  private final MongoTemplate mongoTemplate;
+  private final Duration validatingTimeout;
+  private final Duration sweepInterval;
+  private final ScheduledExecutorService sweeper =
+    Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("product-file-validating-sweeper").factory());
+
+  public ProductFileValidatingSweeper(MongoTemplate mongoTemplate, ProductFileUploadConfig productFileUploadConfig) {
+    this.mongoTemplate = mongoTemplate;
+    this.validatingTimeout = productFileUploadConfig.getAsync().getValidatingTimeout();
+    this.sweepInterval = productFileUploadConfig.getAsync().getSweepInterval();
+  }
+
+  /** Also runs when the asynchronous upload is disabled, for the files left by a previous deployment */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  public long sweep() {
+    try {
+      Query query = Query.query(Criteria.where(ProductFile.Fields.uploadStatus).is(UploadCsvStatus.VALIDATING.name())
+        .and(ProductFile.Fields.dateUpload).lt(LocalDateTime.now().minus(validatingTimeout)));
+      Update update = new Update()
+        .set(ProductFile.Fields.uploadStatus, UploadCsvStatus.REJECTED.name())
+        .set(ProductFile.Fields.errorKey, "GENERIC_ERROR");
+      long rejected = mongoTemplate.updateMulti(query, update, ProductFile.class).getModifiedCount();
+      if (rejected > 0) {
+        log.warn("[PRODUCT_FILE_UPLOAD] - Rejected {} files still validating after {}", rejected, validatingTimeout);
+      }
+      return rejected;
+    } catch (RuntimeException e) {
+      log.error("[PRODUCT_FILE_UPLOAD] - Unable to reject the files still validating: {}", e.getMessage());
+      return 0;
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    sweeper.shutdownNow();
+  }
+}
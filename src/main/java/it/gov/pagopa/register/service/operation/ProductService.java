@@ -1,6 +1,6 @@
 package it.gov.pagopa.register.service.operation;
 
-import it.gov.pagopa.register.connector.notification.NotificationService;
+import com.mongodb.client.result.UpdateResult;
 import it.gov.pagopa.register.constants.AssetRegisterConstants;
 import it.gov.pagopa.register.dto.operation.*;
 import it.gov.pagopa.register.enums.ProductStatus;
@@ -9,18 +9,21 @@ import it.gov.pagopa.register.mapper.operation.ProductMapper;
 import it.gov.pagopa.register.model.operation.Product;
 import it.gov.pagopa.register.model.operation.StatusChangeEvent;
 import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.notification.NotificationOutboxService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 
@@ -29,11 +32,14 @@ import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 public class ProductService {
 
   private final ProductRepository productRepository;
-  private final NotificationService notificationService;
+  private final NotificationOutboxService notificationOutboxService;
+  private final ProductCountCache productCountCache;
 
-  public ProductService(ProductRepository productRepository, NotificationService notificationService) {
+  public ProductService(ProductRepository productRepository, NotificationOutboxService notificationOutboxService,
+                        ProductCountCache productCountCache) {
     this.productRepository = productRepository;
-    this.notificationService = notificationService;
+    this.notificationOutboxService = notificationOutboxService;
+    this.productCountCache = productCountCache;
   }
 
   @SuppressWarnings("java:S107")
@@ -70,11 +76,11 @@ public class ProductService {
     );
 
     List<Product> entities = productRepository.findByFilter(criteria, pageable);
-    Long count = productRepository.getCount(criteria);
 
-    log.info("[GET_PRODUCTS] - Found {} products matching criteria", count);
+    // The total is counted only when it cannot be derived from the page itself
+    Page<Product> entitiesPage = PageableExecutionUtils.getPage(entities, pageable, () -> countProducts(criteria));
+    log.info("[GET_PRODUCTS] - Found {} products matching criteria", entitiesPage.getTotalElements());
 
-    Page<Product> entitiesPage = PageableExecutionUtils.getPage(entities, pageable, () -> count);
     Page<ProductDTO> result = entitiesPage.map(p -> ProductMapper.toDTO(p, role));
 
     log.info("[GET_PRODUCTS] - Returning {} products for page {} of size {}", result.getTotalElements(), result.getNumber(), result.getSize());
@@ -82,6 +88,36 @@ public class ProductService {
     return buildProductListDTO(result);
   }
 
+  /**
+   * Keyset pagination of the product list: each page is read after the continuation token of the previous one, so
+   * deep pages cost as much as the first. The total is counted on the first page only.
+   */
+  public ProductListDTO fetchProductsByFiltersAfter(ProductCriteriaDTO criteriaDTO, Pageable pageable,
+                                                    String continuationToken, String role) {
+    log.info("[GET_PRODUCTS] - Fetching products for organizationId: {} after continuation token, sort: {}",
+      criteriaDTO.getOrganizationId(), pageable.getSort());
+
+    final Criteria criteria = productRepository.getCriteria(criteriaDTO);
+    ProductSliceDTO slice = productRepository.findByFilterAfter(criteria, pageable, continuationToken);
+
+    ProductListDTO.ProductListDTOBuilder result = ProductListDTO.builder()
+      .content(slice.getContent().stream().map(p -> ProductMapper.toDTO(p, role)).toList())
+      .pageSize(pageable.getPageSize())
+      .continuationToken(slice.getContinuationToken());
+    if (continuationToken == null) {
+      long count = slice.getContinuationToken() == null ? slice.getContent().size() : countProducts(criteria);
+      result.totalElements(count)
+        .totalPages((int) ((count + pageable.getPageSize() - 1) / pageable.getPageSize()));
+    }
+
+    log.info("[GET_PRODUCTS] - Returning {} products, last page: {}", slice.getContent().size(), slice.getContinuationToken() == null);
+    return result.build();
+  }
+
+  private long countProducts(Criteria criteria) {
+    return productCountCache.count(criteria, () -> productRepository.getCount(criteria));
+  }
+
   public UpdateResultDTO updateProductStatusesWithNotification(
     ProductUpdateStatusRequestDTO updateStatusDto,
     String role,
@@ -94,7 +130,7 @@ public class ProductService {
 
     log.debug("[UPDATE_PRODUCT_STATUSES] - Product IDs to update: {}", updateStatusDto.getGtinCodes());
 
-    List<Product> requestedProducts = productRepository.findByIds(updateStatusDto.getGtinCodes());
+    List<Product> requestedProducts = productRepository.findStatusesByIds(updateStatusDto.getGtinCodes());
     log.debug("[UPDATE_PRODUCT_STATUSES] - Retrieved {} products for update", requestedProducts.size());
 
     if (requestedProducts.size() != updateStatusDto.getGtinCodes().size()) {
@@ -129,71 +165,78 @@ public class ProductService {
       return UpdateResultDTO.ko(TRANSITION_NOT_ALLOWED_ERROR_KEY);
     }
 
-    updateStatuses(requestedProducts, role, username, updateStatusDto);
-    List<Product> productsUpdated = productRepository.saveAll(requestedProducts);
-
-    log.info("[UPDATE_PRODUCT_STATUSES] - Successfully updated {} products", productsUpdated.size());
+    StatusChangeEvent statusChangeEvent = buildStatusChangeEvent(updateStatusDto, role, username);
+    List<String> updatedGtinCodes = transitionStatuses(updateStatusDto, statusChangeEvent);
+    if (updatedGtinCodes.isEmpty()) {
+      log.warn("[UPDATE_PRODUCT_STATUSES] - No product was still in status {}", updateStatusDto.getCurrentStatus());
+      return UpdateResultDTO.ko(INVALID_CURRENT_STATUS_ERROR_KEY);
+    }
 
     if (updateStatusDto.getTargetStatus().name().equals(ProductStatus.REJECTED.name())) {
-      int failedEmails = notifyStatusUpdates(productsUpdated, updateStatusDto.getTargetStatus(), updateStatusDto.getFormalMotivation());
+      int failedEmails = notifyStatusUpdates(updatedGtinCodes, statusChangeEvent, updateStatusDto.getFormalMotivation());
       if (failedEmails != 0) {
         log.warn("[UPDATE_PRODUCT_STATUSES] - Some email notifications failed. Total failures: {}", failedEmails);
         return UpdateResultDTO.ko(AssetRegisterConstants.UpdateKeyConstant.EMAIL_ERROR_KEY);
       }
-      log.info("[UPDATE_PRODUCT_STATUSES] - All notifications sent successfully");
+      log.info("[UPDATE_PRODUCT_STATUSES] - All notifications enqueued successfully");
     }
     return UpdateResultDTO.ok();
   }
 
-  private void updateStatuses(List<Product> products,
-                              String role,
-                              String username,
-                              ProductUpdateStatusRequestDTO updateStatusDto) {
-
-    products.forEach(product -> {
-      log.debug("[UPDATE_PRODUCT_STATUSES] - Updating product {} status from {} to {}",
-        product.getGtinCode(), product.getStatus(), updateStatusDto.getTargetStatus().name());
-
-      product.setStatus(updateStatusDto.getTargetStatus().name());
-
-      log.debug("[UPDATE_PRODUCT_STATUSES] - RequestDTO formalMotivation {}", updateStatusDto.getFormalMotivation());
-      if(StringUtils.isNotBlank(updateStatusDto.getFormalMotivation())){
-        product.setFormalMotivation(updateStatusDto.getFormalMotivation());
-        log.debug("[UPDATE_PRODUCT_STATUSES] - Updated formalMotivation {}", product.getFormalMotivation());
-      }
+  /**
+   * Applies the transition with a single conditional update on the database, so that the chronology is appended
+   * instead of rewriting whole documents and a product moved meanwhile by another reviewer is not overwritten.
+   * Returns the codes of the products actually updated, recognized by the event pushed on their chronology, so a
+   * product already in the target status or moved there by another reviewer is not counted as updated here.
+   */
+  private StatusChangeEvent buildStatusChangeEvent(ProductUpdateStatusRequestDTO updateStatusDto, String role, String username) {
+    return StatusChangeEvent.builder()
+      .username(username)
+      .role(role.equals(UserRole.INVITALIA.getRole()) ? "L1" : "L2")
+      // Stored with millisecond precision, so it matches the event read back from the chronology
+      .updateDate(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+      .currentStatus(updateStatusDto.getCurrentStatus())
+      .targetStatus(updateStatusDto.getTargetStatus())
+      .motivation(updateStatusDto.getMotivation())
+      .build();
+  }
 
-      if (product.getStatusChangeChronology() == null) {
-        product.setStatusChangeChronology(new ArrayList<>());
-      }
+  private List<String> transitionStatuses(ProductUpdateStatusRequestDTO updateStatusDto, StatusChangeEvent statusChangeEvent) {
+    log.debug("[UPDATE_PRODUCT_STATUSES] - RequestDTO formalMotivation {}", updateStatusDto.getFormalMotivation());
+    List<String> gtinCodes = updateStatusDto.getGtinCodes();
+    UpdateResult updateResult = productRepository.transitionStatuses(gtinCodes, updateStatusDto.getCurrentStatus(),
+      updateStatusDto.getTargetStatus(), updateStatusDto.getFormalMotivation(), statusChangeEvent);
+    log.info("[UPDATE_PRODUCT_STATUSES] - Successfully updated {} of {} products", updateResult.getModifiedCount(), gtinCodes.size());
 
-      product.getStatusChangeChronology().add(StatusChangeEvent.builder()
-        .username(username)
-        .role(role.equals(UserRole.INVITALIA.getRole()) ? "L1" : "L2")
-        .updateDate(LocalDateTime.now())
-        .currentStatus(updateStatusDto.getCurrentStatus())
-        .targetStatus(updateStatusDto.getTargetStatus())
-        .motivation(updateStatusDto.getMotivation())
-        .build());
-    });
+    if (updateResult.getModifiedCount() >= gtinCodes.size()) {
+      return gtinCodes;
+    }
+    if (updateResult.getModifiedCount() == 0) {
+      return List.of();
+    }
+    log.warn("[UPDATE_PRODUCT_STATUSES] - {} products changed status concurrently and were not updated",
+      gtinCodes.size() - updateResult.getModifiedCount());
+    return productRepository.findIdsByStatusChange(gtinCodes, statusChangeEvent);
   }
 
-  private int notifyStatusUpdates(List<Product> products, ProductStatus newStatus, String formalMotivation) {
-    List<EmailProductDTO> emailToProducts = productRepository.getProductNamesGroupedByEmail(
-      products.stream().map(Product::getGtinCode).toList()
-    );
+  /** The emails are enqueued on the outbox and sent in background; one transition enqueues one email per recipient */
+  private int notifyStatusUpdates(List<String> gtinCodes, StatusChangeEvent statusChangeEvent, String formalMotivation) {
+    List<EmailProductDTO> emailToProducts = productRepository.getProductNamesGroupedByEmail(gtinCodes);
 
     List<String> failedEmails = new ArrayList<>();
+    String transitionId = transitionId(gtinCodes, statusChangeEvent);
 
     for (EmailProductDTO dto : emailToProducts) {
       try {
-        notificationService.sendEmailUpdateStatus(
+        notificationOutboxService.enqueueUpdateStatus(
+          transitionId,
           dto.getProductNames(),
           formalMotivation,
-          newStatus.name(),
+          statusChangeEvent.getTargetStatus().name(),
           dto.getId()
         );
       } catch (Exception e) {
-        log.debug("[UPDATE_PRODUCT_STATUSES] - Failed to send email to {}: {}", dto.getId(), e.getMessage());
+        log.debug("[UPDATE_PRODUCT_STATUSES] - Failed to enqueue email to {}: {}", dto.getId(), e.getMessage());
         failedEmails.add(dto.getId());
       }
     }
@@ -201,6 +244,16 @@ public class ProductService {
     return failedEmails.size();
   }
 
+  /** Same transition, same key: enqueuing it again does not send the emails twice */
+  static String transitionId(List<String> gtinCodes, StatusChangeEvent statusChangeEvent) {
+    String transition = String.join("|",
+      String.join(",", gtinCodes.stream().sorted().toList()),
+      statusChangeEvent.getCurrentStatus().name(),
+      statusChangeEvent.getTargetStatus().name(),
+      statusChangeEvent.getUpdateDate().toString());
+    return UUID.nameUUIDFromBytes(transition.getBytes(StandardCharsets.UTF_8)).toString();
+  }
+
   private ProductListDTO buildProductListDTO(Page<ProductDTO> result) {
     return ProductListDTO.builder()
       .content(result.getContent())
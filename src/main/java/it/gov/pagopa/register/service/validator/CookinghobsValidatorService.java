@@ -3,7 +3,7 @@ package it.gov.pagopa.register.service.validator;
 
 import it.gov.pagopa.register.dto.utils.ProductValidationResult;
 import it.gov.pagopa.register.model.operation.Product;
-import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.metrics.ProductIngestMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVRecord;
@@ -14,6 +14,7 @@ import java.util.*;
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 import static it.gov.pagopa.register.mapper.operation.ProductMapper.mapCookingHobToProduct;
 import static it.gov.pagopa.register.mapper.operation.ProductMapper.mapProductToCsvRow;
+import static it.gov.pagopa.register.service.metrics.ProductIngestMetrics.*;
 import static it.gov.pagopa.register.utils.ValidationUtils.dbCheck;
 
 @Component
@@ -21,16 +22,18 @@ import static it.gov.pagopa.register.utils.ValidationUtils.dbCheck;
 @Slf4j
 public class CookinghobsValidatorService {
 
-  private final ProductRepository productRepository;
+  private final ProductLookupService productLookupService;
+  private final ProductIngestMetrics productIngestMetrics;
 
 
   public ProductValidationResult validateRecords(List<CSVRecord> records, String orgId, String productFileId, List<String> headers, String organizationName) {
     Map<String, Product> validProduct = new LinkedHashMap<>();
     List<CSVRecord> invalidRecords = new ArrayList<>();
     Map<CSVRecord, String> errorMessages = new HashMap<>();
+    Map<String, Product> existingProducts = productIngestMetrics.record(STAGE_DB_LOOKUP, COOKINGHOBS,
+      () -> productLookupService.findExistingProducts(records));
     for (CSVRecord csvRecord : records) {
-      Optional<Product> optProduct = productRepository.findById(csvRecord.get(CODE_GTIN_EAN));
-      boolean dbCheck = dbCheck(orgId, csvRecord, optProduct, invalidRecords, errorMessages);
+      boolean dbCheck = dbCheck(orgId, csvRecord, existingProducts, invalidRecords, errorMessages);
       if (dbCheck) {
         if (validProduct.containsKey(csvRecord.get(CODE_GTIN_EAN))) {
           Product duplicateGtin = validProduct.remove(csvRecord.get(CODE_GTIN_EAN));
@@ -40,8 +43,10 @@ public class CookinghobsValidatorService {
           log.info("[PRODUCT_UPLOAD] - Duplicate error for record with GTIN code: {}", csvRecord.get(CODE_GTIN_EAN));
         }
         log.info("[PRODUCT_UPLOAD] - Mapping product with GTIN code: {}", csvRecord.get(CODE_GTIN_EAN));
+        long mappingStartTime = System.nanoTime();
         Product product = mapCookingHobToProduct(csvRecord, orgId, productFileId, organizationName);
-        optProduct.ifPresent(dbProduct -> {
+        productIngestMetrics.record(STAGE_MAPPING, COOKINGHOBS, OUTCOME_SUCCESS, System.nanoTime() - mappingStartTime);
+        Optional.ofNullable(existingProducts.get(csvRecord.get(CODE_GTIN_EAN))).ifPresent(dbProduct -> {
           product.setFormalMotivation(dbProduct.getFormalMotivation());
           product.setStatusChangeChronology(dbProduct.getStatusChangeChronology());
         });
@@ -1,13 +1,14 @@
 package it.gov.pagopa.register.service.validator;
 
 import it.gov.pagopa.register.configuration.EprelValidationConfig;
-import it.gov.pagopa.register.connector.eprel.EprelConnector;
+import it.gov.pagopa.register.connector.eprel.EprelLookupExecutor;
+import it.gov.pagopa.register.dto.utils.EprelLookupResult;
 import it.gov.pagopa.register.dto.utils.EprelProduct;
 import it.gov.pagopa.register.dto.utils.EprelValidationRule;
 import it.gov.pagopa.register.dto.utils.ProductValidationResult;
 import it.gov.pagopa.register.exception.operation.EprelException;
 import it.gov.pagopa.register.model.operation.Product;
-import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.metrics.ProductIngestMetrics;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +24,7 @@ import java.util.*;
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 import static it.gov.pagopa.register.mapper.operation.ProductMapper.mapEprelToProduct;
 import static it.gov.pagopa.register.mapper.operation.ProductMapper.mapProductToCsvRow;
+import static it.gov.pagopa.register.service.metrics.ProductIngestMetrics.*;
 import static it.gov.pagopa.register.utils.ValidationUtils.*;
 
 @Component
@@ -31,8 +33,9 @@ import static it.gov.pagopa.register.utils.ValidationUtils.*;
 public class EprelProductValidatorService {
 
   private final EprelValidationConfig eprelValidationConfig;
-  private final EprelConnector eprelConnector;
-  private final ProductRepository productRepository;
+  private final EprelLookupExecutor eprelLookupExecutor;
+  private final ProductLookupService productLookupService;
+  private final ProductIngestMetrics productIngestMetrics;
 
   public ProductValidationResult validateRecords(
     List<CSVRecord> records,
@@ -57,17 +60,35 @@ public class EprelProductValidatorService {
     List<CSVRecord> invalidRecords = new ArrayList<>();
     Map<CSVRecord, String> errorMessages = new HashMap<>();
 
+    Map<String, Product> existingProducts = productIngestMetrics.record(STAGE_DB_LOOKUP, category,
+      () -> productLookupService.findExistingProducts(records));
+
+    Map<String, EprelLookupResult> eprelResponses = productIngestMetrics.record(STAGE_EPREL_LOOKUP, category,
+      () -> eprelLookupExecutor.lookupAll(collectEprelCodes(records, orgId, existingProducts)));
+
     for (CSVRecord csvRecord : records) {
-      validateRecord(csvRecord, context, validRecords, invalidRecords, errorMessages);
+      validateRecord(csvRecord, context, existingProducts, eprelResponses, validRecords, invalidRecords, errorMessages);
     }
 
     log.info("[VALIDATE_RECORDS] - Validation completed. Valid: {}, Invalid: {}", validRecords.size(), invalidRecords.size());
     return new ProductValidationResult(validRecords, invalidRecords, errorMessages);
   }
 
+  private List<String> collectEprelCodes(List<CSVRecord> records, String orgId, Map<String, Product> existingProducts) {
+    List<String> eprelCodes = new ArrayList<>();
+    for (CSVRecord csvRecord : records) {
+      if (dbCheckError(orgId, Optional.ofNullable(existingProducts.get(csvRecord.get(CODE_GTIN_EAN)))) == null) {
+        eprelCodes.add(csvRecord.get(CODE_EPREL));
+      }
+    }
+    return eprelCodes;
+  }
+
   private void validateRecord(
     CSVRecord csvRecord,
     ValidationContext context,
+    Map<String, Product> existingProducts,
+    Map<String, EprelLookupResult> eprelResponses,
     Map<String, Product> validRecords,
     List<CSVRecord> invalidRecords,
     Map<CSVRecord, String> errorMessages) {
@@ -75,8 +96,7 @@ public class EprelProductValidatorService {
     String gtin = csvRecord.get(CODE_GTIN_EAN);
     String eprelCode = csvRecord.get(CODE_EPREL);
 
-    Optional<Product> existingProduct = productRepository.findById(gtin);
-    boolean dbCheck = dbCheck(context.orgId, csvRecord, existingProduct, invalidRecords, errorMessages);
+    boolean dbCheck = dbCheck(context.orgId, csvRecord, existingProducts, invalidRecords, errorMessages);
     if(!dbCheck) {
       return;
     }
@@ -85,7 +105,8 @@ public class EprelProductValidatorService {
 
     EprelProduct eprelData;
     try {
-      eprelData = eprelConnector.callEprel(eprelCode);
+      EprelLookupResult eprelResponse = eprelResponses.get(eprelCode);
+      eprelData = (eprelResponse != null ? eprelResponse : EprelLookupResult.aborted()).get();
       log.info("[VALIDATE_RECORD] - EPREL response: {}", eprelData);
     } catch (HttpClientErrorException e) {
       addError(csvRecord, "EPREL client error", invalidRecords, errorMessages);
@@ -114,8 +135,10 @@ public class EprelProductValidatorService {
     }
 
     log.info("[PRODUCT_UPLOAD] - Mapping product: {}", gtin);
+    long mappingStartTime = System.nanoTime();
     Product product = mapEprelToProduct(csvRecord, eprelData, context.getOrgId(), context.getProductFileId(), context.getCategory(), context.getOrganizationName());
-    existingProduct.ifPresent(dbProduct -> {
+    productIngestMetrics.record(STAGE_MAPPING, context.getCategory(), OUTCOME_SUCCESS, System.nanoTime() - mappingStartTime);
+    Optional.ofNullable(existingProducts.get(gtin)).ifPresent(dbProduct -> {
       product.setFormalMotivation(dbProduct.getFormalMotivation());
       product.setStatusChangeChronology(dbProduct.getStatusChangeChronology());
     });
@@ -7,10 +7,12 @@ import it.gov.pagopa.register.dto.utils.ColumnValidationRule;
 import it.gov.pagopa.register.utils.CsvUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.*;
 
@@ -26,7 +28,14 @@ public class ProductFileValidatorService {
   private final ProductFileValidationConfig validationConfig;
 
   public ValidationResultDTO validateFile(MultipartFile file, String category) throws IOException {
-    String filename = Objects.requireNonNull(file.getOriginalFilename());
+    return validateFile(Objects.requireNonNull(file.getOriginalFilename()), file.getBytes(), category);
+  }
+
+  /**
+   * Header, row count and column rules are checked while parsing the content once. The content is returned in the
+   * OK result, to be uploaded to the storage without reading the file again.
+   */
+  public ValidationResultDTO validateFile(String filename, byte[] content, String category) throws IOException {
     log.info("[VALIDATE_FILE] - Validating file: {}, category: {}", filename, category);
 
     if (!filename.endsWith(CSV)) {
@@ -34,7 +43,7 @@ public class ProductFileValidatorService {
       return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.EXTENSION_FILE_ERROR_KEY);
     }
 
-    long fileSize = file.getSize();
+    long fileSize = content.length;
     if (fileSize == 0) {
       log.warn("[VALIDATE_FILE] - File is empty: {}", filename);
       return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.EMPTY_FILE_ERROR_KEY);
@@ -57,26 +66,52 @@ public class ProductFileValidatorService {
     }
 
     List<String> expectedHeader = new ArrayList<>(columnDefinitions.keySet());
-    List<String> actualHeader = CsvUtils.readHeaders(file);
+    try (CSVParser parser = openParser(content)) {
+      if (parser == null || !parser.getHeaderNames().equals(expectedHeader)) {
+        log.warn("[VALIDATE_FILE] - Header mismatch: {}", filename);
+        return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.HEADER_FILE_ERROR_KEY);
+      }
 
-    if (!actualHeader.equals(expectedHeader)) {
-      log.warn("[VALIDATE_FILE] - Header mismatch: {}", filename);
-      return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.HEADER_FILE_ERROR_KEY);
-    }
+      List<String> actualHeader = parser.getHeaderNames();
+      RowValidator rowValidator = new RowValidator(columnDefinitions, actualHeader, category);
+      List<CSVRecord> records = new ArrayList<>();
+      List<CSVRecord> invalidRecords = new ArrayList<>();
+      Map<CSVRecord, String> errorMessages = new HashMap<>();
+      for (CSVRecord csvRecord : parser) {
+        if (records.size() >= validationConfig.getMaxRows()) {
+          log.warn("[VALIDATE_FILE] - Too many records: {}", filename);
+          return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.MAX_ROW_FILE_ERROR_KEY);
+        }
+        records.add(csvRecord);
+        String errors = rowValidator.validate(csvRecord);
+        if (errors != null) {
+          invalidRecords.add(csvRecord);
+          errorMessages.put(csvRecord, errors);
+        }
+      }
 
-    List<CSVRecord> records = CsvUtils.readCsvRecords(file);
-    if (records.isEmpty()) {
-      log.warn("[VALIDATE_FILE] - No records found: {}", filename);
-      return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.EMPTY_FILE_ERROR_KEY);
-    }
+      if (records.isEmpty()) {
+        log.warn("[VALIDATE_FILE] - No records found: {}", filename);
+        return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.EMPTY_FILE_ERROR_KEY);
+      }
+
+      if (!invalidRecords.isEmpty()) {
+        log.warn("[VALIDATE_FILE] - File {} has {} invalid records", filename, invalidRecords.size());
+        return ValidationResultDTO.invalidRecords(records, actualHeader, invalidRecords, errorMessages);
+      }
 
-    if (records.size() > validationConfig.getMaxRows()) {
-      log.warn("[VALIDATE_FILE] - Too many records: {}", filename);
-      return ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.MAX_ROW_FILE_ERROR_KEY);
+      log.info("[VALIDATE_FILE] - File validation successful: {}", filename);
+      return ValidationResultDTO.ok(records, actualHeader, content);
     }
+  }
 
-    log.info("[VALIDATE_FILE] - File validation successful: {}", filename);
-    return ValidationResultDTO.ok(records, actualHeader);
+  /** Returns null when the header cannot be parsed, e.g. because of duplicated or empty column names */
+  private static CSVParser openParser(byte[] content) throws IOException {
+    try {
+      return CsvUtils.openCsvParser(new ByteArrayInputStream(content));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
   }
 
   public ValidationResultDTO validateRecords(List<CSVRecord> records, List<String> headers, String category) {
@@ -88,15 +123,16 @@ public class ProductFileValidatorService {
       throw new IllegalArgumentException("No validation rules found for category: " + category);
     }
 
+    RowValidator rowValidator = new RowValidator(rules, headers, category);
     List<CSVRecord> invalidRecords = new ArrayList<>();
     Map<CSVRecord, String> errorMessages = new HashMap<>();
 
     for (CSVRecord csvRecord : records) {
-      List<String> errors = validateRecord(csvRecord, headers, rules, category);
-      if (!errors.isEmpty()) {
+      String errors = rowValidator.validate(csvRecord);
+      if (errors != null) {
         log.warn("[VALIDATE_RECORDS] - Errors in record: {}", csvRecord);
         invalidRecords.add(csvRecord);
-        errorMessages.put(csvRecord, String.join(", ", errors));
+        errorMessages.put(csvRecord, errors);
       }
     }
 
@@ -113,17 +149,41 @@ public class ProductFileValidatorService {
     );
   }
 
-  private List<String> validateRecord(CSVRecord csvRecord, List<String> headers, Map<String, ColumnValidationRule> rules, String category) {
-    List<String> errors = new ArrayList<>();
-    for (String header : headers) {
-      ColumnValidationRule rule = rules.get(header);
-      if (rule != null) {
-        String value = csvRecord.get(header);
-        if (!rule.isValid(value, CATEGORIES_TO_IT_S.get(category))) {
-          errors.add(rule.getMessage().replace("{}", CATEGORIES_TO_IT_S.get(category)));
+  /** Column rules of a file, with their localized messages resolved once, checked on each row in a single pass */
+  private static final class RowValidator {
+    private final String categoryLabel;
+    private final List<String> headers;
+    private final List<ColumnValidationRule> rules;
+    private final List<String> messages;
+
+    private RowValidator(Map<String, ColumnValidationRule> columnRules, List<String> fileHeaders, String category) {
+      this.categoryLabel = CATEGORIES_TO_IT_S.get(category);
+      this.headers = new ArrayList<>(fileHeaders.size());
+      this.rules = new ArrayList<>(fileHeaders.size());
+      this.messages = new ArrayList<>(fileHeaders.size());
+      for (String header : fileHeaders) {
+        ColumnValidationRule rule = columnRules.get(header);
+        if (rule != null) {
+          headers.add(header);
+          rules.add(rule);
+          messages.add(categoryLabel != null ? rule.getMessage().replace("{}", categoryLabel) : rule.getMessage());
+        }
+      }
+    }
+
+    /** Returns the errors of the record joined by a comma, null when the record is valid */
+    private String validate(CSVRecord csvRecord) {
+      StringBuilder errors = null;
+      for (int i = 0; i < headers.size(); i++) {
+        if (!rules.get(i).isValid(csvRecord.get(headers.get(i)), categoryLabel)) {
+          if (errors == null) {
+            errors = new StringBuilder(messages.get(i));
+          } else {
+            errors.append(", ").append(messages.get(i));
+          }
         }
       }
+      return errors == null ? null : errors.toString();
     }
-    return errors;
   }
 }
@@ -0,0 +1,45 @@
+package it.gov.pagopa.register.service.validator;
+
+import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.repository.operation.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CODE_GTIN_EAN;
+
+@Slf4j
+@Component
+public class ProductLookupService {
+
+  private final ProductRepository productRepository;
+  private final int chunkSize;
+
+  public ProductLookupService(ProductRepository productRepository,
+                              @Value("${product-file-validation.dbLookupChunkSize:500}") int chunkSize) {
+    this.productRepository = productRepository;
+    this.chunkSize = Math.max(1, chunkSize);
+  }
+
+  /** Loads the products already stored for the GTIN codes of the given records, one $in query per chunk */
+  public Map<String, Product> findExistingProducts(List<CSVRecord> records) {
+    List<String> gtinCodes = records.stream()
+      .map(csvRecord -> csvRecord.get(CODE_GTIN_EAN))
+      .filter(Objects::nonNull)
+      .distinct()
+      .toList();
+
+    Map<String, Product> existingProducts = new HashMap<>();
+    for (int from = 0; from < gtinCodes.size(); from += chunkSize) {
+      List<String> chunk = gtinCodes.subList(from, Math.min(from + chunkSize, gtinCodes.size()));
+      productRepository.findByIds(chunk)
+        .forEach(product -> existingProducts.put(product.getGtinCode(), product));
+    }
+
+    log.info("[PRODUCT_LOOKUP] - Found {} existing products out of {} GTIN codes", existingProducts.size(), gtinCodes.size());
+    return existingProducts;
+  }
+}
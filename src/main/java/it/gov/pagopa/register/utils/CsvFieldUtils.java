@@ -0,0 +1,49 @@
+package it.gov.pagopa.register.utils;
+
+import java.util.Locale;
+import java.util.Set;
+
+/** Allocation-free checks of the CSV fields, equivalent to the regexes in {@code AssetRegisterConstants} */
+public class CsvFieldUtils {
+
+  private static final Set<String> ISO_COUNTRIES = Set.of(Locale.getISOCountries());
+
+  private CsvFieldUtils(){}
+
+  /** Same as {@code ^[a-zA-Z0-9]{min,max}$}, or {@code ^[a-zA-Z0-9 ]{min,max}$} when spaces are allowed */
+  public static boolean isAlphanumeric(String value, int minLength, int maxLength, boolean allowSpaces) {
+    if (value == null || value.length() < minLength || value.length() > maxLength) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (!isAsciiLetterOrDigit(c) && !(allowSpaces && c == ' ')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Same as {@code ^\d+$} */
+  public static boolean isNumeric(String value) {
+    if (value == null || value.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Whether the value is an upper case ISO 3166 alpha-2 country code */
+  public static boolean isIsoCountry(String value) {
+    return value != null && ISO_COUNTRIES.contains(value);
+  }
+
+  private static boolean isAsciiLetterOrDigit(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+  }
+}
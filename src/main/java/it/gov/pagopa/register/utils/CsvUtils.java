@@ -8,8 +8,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 
 public class CsvUtils {
@@ -65,11 +63,37 @@ public class CsvUtils {
     }
   }
 
-  public static void writeCsvWithErrors(List<CSVRecord> invalidRecords, List<String> headers, Map<CSVRecord, String> errorMap, Path outputPath) throws IOException {
+  /** Opens a parser reading the records lazily from the given stream; the header is parsed eagerly */
+  public static CSVParser openCsvParser(InputStream inputStream) throws IOException {
+    return new CSVParser(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)),
+      CSVFormat.Builder.create()
+        .setHeader()
+        .setTrim(true)
+        .setDelimiter(';')
+        .build());
+  }
+
+  /** Builds a record with the given values, addressable by the given headers */
+  public static CSVRecord toCsvRecord(List<String> headers, List<String> values) throws IOException {
+    StringWriter out = new StringWriter();
+    try (CSVPrinter printer = new CSVPrinter(out, CSVFormat.Builder.create().setDelimiter(DELIMITER).build())) {
+      printer.printRecord(values);
+    }
+    CSVFormat format = CSVFormat.Builder.create()
+      .setHeader(headers.toArray(new String[0]))
+      .setDelimiter(DELIMITER)
+      .build();
+    try (CSVParser parser = format.parse(new StringReader(out.toString()))) {
+      return parser.getRecords().getFirst();
+    }
+  }
+
+  /** Writes the report of the invalid records to the given stream, which is closed once the report is written */
+  public static void writeCsvWithErrors(List<CSVRecord> invalidRecords, List<String> headers, Map<CSVRecord, String> errorMap, OutputStream output) throws IOException {
     List<String> finalHeaders = new ArrayList<>(headers);
     finalHeaders.add("Errori di validazione");
 
-    try (BufferedWriter writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
+    try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
       writer.write("\uFEFF"); // BOM
       try (CSVPrinter printer = new CSVPrinter(writer,
         CSVFormat.Builder.create()
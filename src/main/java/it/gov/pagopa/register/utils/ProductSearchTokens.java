@@ -0,0 +1,53 @@
+package it.gov.pagopa.register.utils;
+
+import it.gov.pagopa.register.model.operation.Product;
+
+import java.util.*;
+
+/**
+ * Search tokens of a product: the lowercase trigrams of the searchable fields, each prefixed by its field key,
+ * e.g. {@code b:sam}. A text filter matches only products having all the trigrams of the searched value,
+ * so the substring filters of the product list are resolved on the multikey index of the tokens.
+ */
+public class ProductSearchTokens {
+
+  public static final int GRAM_LENGTH = 3;
+
+  public static final String EPREL_CODE = "e";
+  public static final String GTIN_CODE = "g";
+  public static final String PRODUCT_NAME = "p";
+  public static final String FULL_PRODUCT_NAME = "f";
+  public static final String BRAND = "b";
+  public static final String MODEL = "m";
+
+  private ProductSearchTokens(){}
+
+  public static List<String> of(Product product) {
+    Set<String> tokens = new TreeSet<>();
+    addGrams(tokens, EPREL_CODE, product.getEprelCode());
+    addGrams(tokens, GTIN_CODE, product.getGtinCode());
+    addGrams(tokens, PRODUCT_NAME, product.getProductName());
+    addGrams(tokens, FULL_PRODUCT_NAME, product.getFullProductName());
+    addGrams(tokens, BRAND, product.getBrand());
+    addGrams(tokens, MODEL, product.getModel());
+    return new ArrayList<>(tokens);
+  }
+
+  /** Tokens a product must have to contain the value, empty when the value is shorter than a trigram */
+  public static List<String> forQuery(String field, String value) {
+    Set<String> tokens = new LinkedHashSet<>();
+    addGrams(tokens, field, value);
+    return new ArrayList<>(tokens);
+  }
+
+  private static void addGrams(Set<String> tokens, String field, String value) {
+    if (value == null || value.length() < GRAM_LENGTH) {
+      return;
+    }
+    String normalized = value.toLowerCase(Locale.ROOT);
+    String prefix = field + ":";
+    for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+      tokens.add(prefix + normalized.substring(i, i + GRAM_LENGTH));
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package it.gov.pagopa.register.utils;
+
+import it.gov.pagopa.register.model.operation.Product;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CATEGORIES_TO_IT_P;
+
+/**
+ * Sort keys persisted on the product when it is written, so the product list is sorted on indexed fields:
+ * the rank of the energy class, the Italian category name and the lowercase copies of the text fields.
+ */
+public class ProductSortKeys {
+
+  public static final int DEFAULT_ENERGY_RANK = 1;
+
+  private static final Map<String, Integer> ENERGY_RANKS = Map.of(
+    "A+++", 10,
+    "A++", 9,
+    "A+", 8,
+    "A", 7,
+    "B", 6,
+    "C", 5,
+    "D", 4,
+    "E", 3,
+    "F", 2
+  );
+
+  private ProductSortKeys(){}
+
+  public static void apply(Product product) {
+    product.setEnergyRank(energyRank(product.getEnergyClass()));
+    product.setCategoryIt(product.getCategory() == null ? null : CATEGORIES_TO_IT_P.get(product.getCategory()));
+    product.setGtinCodeLower(lower(product.getGtinCode()));
+    product.setOrganizationNameLower(lower(product.getOrganizationName()));
+    product.setProductNameLower(lower(product.getProductName()));
+    product.setFullProductNameLower(lower(product.getFullProductName()));
+    product.setBrandLower(lower(product.getBrand()));
+    product.setModelLower(lower(product.getModel()));
+  }
+
+  public static int energyRank(String energyClass) {
+    return energyClass == null ? DEFAULT_ENERGY_RANK : ENERGY_RANKS.getOrDefault(energyClass, DEFAULT_ENERGY_RANK);
+  }
+
+  private static String lower(String value) {
+    return value == null ? null : value.toLowerCase(Locale.ROOT);
+  }
+}
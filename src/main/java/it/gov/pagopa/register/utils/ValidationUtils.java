@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CODE_GTIN_EAN;
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.DIFFERENT_ORGANIZATIONID;
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.STATUS_NOT_VALID;
 
@@ -17,19 +18,29 @@ public class ValidationUtils {
 
   private ValidationUtils(){}
   public static boolean dbCheck(String orgId, CSVRecord csvRecord, Optional<Product> optProduct, List<CSVRecord> invalidRecords, Map<CSVRecord, String> errorMessages) {
-    boolean isProductPresent = optProduct.isPresent();
-    boolean dbCheck = true;
-    if (isProductPresent) {
+    String dbError = dbCheckError(orgId, optProduct);
+    if (dbError != null) {
+      addError(csvRecord, dbError, invalidRecords, errorMessages);
+      return false;
+    }
+    return true;
+  }
+
+  public static boolean dbCheck(String orgId, CSVRecord csvRecord, Map<String, Product> existingProducts, List<CSVRecord> invalidRecords, Map<CSVRecord, String> errorMessages) {
+    return dbCheck(orgId, csvRecord, Optional.ofNullable(existingProducts.get(csvRecord.get(CODE_GTIN_EAN))), invalidRecords, errorMessages);
+  }
+
+  /** Returns the error message if the existing product cannot be overwritten by the given organization, null otherwise */
+  public static String dbCheckError(String orgId, Optional<Product> optProduct) {
+    if (optProduct.isPresent()) {
       if (!orgId.equals(optProduct.get().getOrganizationId())) {
-        addError(csvRecord, DIFFERENT_ORGANIZATIONID, invalidRecords, errorMessages);
-        dbCheck = false;
+        return DIFFERENT_ORGANIZATIONID;
       } else if (!ProductStatus.REJECTED.toString().equals(optProduct.get().getStatus()) &&
         !ProductStatus.UPLOADED.toString().equals(optProduct.get().getStatus())) {
-        addError(csvRecord, STATUS_NOT_VALID, invalidRecords, errorMessages);
-        dbCheck = false;
+        return STATUS_NOT_VALID;
       }
     }
-    return dbCheck;
+    return null;
   }
 
   public static void addError(CSVRecord csvRecord, String message, List<CSVRecord> invalidRecords, Map<CSVRecord, String> errorMessages) {
@@ -0,0 +1,98 @@
+package it.gov.pagopa.common.kafka;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedConcurrencyKafkaConsumerTest {
+
+  private static Message<String> message(String key, String payload) {
+    return MessageBuilder.withPayload(payload).setHeader("key", key).build();
+  }
+
+  private static KeyedConcurrencyProperties properties(int lanes, int maxInFlight) {
+    KeyedConcurrencyProperties properties = new KeyedConcurrencyProperties();
+    properties.setEnabled(true);
+    properties.setLanes(lanes);
+    properties.setMaxInFlight(maxInFlight);
+    return properties;
+  }
+
+  @Test
+  void accept_sameKey_shouldKeepOrder() {
+    List<String> processed = new CopyOnWriteArrayList<>();
+    KeyedConcurrencyKafkaConsumer consumer = new KeyedConcurrencyKafkaConsumer("test",
+      m -> processed.add(m.getPayload()), m -> m.getHeaders().get("key", String.class), properties(4, 16));
+
+    for (int i = 0; i < 20; i++) {
+      consumer.accept(message("ORG1", String.valueOf(i)));
+    }
+    consumer.close();
+
+    assertEquals(20, processed.size());
+    for (int i = 0; i < 20; i++) {
+      assertEquals(String.valueOf(i), processed.get(i));
+    }
+  }
+
+  @Test
+  void accept_differentKeys_shouldRunInParallel() throws InterruptedException {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    AtomicInteger completed = new AtomicInteger();
+    KeyedConcurrencyProperties properties = properties(2, 16);
+    KeyedConcurrencyKafkaConsumer consumer = new KeyedConcurrencyKafkaConsumer("test", m -> {
+      bothStarted.countDown();
+      try {
+        if (bothStarted.await(5, TimeUnit.SECONDS)) {
+          completed.incrementAndGet();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, m -> m.getHeaders().get("key", String.class), properties);
+
+    // "a" and "b" fall on different lanes when there are two of them
+    assertNotEquals(Math.floorMod("a".hashCode(), 2), Math.floorMod("b".hashCode(), 2));
+    consumer.accept(message("a", "1"));
+    consumer.accept(message("b", "2"));
+    consumer.close();
+
+    assertEquals(2, completed.get());
+  }
+
+  @Test
+  void accept_shouldContinueAfterDelegateError() {
+    List<String> processed = new CopyOnWriteArrayList<>();
+    KeyedConcurrencyKafkaConsumer consumer = new KeyedConcurrencyKafkaConsumer("test", m -> {
+      if ("boom".equals(m.getPayload())) {
+        throw new IllegalStateException("boom");
+      }
+      processed.add(m.getPayload());
+    }, m -> null, properties(1, 1));
+
+    consumer.accept(message(null, "boom"));
+    consumer.accept(message(null, "ok"));
+    consumer.close();
+
+    assertEquals(List.of("ok"), processed);
+  }
+
+  @Test
+  void configureContainer_shouldEnableManualAsyncAcks() {
+    ContainerProperties containerProperties = new ContainerProperties("topic");
+
+    KeyedConcurrencyKafkaConsumer.configureContainer(containerProperties);
+
+    assertEquals(ContainerProperties.AckMode.MANUAL, containerProperties.getAckMode());
+    assertTrue(containerProperties.isAsyncAcks());
+  }
+}
@@ -0,0 +1,99 @@
+package it.gov.pagopa.common.mongo.bulk;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.common.mongo.retry.exception.MongoRequestRateTooLargeRetryExpiredException;
+import it.gov.pagopa.register.model.operation.Product;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoBulkUpserterTest {
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+  @Mock
+  private BulkOperations bulkOperations;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private final Product first = Product.builder().gtinCode("1").build();
+  private final Product second = Product.builder().gtinCode("2").build();
+  private final Product third = Product.builder().gtinCode("3").build();
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    when(mongoTemplate.getCollectionName(Product.class)).thenReturn("product");
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOperations);
+  }
+
+  @Test
+  void upsertAll_shouldWriteOneBulkPerChunk() {
+    MongoBulkUpserter upserter = new MongoBulkUpserter(mongoTemplate, meterRegistry, 2, 5);
+
+    upserter.upsertAll(List.of(first, second, third), Product.class, Product::getGtinCode);
+
+    verify(bulkOperations, times(3)).replaceOne(any(), any(), any());
+    verify(bulkOperations, times(2)).execute();
+    assertEquals(2, meterRegistry.timer("mongo.bulk.upsert.chunk", "collection", "product").count());
+  }
+
+  @Test
+  void upsertAll_shouldRetryOnlyThrottledDocuments() {
+    BulkOperationException throttled = mock(BulkOperationException.class);
+    when(throttled.getErrors()).thenReturn(List.of(
+      new BulkWriteError(16500, "Error=16500, RetryAfterMs=1, Details='Request rate is large'", new BsonDocument(), 1)));
+    when(bulkOperations.execute()).thenThrow(throttled).thenReturn(null);
+    MongoBulkUpserter upserter = new MongoBulkUpserter(mongoTemplate, meterRegistry, 10, 5);
+
+    upserter.upsertAll(List.of(first, second, third), Product.class, Product::getGtinCode);
+
+    verify(bulkOperations, times(2)).replaceOne(any(), eq(second), any());
+    verify(bulkOperations, times(1)).replaceOne(any(), eq(first), any());
+    verify(bulkOperations, times(1)).replaceOne(any(), eq(third), any());
+    verify(bulkOperations, times(2)).execute();
+  }
+
+  @Test
+  void upsertAll_shouldRethrowOtherWriteErrors() {
+    BulkOperationException duplicateKey = mock(BulkOperationException.class);
+    when(duplicateKey.getErrors()).thenReturn(List.of(
+      new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 0)));
+    when(bulkOperations.execute()).thenThrow(duplicateKey);
+    MongoBulkUpserter upserter = new MongoBulkUpserter(mongoTemplate, meterRegistry, 10, 5);
+
+    List<Product> products = List.of(first);
+    assertThrows(BulkOperationException.class, () -> upserter.upsertAll(products, Product.class, Product::getGtinCode));
+    verify(bulkOperations, times(1)).execute();
+  }
+
+  @Test
+  void upsertAll_shouldFailWhenRetriesAreExhausted() {
+    BulkOperationException throttled = mock(BulkOperationException.class);
+    when(throttled.getErrors()).thenReturn(List.of(
+      new BulkWriteError(16500, "Error=16500, RetryAfterMs=1", new BsonDocument(), 0)));
+    when(bulkOperations.execute()).thenThrow(throttled);
+    MongoBulkUpserter upserter = new MongoBulkUpserter(mongoTemplate, meterRegistry, 10, 1);
+
+    List<Product> products = List.of(first);
+    assertThrows(MongoRequestRateTooLargeRetryExpiredException.class,
+      () -> upserter.upsertAll(products, Product.class, Product::getGtinCode));
+    verify(bulkOperations, times(2)).execute();
+  }
+}
@@ -0,0 +1,28 @@
+package it.gov.pagopa.register.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestTemplateConfigTest {
+
+  private final RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+
+  @Test
+  void eprelConnectionManager_shouldBePooledAndInstrumented() {
+    EprelClientConfig eprelClientConfig = new EprelClientConfig();
+    eprelClientConfig.getHttp().setMaxConnections(16);
+    eprelClientConfig.getHttp().setMaxConnectionsPerRoute(8);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    try (PoolingHttpClientConnectionManager connectionManager =
+           restTemplateConfig.eprelConnectionManager(eprelClientConfig, meterRegistry)) {
+      assertEquals(16, connectionManager.getMaxTotal());
+      assertEquals(8, connectionManager.getDefaultMaxPerRoute());
+      assertEquals(16, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+        .tag("httpclient", "eprel").gauge().value());
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package it.gov.pagopa.register.connector.eprel;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import it.gov.pagopa.register.configuration.EprelClientConfig;
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.exception.operation.EprelException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@ExtendWith(MockitoExtension.class)
+class EprelCircuitBreakerTest {
+
+  @Mock
+  private EprelConnector eprelConnector;
+
+  private EprelCircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setUp() {
+    EprelClientConfig eprelClientConfig = new EprelClientConfig();
+    eprelClientConfig.getCircuitBreaker().setSlidingWindowSize(2);
+    eprelClientConfig.getCircuitBreaker().setMinimumNumberOfCalls(2);
+    eprelClientConfig.getCircuitBreaker().setProbeInterval(Duration.ofHours(1));
+    circuitBreaker = new EprelCircuitBreaker(eprelConnector, eprelClientConfig);
+  }
+
+  @AfterEach
+  void tearDown() {
+    circuitBreaker.shutdown();
+  }
+
+  @Test
+  void callEprel_shouldOpenAfterServerErrorsAndFailFast() {
+    when(eprelConnector.callEprel("1")).thenThrow(new HttpServerErrorException(INTERNAL_SERVER_ERROR));
+
+    assertThrows(HttpServerErrorException.class, () -> circuitBreaker.callEprel("1"));
+    assertThrows(HttpServerErrorException.class, () -> circuitBreaker.callEprel("1"));
+    assertThrows(EprelException.class, () -> circuitBreaker.callEprel("1"));
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    verify(eprelConnector, times(2)).callEprel("1");
+  }
+
+  @Test
+  void callEprel_shouldNotCountClientErrorsAsFailures() {
+    when(eprelConnector.callEprel("1")).thenThrow(new HttpClientErrorException(NOT_FOUND));
+
+    assertThrows(HttpClientErrorException.class, () -> circuitBreaker.callEprel("1"));
+    assertThrows(HttpClientErrorException.class, () -> circuitBreaker.callEprel("1"));
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  void probe_shouldCloseCircuitAndNotifyListenersWhenEprelAnswers() {
+    AtomicInteger recoveries = new AtomicInteger();
+    circuitBreaker.addRecoveryListener(recoveries::incrementAndGet);
+    when(eprelConnector.callEprel("1")).thenThrow(new HttpServerErrorException(INTERNAL_SERVER_ERROR));
+    assertThrows(HttpServerErrorException.class, () -> circuitBreaker.callEprel("1"));
+    assertThrows(HttpServerErrorException.class, () -> circuitBreaker.callEprel("1"));
+    when(eprelConnector.callEprel("TEST")).thenThrow(new HttpClientErrorException(NOT_FOUND));
+
+    circuitBreaker.probe();
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertEquals(1, recoveries.get());
+  }
+
+  @Test
+  void probe_shouldKeepCircuitOpenWhileEprelIsUnavailable() {
+    AtomicInteger recoveries = new AtomicInteger();
+    circuitBreaker.addRecoveryListener(recoveries::incrementAndGet);
+    when(eprelConnector.callEprel(anyString())).thenThrow(new HttpServerErrorException(INTERNAL_SERVER_ERROR));
+    assertThrows(HttpServerErrorException.class, () -> circuitBreaker.callEprel("1"));
+    assertThrows(HttpServerErrorException.class, () -> circuitBreaker.callEprel("1"));
+
+    circuitBreaker.probe();
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertEquals(0, recoveries.get());
+  }
+
+  @Test
+  void callEprel_shouldReturnProductWhenClosed() {
+    EprelProduct product = EprelProduct.builder().eprelRegistrationNumber("1").build();
+    when(eprelConnector.callEprel("1")).thenReturn(product);
+
+    assertSame(product, circuitBreaker.callEprel("1"));
+  }
+}
@@ -1,6 +1,5 @@
 package it.gov.pagopa.register.connector.eprel;
 
-import it.gov.pagopa.register.configuration.RestTemplateConfig;
 import it.gov.pagopa.register.dto.utils.EprelProduct;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,10 +20,7 @@ import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @ExtendWith(SpringExtension.class)
-@ContextConfiguration(classes = {
-  EprelConnector.class,
-  RestTemplateConfig.class
-})
+@ContextConfiguration(classes = EprelConnector.class)
 @TestPropertySource(properties = {
   "app.rest-client.eprel.service.get-product=http://localhost/{REGISTRATION_NUMBER}",
 })
@@ -0,0 +1,73 @@
+package it.gov.pagopa.register.connector.eprel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.register.configuration.EprelClientConfig;
+import it.gov.pagopa.register.dto.utils.EprelLookupResult;
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.exception.operation.EprelException;
+import it.gov.pagopa.register.repository.operation.EprelCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@ExtendWith(MockitoExtension.class)
+class EprelLookupExecutorTest {
+
+  @Mock
+  private EprelConnector eprelConnector;
+
+  @Mock
+  private EprelCacheRepository eprelCacheRepository;
+
+  private EprelClientConfig eprelClientConfig;
+  private EprelResponseCache eprelResponseCache;
+
+  @BeforeEach
+  void setUp() {
+    eprelClientConfig = new EprelClientConfig();
+    eprelResponseCache = new EprelResponseCache(new EprelCircuitBreaker(eprelConnector, eprelClientConfig), eprelCacheRepository, eprelClientConfig, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void lookupAll_concurrent_shouldCallEprelOncePerDistinctCode() {
+    EprelProduct product = EprelProduct.builder().eprelRegistrationNumber("1").build();
+    when(eprelConnector.callEprel("1")).thenReturn(product);
+    when(eprelConnector.callEprel("2")).thenThrow(new HttpClientErrorException(NOT_FOUND));
+
+    EprelLookupExecutor executor = new EprelLookupExecutor(eprelResponseCache, eprelClientConfig);
+    Map<String, EprelLookupResult> results = executor.lookupAll(List.of("1", "2", "1"));
+
+    assertEquals(2, results.size());
+    assertEquals(product, results.get("1").get());
+    EprelLookupResult notFound = results.get("2");
+    assertThrows(HttpClientErrorException.class, notFound::get);
+    verify(eprelConnector, times(1)).callEprel("1");
+  }
+
+  @Test
+  void lookupAll_sequential_shouldAbortAfterServerError() {
+    eprelClientConfig.getLookup().setConcurrent(false);
+    when(eprelConnector.callEprel("1")).thenThrow(new HttpServerErrorException(INTERNAL_SERVER_ERROR));
+
+    EprelLookupExecutor executor = new EprelLookupExecutor(eprelResponseCache, eprelClientConfig);
+    Map<String, EprelLookupResult> results = executor.lookupAll(List.of("1", "2"));
+
+    EprelLookupResult serverError = results.get("1");
+    EprelLookupResult aborted = results.get("2");
+    assertThrows(HttpServerErrorException.class, serverError::get);
+    assertThrows(EprelException.class, aborted::get);
+    verify(eprelConnector, never()).callEprel("2");
+  }
+}
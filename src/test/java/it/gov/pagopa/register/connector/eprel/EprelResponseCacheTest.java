@@ -0,0 +1,157 @@
+package it.gov.pagopa.register.connector.eprel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.register.configuration.EprelClientConfig;
+import it.gov.pagopa.register.dto.utils.EprelProduct;
+import it.gov.pagopa.register.model.operation.EprelCacheEntry;
+import it.gov.pagopa.register.repository.operation.EprelCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@ExtendWith(MockitoExtension.class)
+class EprelResponseCacheTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Mock
+  private EprelConnector eprelConnector;
+
+  @Mock
+  private EprelCacheRepository eprelCacheRepository;
+
+  private EprelClientConfig eprelClientConfig;
+  private SimpleMeterRegistry meterRegistry;
+  private EprelResponseCache cache;
+
+  @BeforeEach
+  void setUp() {
+    eprelClientConfig = new EprelClientConfig();
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new EprelResponseCache(new EprelCircuitBreaker(eprelConnector, eprelClientConfig), eprelCacheRepository, eprelClientConfig, meterRegistry,
+      Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void get_shouldServeSecondLookupFromMemory() {
+    EprelProduct product = EprelProduct.builder().eprelRegistrationNumber("1").energyClass("A").build();
+    when(eprelConnector.callEprel("1")).thenReturn(product);
+
+    EprelProduct first = cache.get("1");
+    first.setEnergyClass("B");
+    EprelProduct second = cache.get("1");
+
+    assertEquals("A", second.getEnergyClass());
+    verify(eprelConnector, times(1)).callEprel("1");
+    ArgumentCaptor<EprelCacheEntry> saved = ArgumentCaptor.forClass(EprelCacheEntry.class);
+    verify(eprelCacheRepository).save(saved.capture());
+    assertEquals(NOW.plus(Duration.ofHours(24)), saved.getValue().getExpireAt());
+    assertEquals(24 * 3600, saved.getValue().getTtl());
+    assertEquals(1.0, meterRegistry.counter("eprel.cache.requests", "result", "hit", "tier", "memory").count());
+    assertEquals(1.0, meterRegistry.counter("eprel.cache.requests", "result", "miss", "tier", "none").count());
+  }
+
+  @Test
+  void get_shouldCacheClientErrorsWithNegativeTtl() {
+    when(eprelConnector.callEprel("1")).thenThrow(new HttpClientErrorException(NOT_FOUND));
+
+    assertThrows(HttpClientErrorException.class, () -> cache.get("1"));
+    HttpClientErrorException cached = assertThrows(HttpClientErrorException.class, () -> cache.get("1"));
+
+    assertEquals(NOT_FOUND, cached.getStatusCode());
+    verify(eprelConnector, times(1)).callEprel("1");
+    ArgumentCaptor<EprelCacheEntry> saved = ArgumentCaptor.forClass(EprelCacheEntry.class);
+    verify(eprelCacheRepository).save(saved.capture());
+    assertEquals(NOW.plus(Duration.ofHours(1)), saved.getValue().getExpireAt());
+    assertEquals(3600, saved.getValue().getTtl());
+  }
+
+  @Test
+  void get_shouldNotCacheServerErrors() {
+    when(eprelConnector.callEprel("1")).thenThrow(new HttpServerErrorException(INTERNAL_SERVER_ERROR));
+
+    assertThrows(HttpServerErrorException.class, () -> cache.get("1"));
+    assertThrows(HttpServerErrorException.class, () -> cache.get("1"));
+
+    verify(eprelConnector, times(2)).callEprel("1");
+    verify(eprelCacheRepository, never()).save(any());
+  }
+
+  @Test
+  void get_shouldUsePersistedEntryAndIgnoreExpiredOnes() {
+    EprelProduct product = EprelProduct.builder().eprelRegistrationNumber("1").build();
+    when(eprelCacheRepository.findById("1"))
+      .thenReturn(Optional.of(EprelCacheEntry.builder().id("1").product(product).expireAt(NOW.plusSeconds(60)).build()));
+    when(eprelCacheRepository.findById("2"))
+      .thenReturn(Optional.of(EprelCacheEntry.builder().id("2").product(product).expireAt(NOW.minusSeconds(60)).build()));
+    when(eprelConnector.callEprel("2")).thenReturn(product);
+
+    assertEquals(product, cache.get("1"));
+    assertEquals(product, cache.get("2"));
+
+    verify(eprelConnector, never()).callEprel("1");
+    verify(eprelConnector, times(1)).callEprel("2");
+  }
+
+  @Test
+  void get_disabled_shouldAlwaysCallEprel() {
+    eprelClientConfig.getCache().setEnabled(false);
+    when(eprelConnector.callEprel("1")).thenReturn(new EprelProduct());
+
+    cache.get("1");
+    cache.get("1");
+
+    verify(eprelConnector, times(2)).callEprel("1");
+    verifyNoInteractions(eprelCacheRepository);
+  }
+
+  @Test
+  void get_concurrentLookupsOfSameCode_shouldShareSingleCall() throws Exception {
+    CountDownLatch callStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    EprelProduct product = EprelProduct.builder().eprelRegistrationNumber("1").build();
+    when(eprelConnector.callEprel("1")).thenAnswer(invocation -> {
+      callStarted.countDown();
+      release.await();
+      return product;
+    });
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<EprelProduct> leader = executor.submit(() -> cache.get("1"));
+      callStarted.await();
+      List<Future<EprelProduct>> followers = List.of(
+        executor.submit(() -> cache.get("1")),
+        executor.submit(() -> cache.get("1")));
+      Thread.sleep(50);
+      release.countDown();
+
+      assertEquals(product, leader.get());
+      for (Future<EprelProduct> follower : followers) {
+        assertEquals(product, follower.get());
+      }
+    }
+    verify(eprelConnector, times(1)).callEprel("1");
+  }
+}
@@ -9,8 +9,11 @@ import com.azure.storage.blob.models.BlobProperties;
 import com.azure.storage.blob.models.BlobStorageException;
 import com.azure.storage.blob.models.BlockBlobItem;
 import com.azure.storage.blob.options.BlobDownloadToFileOptions;
+import com.azure.storage.blob.specialized.BlobInputStream;
 import com.azure.storage.blob.options.BlobParallelUploadOptions;
 import com.azure.storage.blob.options.BlobUploadFromFileOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.specialized.BlockBlobClient;
 import it.gov.pagopa.register.configuration.FileStorageConfig;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +32,9 @@ import java.nio.file.Path;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -90,6 +96,47 @@ class FileStorageClientTest {
     verify(blobClient).uploadWithResponse(any(BlobParallelUploadOptions.class), any(), any());
   }
 
+  @Test
+  void upload_ShouldStageBlocksAndCommitThemOnceWritten() throws IOException {
+    String destination = "folder/report.csv";
+    BlockBlobClient blockBlobClient = mock(BlockBlobClient.class);
+    Response<BlockBlobItem> mockResponse = mock(Response.class);
+    BlockBlobItem item = mock(BlockBlobItem.class);
+
+    when(blobContainerClient.getBlobClient(destination)).thenReturn(blobClient);
+    when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+    when(blockBlobClient.commitBlockListWithResponse(any(BlockBlobCommitBlockListOptions.class), any(), any()))
+      .thenReturn(mockResponse);
+    when(mockResponse.getValue()).thenReturn(item);
+
+    BlockBlobItem result = fileStorageClient.upload(out -> {
+      out.write(new byte[5 * 1024 * 1024]);
+      out.close();
+    }, destination, "text/csv");
+
+    assertThat(result).isEqualTo(item);
+    verify(blockBlobClient, times(2)).stageBlock(anyString(), any(InputStream.class), anyLong());
+    verify(blockBlobClient).commitBlockListWithResponse(argThat(options ->
+      options.getBase64BlockIds().size() == 2 && "text/csv".equals(options.getHeaders().getContentType())), any(), any());
+  }
+
+  @Test
+  void upload_ShouldNotCommitWhenTheWriterFails() {
+    String destination = "folder/report.csv";
+    BlockBlobClient blockBlobClient = mock(BlockBlobClient.class);
+
+    when(blobContainerClient.getBlobClient(destination)).thenReturn(blobClient);
+    when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+
+    assertThatThrownBy(() -> fileStorageClient.upload(out -> {
+      out.write("partial".getBytes());
+      out.close();
+      throw new IOException("write failed");
+    }, destination, "text/csv")).isInstanceOf(IOException.class);
+
+    verify(blockBlobClient, never()).commitBlockListWithResponse(any(BlockBlobCommitBlockListOptions.class), any(), any());
+  }
+
   @Test
   void deleteFile_ShouldDeleteSuccessfully() {
     String destination = "folder/test.txt";
@@ -136,6 +183,40 @@ class FileStorageClientTest {
       .isInstanceOf(BlobStorageException.class);
   }
 
+  @Test
+  void openInputStream_ShouldReturnBlobStream() {
+    String filePath = "test.csv";
+    BlobInputStream blobInputStream = mock(BlobInputStream.class);
+    when(blobContainerClient.getBlobClient(filePath)).thenReturn(blobClient);
+    when(blobClient.openInputStream()).thenReturn(blobInputStream);
+
+    InputStream result = fileStorageClient.openInputStream(filePath);
+
+    assertThat(result).isSameAs(blobInputStream);
+  }
+
+  @Test
+  void openBlobInputStream_ShouldReturnNullWhen404() {
+    String filePath = "nonexistent.csv";
+    BlobStorageException exception = mock(BlobStorageException.class);
+    when(exception.getStatusCode()).thenReturn(404);
+    when(blobContainerClient.getBlobClient(filePath)).thenReturn(blobClient);
+    when(blobClient.openInputStream()).thenThrow(exception);
+
+    assertThat(fileStorageClient.openBlobInputStream(filePath)).isNull();
+  }
+
+  @Test
+  void openInputStream_ShouldReturnNullWhen404() {
+    String filePath = "nonexistent.csv";
+    BlobStorageException exception = mock(BlobStorageException.class);
+    when(exception.getStatusCode()).thenReturn(404);
+    when(blobContainerClient.getBlobClient(filePath)).thenReturn(blobClient);
+    when(blobClient.openInputStream()).thenThrow(exception);
+
+    assertThat(fileStorageClient.openInputStream(filePath)).isNull();
+  }
+
   @Test
   void downloadToFile_ShouldDownloadSuccessfully() throws IOException {
 
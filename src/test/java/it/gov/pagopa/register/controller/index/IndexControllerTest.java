@@ -0,0 +1,34 @@
+package it.gov.pagopa.register.controller.index;
+
+import it.gov.pagopa.register.service.index.IndexManagementService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(IndexController.class)
+class IndexControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockitoBean
+  private IndexManagementService indexManagementService;
+
+  @Test
+  void ensureIndexes_shouldReturnEnsuredIndexes() throws Exception {
+    when(indexManagementService.ensureIndexes()).thenReturn(List.of("product.searchTokens_1"));
+
+    mockMvc.perform(post("/idpay/register/indexes"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0]").value("product.searchTokens_1"));
+  }
+}
@@ -81,6 +81,25 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 
     //Test in caso di eccezione
+    @Test
+    void testGetProducts_CursorPagination() throws Exception {
+      ProductListDTO mockResponse = ProductListDTO.builder()
+        .content(Collections.singletonList(new ProductDTO()))
+        .pageSize(1)
+        .continuationToken("bmV4dA")
+        .build();
+
+      when(productService.fetchProductsByFiltersAfter(any(), any(), eq("Zmlyc3Q"), any()))
+        .thenReturn(mockResponse);
+      mockMvc.perform(get("/idpay/register/products")
+          .queryParam("organizationId", "83843864-f3c0-4def-badb-7f197471b72e")
+          .queryParam("continuationToken", "Zmlyc3Q")
+          .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isArray())
+        .andExpect(jsonPath("$.continuationToken").value("bmV4dA"));
+    }
+
     @Test
     void testGetProducts_ServiceThrowsException() throws Exception {
       when(productService.fetchProductsByFilters(eq("83843864-f3c0-4def-badb-7f197471b72e")
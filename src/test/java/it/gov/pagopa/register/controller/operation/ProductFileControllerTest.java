@@ -13,7 +13,7 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.util.Collections;
 import java.util.List;
 
@@ -75,9 +75,13 @@ class ProductFileControllerTest {
 
   @Test
   void downloadCsv_successfulResponse() throws Exception {
-    ByteArrayOutputStream file = new ByteArrayOutputStream();
-    file.write("fake csv content".getBytes());
-    FileReportDTO fileReportDTO = FileReportDTO.builder().data(file.toByteArray()).filename("test.csv").build();
+    byte[] file = "fake csv content".getBytes();
+    FileReportDTO fileReportDTO = FileReportDTO.builder()
+      .data(new ByteArrayInputStream(file))
+      .filename("test.csv")
+      .contentLength(file.length)
+      .eTag("\"0x8DCE1\"")
+      .build();
 
     Mockito.when(productFileService.downloadReport(TEST_ID_UPLOAD, "83843864-f3c0-4def-badb-7f197471b72e")).thenReturn(fileReportDTO);
 
@@ -88,7 +92,9 @@ class ProductFileControllerTest {
       .andExpect(status().isOk())
       .andExpect(header().string("Content-Disposition", "attachment; filename=test.csv"))
       .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-      .andExpect(content().bytes(file.toByteArray()));
+      .andExpect(header().longValue("Content-Length", file.length))
+      .andExpect(header().string("ETag", "\"0x8DCE1\""))
+      .andExpect(content().bytes(file));
   }
 
 
@@ -124,6 +130,27 @@ class ProductFileControllerTest {
       .andExpect(jsonPath("$.errorKey").value("EXTENSION_FILE_ERROR"));
   }
 
+  @Test
+  void uploadProductFile_accepted_shouldReturn202() throws Exception {
+    MockMultipartFile file = new MockMultipartFile(
+      "csv", "products.csv", "text/csv", "header\n1".getBytes()
+    );
+
+    Mockito.when(productFileService.uploadFile(any(), any(), any(), any(), any(), any()))
+      .thenReturn(ProductFileResult.accepted(TEST_ID_UPLOAD));
+
+    mockMvc.perform(multipart("/idpay/register/product-files")
+        .file(file)
+        .param("category", "eprel")
+        .header("x-organization-id", "83843864-f3c0-4def-badb-7f197471b72e")
+        .header("x-user-id", "83843864-f3c0-4def-badb-7f197471b72e")
+        .header("x-user-email", "user@email.com")
+        .header("x-organization-name", "org-name"))
+      .andExpect(status().isAccepted())
+      .andExpect(jsonPath("$.status").value("ACCEPTED"))
+      .andExpect(jsonPath("$.productFileId").value(TEST_ID_UPLOAD));
+  }
+
   @Test
   void uploadProductFile_withInvalidHeader_KoStatus() throws Exception {
     MockMultipartFile file = new MockMultipartFile(
@@ -268,6 +268,9 @@ class ProductMapperTest {
 
     assertTrue(product.getFullProductName().contains("BrandX"));
     assertTrue(product.getFullProductName().contains("ModelX"));
+    assertTrue(product.getSearchTokens().containsAll(List.of("b:bra", "m:mod", "g:gti")));
+    assertEquals("brandx", product.getBrandLower());
+    assertNotNull(product.getEnergyRank());
   }
 
   // ---------- mapEprelToProduct ----------
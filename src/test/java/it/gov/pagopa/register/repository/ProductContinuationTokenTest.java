@@ -0,0 +1,42 @@
+package it.gov.pagopa.register.repository;
+
+import it.gov.pagopa.register.exception.operation.InvalidContinuationTokenException;
+import it.gov.pagopa.register.repository.operation.ProductContinuationToken;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductContinuationTokenTest {
+
+  private static final List<Sort.Order> KEYS = List.of(
+    Sort.Order.desc("registrationDate"), Sort.Order.asc("energyRank"), Sort.Order.asc("brand_lower"), Sort.Order.asc("_id"));
+
+  @Test
+  void encodeDecode_shouldKeepValueTypes() {
+    Date date = new Date(1_700_000_000_000L);
+    List<Object> values = Arrays.asList(date, 7, null, "8001234567890");
+
+    String token = ProductContinuationToken.encode(KEYS, values);
+
+    assertTrue(token.matches("^[A-Za-z0-9_-]+$"));
+    assertEquals(values, ProductContinuationToken.decode(token, KEYS));
+  }
+
+  @Test
+  void decode_differentSort_shouldFail() {
+    String token = ProductContinuationToken.encode(KEYS, Arrays.asList(new Date(), 7, "b", "1"));
+    List<Sort.Order> otherKeys = List.of(Sort.Order.asc("registrationDate"), Sort.Order.asc("_id"));
+
+    assertThrows(InvalidContinuationTokenException.class, () -> ProductContinuationToken.decode(token, otherKeys));
+  }
+
+  @Test
+  void decode_malformedToken_shouldFail() {
+    assertThrows(InvalidContinuationTokenException.class, () -> ProductContinuationToken.decode("bm90LWpzb24", KEYS));
+  }
+}
@@ -138,22 +138,15 @@ class ProductFileSpecificRepositoryTest {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(0, 10, Sort.by("batchName").ascending());
 
-    AggregationResults<Product> aggregationResults = mock(AggregationResults.class);
-    when(aggregationResults.getMappedResults()).thenReturn(List.of(Product.builder().build()));
-
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(aggregationResults);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(Product.builder().build()));
 
     List<Product> result = productSpecificRepository.findByFilter(criteria, pageable);
 
-    assertNotNull(result);
     assertEquals(1, result.size());
-
-    ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq("product"), eq(Product.class));
-
-    Aggregation usedAggregation = aggregationCaptor.getValue();
-    assertNotNull(usedAggregation);
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(Product.class));
+    verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq("product"), eq(Product.class));
+    assertEquals(new org.bson.Document("categoryIt", 1).append("productFileId", 1).append("_id", 1), queryCaptor.getValue().getSortObject());
   }
 
   @Test
@@ -161,22 +154,15 @@ class ProductFileSpecificRepositoryTest {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(0, 10, Sort.by("batchName").descending());
 
-    AggregationResults<Product> aggregationResults = mock(AggregationResults.class);
-    when(aggregationResults.getMappedResults()).thenReturn(List.of(Product.builder().build()));
-
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(aggregationResults);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(Product.builder().build()));
 
     List<Product> result = productSpecificRepository.findByFilter(criteria, pageable);
 
-    assertNotNull(result);
     assertEquals(1, result.size());
-
-    ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq("product"), eq(Product.class));
-
-    Aggregation usedAggregation = aggregationCaptor.getValue();
-    assertNotNull(usedAggregation);
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(Product.class));
+    verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq("product"), eq(Product.class));
+    assertEquals(new org.bson.Document("categoryIt", -1).append("productFileId", -1).append("_id", -1), queryCaptor.getValue().getSortObject());
   }
 
   @Test
@@ -184,55 +170,31 @@ class ProductFileSpecificRepositoryTest {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(0, 10, Sort.by("energyClass").descending());
 
-    AggregationResults<Product> aggregationResults = mock(AggregationResults.class);
-    when(aggregationResults.getMappedResults()).thenReturn(List.of(Product.builder().build()));
-
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(aggregationResults);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(Product.builder().build()));
 
     List<Product> result = productSpecificRepository.findByFilter(criteria, pageable);
 
-    assertNotNull(result);
     assertEquals(1, result.size());
-
-    ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq("product"), eq(Product.class));
-
-    Aggregation usedAggregation = aggregationCaptor.getValue();
-    assertNotNull(usedAggregation);
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(Product.class));
+    verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq("product"), eq(Product.class));
+    assertEquals(new org.bson.Document("energyRank", -1).append("_id", -1), queryCaptor.getValue().getSortObject());
   }
 
   @Test
-  void testFindByFilter_SortByOtherField_shouldUseAggregationGenericSort() {
+  void testFindByFilter_SortByOtherField_shouldSortOnField() {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(0, 10, Sort.by("registrationDate").ascending());
 
-    AggregationResults<Product> empty = new AggregationResults<>(List.of(), new org.bson.Document());
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(empty);
-
-    productSpecificRepository.findByFilter(criteria, pageable);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(Product.builder().build()));
 
-    verify(mongoTemplate, never()).find(any(Query.class), eq(Product.class));
-
-    ArgumentCaptor<Aggregation> aggCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggCaptor.capture(), eq("product"), eq(Product.class));
-
-    String pipeline = aggCaptor.getValue().toString();
-
-    int iMatch = pipeline.indexOf("$match");
-    int iSort  = pipeline.indexOf("$sort");
-    int iSkip  = pipeline.indexOf("$skip");
-    int iLimit = pipeline.indexOf("$limit");
-
-    assertTrue(iMatch >= 0, "manca $match");
-    assertTrue(iSort > iMatch, "manca/ordine errato di $sort");
-    assertTrue(iSkip > iSort, "manca/ordine errato di $skip");
-    assertTrue(iLimit > iSkip, "manca/ordine errato di $limit");
+    List<Product> result = productSpecificRepository.findByFilter(criteria, pageable);
 
-    assertTrue(pipeline.contains("\"registrationDate\""), "il sort non è su registrationDate");
-    assertTrue(pipeline.contains("\"registrationDate\" : 1") || pipeline.toLowerCase().contains("asc"),
-      "il sort non è ascendente");
+    assertEquals(1, result.size());
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(Product.class));
+    verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq("product"), eq(Product.class));
+    assertEquals(new org.bson.Document("registrationDate", 1).append("_id", 1), queryCaptor.getValue().getSortObject());
   }
 
 
@@ -1,10 +1,15 @@
 package it.gov.pagopa.register.repository;
 
+import com.mongodb.client.result.UpdateResult;
 import it.gov.pagopa.register.dto.operation.EmailProductDTO;
 import it.gov.pagopa.register.dto.operation.ProductCriteriaDTO;
+import it.gov.pagopa.register.dto.operation.ProductSliceDTO;
 import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.enums.UserRole;
 import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.model.operation.ProductFile;
+import it.gov.pagopa.register.model.operation.StatusChangeEvent;
+import it.gov.pagopa.register.repository.operation.ProductContinuationToken;
 import it.gov.pagopa.register.repository.operation.ProductSpecificRepositoryImpl;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,9 +25,15 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -72,93 +83,63 @@ class ProductSpecificRepositoryTest {
     assertEquals("org1", results.get(0).getOrganizationId());
   }
 
+  private Query findQuery() {
+    ArgumentCaptor<Query> qCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(qCaptor.capture(), eq(Product.class));
+    verify(mongoTemplate, never()).aggregate(any(Aggregation.class), anyString(), eq(Product.class));
+    return qCaptor.getValue();
+  }
+
   // ==========================================
-  // findByFilter - SORT case-insensitive su gtinCode => aggregation con $toLower su $_id
+  // findByFilter - SORT case-insensitive su gtinCode => find ordinato su _id_lower
   // ==========================================
   @Test
-  void testFindByFilter_ciSortOnGtinCode_shouldAggregateWithToLowerOn_Id() {
+  void testFindByFilter_ciSortOnGtinCode_shouldSortOnIdLower() {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("gtinCode"))); // FE field
 
-    AggregationResults<Product> empty = new AggregationResults<>(List.of(), new Document());
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(empty);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
 
     repository.findByFilter(criteria, pageable);
 
-    ArgumentCaptor<Aggregation> aggCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggCaptor.capture(), eq("product"), eq(Product.class));
-    verify(mongoTemplate, never()).find(any(Query.class), eq(Product.class));
-
-    String pipeline = aggCaptor.getValue().toString();
-    // deve contenere: $match, addFields con _id_lower via $toLower, $sort su _id_lower, poi $skip/$limit
-    assertTrue(pipeline.contains("$match"));
-    assertTrue(pipeline.contains("\"_id_lower\""));
-    assertTrue(pipeline.contains("$toLower"));
-    assertTrue(pipeline.contains("\"$_id\""));
-    assertTrue(pipeline.contains("$sort"));
-    assertTrue(pipeline.contains("\"_id_lower\""));
-    assertTrue(pipeline.contains("$skip"));
-    assertTrue(pipeline.contains("$limit"));
+    Query used = findQuery();
+    assertEquals(new Document("_id_lower", 1).append("_id", 1), used.getSortObject());
+    assertEquals(10, used.getLimit());
+    assertEquals(0, used.getSkip());
   }
 
   // ======================================================
-  // findByFilter - SORT case-insensitive su productName => aggregation con $toLower su productName_lower
+  // findByFilter - SORT case-insensitive su productName => find ordinato su productName_lower
   // ======================================================
   @Test
-  void testFindByFilter_ciSortOnProductName_shouldAggregateWithToLower() {
+  void testFindByFilter_ciSortOnProductName_shouldSortOnLowerField() {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(0, 5, Sort.by(Sort.Order.desc(Product.Fields.productName)));
 
-    AggregationResults<Product> empty = new AggregationResults<>(List.of(), new Document());
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(empty);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
 
     repository.findByFilter(criteria, pageable);
 
-    ArgumentCaptor<Aggregation> aggCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggCaptor.capture(), eq("product"), eq(Product.class));
-
-    String pipeline = aggCaptor.getValue().toString();
-    assertTrue(pipeline.contains("$addFields"));
-    assertTrue(pipeline.contains("productName_lower"));
-    assertTrue(pipeline.contains("$toLower"));
-    assertTrue(pipeline.contains("\"$productName\""));
-    assertTrue(pipeline.contains("$sort"));
-    assertTrue(pipeline.contains("\"productName_lower\""));
-    assertTrue(pipeline.contains("$skip"));
-    assertTrue(pipeline.contains("$limit"));
-    assertTrue(pipeline.contains("$project")); // i campi *_lower vengono rimossi
+    assertEquals(new Document("productName_lower", -1).append("_id", -1), findQuery().getSortObject());
   }
 
   // ============================================================
-  // findByFilter - SORT generico (non CI) per registrationDate => aggregation con sort/skip/limit
+  // findByFilter - SORT generico (non CI) per registrationDate => find con sort/skip/limit
   // ============================================================
   @Test
-  void testFindByFilter_genericSort_shouldAggregateAndSortBeforePaginate() {
+  void testFindByFilter_genericSort_shouldSortBeforePaginate() {
     Criteria criteria = Criteria.where("organizationId").is("org1");
     Pageable pageable = PageRequest.of(1, 20, Sort.by(Sort.Order.desc("registrationDate"))); // non CI
 
-    AggregationResults<Product> empty = new AggregationResults<>(List.of(), new Document());
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(empty);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
 
     repository.findByFilter(criteria, pageable);
 
-    ArgumentCaptor<Aggregation> aggCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggCaptor.capture(), eq("product"), eq(Product.class));
-    verify(mongoTemplate, never()).find(any(Query.class), eq(Product.class));
-
-    String pipeline = aggCaptor.getValue().toString();
-
-    // Ordine corretto: $match -> $sort -> $skip -> $limit
-    int iMatch = pipeline.indexOf("$match");
-    int iSort  = pipeline.indexOf("$sort");
-    int iSkip  = pipeline.indexOf("$skip");
-    int iLimit = pipeline.indexOf("$limit");
-
-    assertTrue(iMatch >= 0 && iSort > iMatch && iSkip > iSort && iLimit > iSkip);
-    assertTrue(pipeline.contains("\"registrationDate\""));
+    Query used = findQuery();
+    assertEquals(criteria.getCriteriaObject(), used.getQueryObject());
+    assertEquals(new Document("registrationDate", -1).append("_id", -1), used.getSortObject());
+    assertEquals(20, used.getSkip());
+    assertEquals(20, used.getLimit());
   }
 
   // ============================================================
@@ -169,45 +150,88 @@ class ProductSpecificRepositoryTest {
     Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("batchName")));
     Criteria criteria = Criteria.where("organizationId").is("org1");
 
-    AggregationResults<Product> mockResults = new AggregationResults<>(List.of(), new Document());
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(mockResults);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
 
     repository.findByFilter(criteria, pageable);
 
-    ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq("product"), eq(Product.class));
-
-    Aggregation usedAggregation = aggregationCaptor.getValue();
-    String pipelineString = usedAggregation.toString();
-
-    assertTrue(pipelineString.contains("categoryIt"));
-    assertTrue(pipelineString.contains("productFileId"));
+    assertEquals(new Document("categoryIt", 1).append("productFileId", 1).append("_id", 1),
+      findQuery().getSortObject());
   }
 
   // ============================================================
   // Ramo special: sort per energyClass (energyRank)
   // ============================================================
   @Test
-  void testFindByFilter_energyClassAggregation_shouldSortByEnergyRank() {
+  void testFindByFilter_energyClass_shouldSortByEnergyRank() {
     Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("energyClass")));
     Criteria criteria = new Criteria();
 
-    AggregationResults<Product> mockResults = new AggregationResults<>(List.of(), new Document());
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(Product.class)))
-      .thenReturn(mockResults);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
 
     repository.findByFilter(criteria, pageable);
 
-    ArgumentCaptor<Aggregation> aggregationCaptor = ArgumentCaptor.forClass(Aggregation.class);
-    verify(mongoTemplate).aggregate(aggregationCaptor.capture(), eq("product"), eq(Product.class));
+    assertEquals(new Document("energyRank", 1).append("_id", 1), findQuery().getSortObject());
+  }
+
+  // ======================
+  // findByFilterAfter
+  // ======================
+  @Test
+  void testFindByFilterAfter_firstPage_shouldReturnTokenOfLastProduct() {
+    Criteria criteria = Criteria.where("organizationId").is("org1");
+    Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "brand"));
+    Document first = new Document("_id", "1").append("brand", "A").append("brand_lower", "a");
+    Document second = new Document("_id", "2").append("brand", "B").append("brand_lower", "b");
+    // the JSR-310 conversions make the dates simple types, as in the converter configured by Spring Boot
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+
+    when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("product")))
+      .thenReturn(List.of(first, second));
+    when(mongoTemplate.getConverter()).thenReturn(converter);
+
+    ProductSliceDTO slice = repository.findByFilterAfter(criteria, pageable, null);
+
+    assertEquals(2, slice.getContent().size());
+    assertEquals("B", slice.getContent().get(1).getBrand());
+    List<Sort.Order> keys = List.of(Sort.Order.asc("brand_lower"), Sort.Order.asc("_id"));
+    assertEquals(List.of("b", "2"), ProductContinuationToken.decode(slice.getContinuationToken(), keys));
+
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(captor.capture(), eq(Document.class), eq("product"));
+    Query used = captor.getValue();
+    assertEquals(0, used.getSkip());
+    assertEquals(2, used.getLimit());
+    assertEquals(new Document("brand_lower", 1).append("_id", 1), used.getSortObject());
+  }
 
-    String pipeline = aggregationCaptor.getValue().toString();
-    assertTrue(pipeline.contains("energyRank"));
-    assertTrue(pipeline.contains("$sort"));
-    assertTrue(pipeline.contains("\"energyRank\""));
-    assertTrue(pipeline.contains("$skip"));
-    assertTrue(pipeline.contains("$limit"));
+  @Test
+  void testFindByFilterAfter_withToken_shouldSeekAfterLastKeys() {
+    Pageable pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "energyClass"));
+    List<Sort.Order> keys = List.of(Sort.Order.desc("energyRank"), Sort.Order.desc("_id"));
+    String token = ProductContinuationToken.encode(keys, List.of(7, "5"));
+
+    when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("product"))).thenReturn(List.of());
+
+    ProductSliceDTO slice = repository.findByFilterAfter(new Criteria(), pageable, token);
+
+    assertTrue(slice.getContent().isEmpty());
+    assertNull(slice.getContinuationToken());
+    ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(captor.capture(), eq(Document.class), eq("product"));
+    // descending keys: below the last value or null, which sorts first
+    Document afterRank = new Document("$or", List.of(
+      new Document("energyRank", new Document("$lt", 7)), new Document("energyRank", null)));
+    Document afterId = new Document("$or", List.of(
+      new Document("_id", new Document("$lt", "5")), new Document("_id", null)));
+    Document seek = new Document("$or", List.of(
+      afterRank, new Document("$and", List.of(new Document("energyRank", 7), afterId))));
+    assertEquals(new Document("$and", List.of(new Document(), seek)), captor.getValue().getQueryObject());
   }
 
   // ======================
@@ -239,6 +263,23 @@ class ProductSpecificRepositoryTest {
     assertTrue(regexEprel.contains("eprel"));
   }
 
+  @Test
+  void testGetCriteria_textFilters_shouldUseSearchTokens() {
+    Criteria criteria = repository.getCriteria(
+      ProductCriteriaDTO.builder()
+        .brand("Sams")
+        .model("a.b")
+        .gtinCode("12")
+        .build()
+    );
+
+    Document criteriaObject = criteria.getCriteriaObject();
+    Document tokens = (Document) criteriaObject.get(Product.Fields.searchTokens);
+    assertEquals(List.of("b:sam", "b:ams", "m:a.b"), tokens.get("$all"));
+    assertTrue(criteriaObject.get("model").toString().contains("\\Qa.b\\E"));
+    assertTrue(criteriaObject.containsKey("_id"));
+  }
+
   // ======================
   // getCount
   // ======================
@@ -284,22 +325,37 @@ class ProductSpecificRepositoryTest {
   // ======================
   @Test
   void testGetProductNamesGroupedByEmail_shouldReturnGroupedResults() {
-    EmailProductDTO dto = EmailProductDTO.builder()
-      .id("user@example.com")
-      .productNames(List.of("Product A", "Product B"))
-      .build();
-
-    AggregationResults<EmailProductDTO> aggregationResults = mock(AggregationResults.class);
-    when(aggregationResults.getMappedResults()).thenReturn(List.of(dto));
-    when(mongoTemplate.aggregate(any(Aggregation.class), eq("product"), eq(EmailProductDTO.class)))
-      .thenReturn(aggregationResults);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of(
+      Product.builder().gtinCode("gtin1").productFileId("file1").productName("Product A").build(),
+      Product.builder().gtinCode("gtin2").productFileId("file2").productName("Product B").build(),
+      Product.builder().gtinCode("gtin3").productFileId("file3").productName("Product C").build(),
+      Product.builder().gtinCode("gtin4").productFileId("file1").productName("Product A").build()));
+    when(mongoTemplate.find(any(Query.class), eq(ProductFile.class))).thenReturn(List.of(
+      ProductFile.builder().id("file1").userEmail("user@example.com").build(),
+      ProductFile.builder().id("file2").userEmail("user@example.com").build(),
+      ProductFile.builder().id("file3").userEmail("other@example.com").build()));
 
     List<EmailProductDTO> results =
-      repository.getProductNamesGroupedByEmail(List.of("gtin1", "gtin2"));
+      repository.getProductNamesGroupedByEmail(List.of("gtin1", "gtin2", "gtin3", "gtin4"));
 
-    assertEquals(1, results.size());
+    assertEquals(2, results.size());
     assertEquals("user@example.com", results.get(0).getId());
-    assertTrue(results.get(0).getProductNames().containsAll(List.of("Product A", "Product B")));
+    assertEquals(List.of("Product A", "Product B"), results.get(0).getProductNames());
+    assertEquals(List.of("Product C"), results.get(1).getProductNames());
+
+    ArgumentCaptor<Query> fileQuery = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(fileQuery.capture(), eq(ProductFile.class));
+    assertEquals(List.of("file1", "file2", "file3"),
+      fileQuery.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+    verify(mongoTemplate, never()).aggregate(any(Aggregation.class), anyString(), eq(EmailProductDTO.class));
+  }
+
+  @Test
+  void testGetProductNamesGroupedByEmail_noProducts_shouldNotReadFiles() {
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
+
+    assertTrue(repository.getProductNamesGroupedByEmail(List.of("gtin1")).isEmpty());
+    verify(mongoTemplate, never()).find(any(Query.class), eq(ProductFile.class));
   }
 
   // ======================
@@ -316,6 +372,72 @@ class ProductSpecificRepositoryTest {
     verify(mongoTemplate).find(any(Query.class), eq(Product.class));
   }
 
+  // ======================
+  // transitionStatuses
+  // ======================
+  @Test
+  void testTransitionStatuses_shouldUpdateOnlyProductsInCurrentStatus() {
+    StatusChangeEvent event = StatusChangeEvent.builder().username("user").role("L1")
+      .currentStatus(ProductStatus.UPLOADED).targetStatus(ProductStatus.REJECTED).build();
+    when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Product.class)))
+      .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+    UpdateResult result = repository.transitionStatuses(List.of("g1", "g2"), ProductStatus.UPLOADED,
+      ProductStatus.REJECTED, "FORMAL", event);
+
+    assertEquals(2, result.getModifiedCount());
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateMulti(queryCaptor.capture(), updateCaptor.capture(), eq(Product.class));
+    assertEquals("UPLOADED", queryCaptor.getValue().getQueryObject().get("status"));
+    Document update = updateCaptor.getValue().getUpdateObject();
+    assertEquals("REJECTED", update.get("$set", Document.class).get("status"));
+    assertEquals("FORMAL", update.get("$set", Document.class).get("formalMotivation"));
+    assertSame(event, update.get("$push", Document.class).get("statusChangeChronology"));
+  }
+
+  @Test
+  void testTransitionStatuses_blankFormalMotivation_shouldKeepIt() {
+    when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Product.class)))
+      .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    repository.transitionStatuses(List.of("g1"), ProductStatus.UPLOADED, ProductStatus.SUPERVISED, " ",
+      StatusChangeEvent.builder().build());
+
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateMulti(any(Query.class), updateCaptor.capture(), eq(Product.class));
+    assertFalse(updateCaptor.getValue().getUpdateObject().get("$set", Document.class).containsKey("formalMotivation"));
+  }
+
+  @Test
+  void testFindIdsByStatusChange_shouldMatchThePushedEvent() {
+    LocalDateTime updateDate = LocalDateTime.of(2025, 1, 1, 10, 0);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+      .thenReturn(List.of(Product.builder().gtinCode("g1").build()));
+
+    List<String> ids = repository.findIdsByStatusChange(List.of("g1", "g2"),
+      StatusChangeEvent.builder().username("user").updateDate(updateDate).build());
+
+    assertEquals(List.of("g1"), ids);
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(Product.class));
+    Document elemMatch = queryCaptor.getValue().getQueryObject()
+      .get("statusChangeChronology", Document.class).get("$elemMatch", Document.class);
+    assertEquals("user", elemMatch.get("username"));
+    assertEquals(updateDate, elemMatch.get("updateDate"));
+  }
+
+  @Test
+  void testFindStatusesByIds_shouldProjectStatus() {
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
+
+    repository.findStatusesByIds(List.of("g1"));
+
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(Product.class));
+    assertEquals(new Document("status", 1), queryCaptor.getValue().getFieldsObject());
+  }
+
   // ======================
   // findUpdatableProducts (stati validi)
   // ======================
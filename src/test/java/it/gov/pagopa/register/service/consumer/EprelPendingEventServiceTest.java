@@ -0,0 +1,102 @@
+package it.gov.pagopa.register.service.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.gov.pagopa.register.connector.eprel.EprelCircuitBreaker;
+import it.gov.pagopa.register.dto.operation.StorageEventDTO;
+import it.gov.pagopa.register.event.producer.ProductFileProducer;
+import it.gov.pagopa.register.model.operation.EprelPendingEvent;
+import it.gov.pagopa.register.repository.operation.EprelPendingEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EprelPendingEventServiceTest {
+
+  @Mock
+  private EprelPendingEventRepository eprelPendingEventRepository;
+  @Mock
+  private EprelCircuitBreaker eprelCircuitBreaker;
+  @Mock
+  private ProductFileProducer productFileProducer;
+  @Mock
+  private ProductFileAbandonService productFileAbandonService;
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  private EprelPendingEventService service;
+
+  private final StorageEventDTO first = StorageEventDTO.builder().subject("/blobs/CSV/ORG1/ORGNAME/WASHINGMACHINES/file1.csv").build();
+  private final StorageEventDTO second = StorageEventDTO.builder().subject("/blobs/CSV/ORG1/ORGNAME/WASHINGMACHINES/file2.csv").build();
+
+  @BeforeEach
+  void setUp() {
+    service = new EprelPendingEventService(eprelPendingEventRepository, eprelCircuitBreaker, productFileProducer, new ObjectMapper(),
+      productFileAbandonService, mongoTemplate);
+  }
+
+  @Test
+  void constructor_shouldRegisterRecoveryListener() {
+    verify(eprelCircuitBreaker).addRecoveryListener(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void park_shouldSaveEventsAndStartProbe() {
+    service.park(List.of(first, second));
+
+    ArgumentCaptor<List<EprelPendingEvent>> saved = ArgumentCaptor.forClass(List.class);
+    verify(eprelPendingEventRepository).saveAll(saved.capture());
+    assertEquals(List.of(first.getSubject(), second.getSubject()), saved.getValue().stream().map(EprelPendingEvent::getId).toList());
+    verify(eprelCircuitBreaker).startProbe();
+  }
+
+  @Test
+  void resume_shouldRepublishEventsAndUnlockTheFilesNotSent() {
+    when(mongoTemplate.findAndRemove(any(Query.class), eq(EprelPendingEvent.class))).thenReturn(
+      EprelPendingEvent.builder().id(first.getSubject()).event(first).build(),
+      EprelPendingEvent.builder().id(second.getSubject()).event(second).build(),
+      null);
+    when(productFileProducer.scheduleMessage(anyString())).thenReturn(true, false);
+
+    service.resume();
+
+    verify(productFileProducer, times(2)).scheduleMessage(anyString());
+    verify(mongoTemplate, times(3)).findAndRemove(any(Query.class), eq(EprelPendingEvent.class));
+    verify(productFileAbandonService).abandon(second.getSubject());
+    verifyNoMoreInteractions(productFileAbandonService);
+  }
+
+  @Test
+  void resume_shouldPublishNothingWhenAnotherReplicaClaimedTheEvents() {
+    when(mongoTemplate.findAndRemove(any(Query.class), eq(EprelPendingEvent.class))).thenReturn(null);
+
+    service.resume();
+
+    verifyNoInteractions(productFileProducer);
+  }
+
+  @Test
+  void onApplicationReady_shouldStartProbeOnlyWithPendingEvents() {
+    when(eprelPendingEventRepository.count()).thenReturn(0L, 1L);
+
+    service.onApplicationReady();
+    verify(eprelCircuitBreaker, never()).startProbe();
+
+    service.onApplicationReady();
+    verify(eprelCircuitBreaker).startProbe();
+  }
+}
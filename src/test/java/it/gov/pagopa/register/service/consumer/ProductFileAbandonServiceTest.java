@@ -0,0 +1,74 @@
+package it.gov.pagopa.register.service.consumer;
+
+import it.gov.pagopa.register.model.operation.ProductFile;
+import it.gov.pagopa.register.repository.operation.ProductFileCheckpointRepository;
+import it.gov.pagopa.register.repository.operation.ProductFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFileAbandonServiceTest {
+
+  private static final String SUBJECT = "/blobs/CSV/ORG1/ORGNAME/WASHINGMACHINES/file1.csv";
+
+  @Mock
+  private ProductFileRepository productFileRepository;
+  @Mock
+  private ProductFileCheckpointRepository productFileCheckpointRepository;
+
+  private ProductFileAbandonService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new ProductFileAbandonService(productFileRepository, productFileCheckpointRepository);
+  }
+
+  @Test
+  void abandon_shouldSetInProcessFilePartialAndDeleteCheckpoint() {
+    ProductFile inProcess = ProductFile.builder().id("file1").uploadStatus("IN_PROCESS").addedProductNumber(3).build();
+    when(productFileRepository.findById("file1")).thenReturn(Optional.of(inProcess));
+
+    service.abandon(SUBJECT);
+
+    verify(productFileCheckpointRepository).deleteById("file1");
+    verify(productFileRepository).save(inProcess);
+    assertEquals("PARTIAL", inProcess.getUploadStatus());
+    assertEquals(0, inProcess.getAddedProductNumber());
+  }
+
+  @Test
+  void abandon_shouldKeepFinalStatus() {
+    ProductFile loaded = ProductFile.builder().id("file1").uploadStatus("LOADED").addedProductNumber(3).build();
+    when(productFileRepository.findById("file1")).thenReturn(Optional.of(loaded));
+
+    service.abandon(SUBJECT);
+
+    verify(productFileRepository, never()).save(any());
+    assertEquals("LOADED", loaded.getUploadStatus());
+  }
+
+  @Test
+  void abandon_shouldIgnoreInvalidSubject() {
+    service.abandon("invalid");
+
+    verifyNoInteractions(productFileRepository, productFileCheckpointRepository);
+  }
+
+  @Test
+  void abandon_shouldNotPropagateRepositoryErrors() {
+    when(productFileRepository.findById("file1")).thenThrow(new IllegalStateException("mongo down"));
+
+    service.abandon(SUBJECT);
+
+    verify(productFileCheckpointRepository).deleteById("file1");
+  }
+}
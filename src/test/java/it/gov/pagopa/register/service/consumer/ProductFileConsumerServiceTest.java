@@ -1,34 +1,39 @@
 package it.gov.pagopa.register.service.consumer;
 
 import com.azure.storage.blob.models.BlobStorageException;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import it.gov.pagopa.register.connector.notification.NotificationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.common.mongo.bulk.MongoBulkUpserter;
+import it.gov.pagopa.common.storage.AzureBlobClient;
 import it.gov.pagopa.register.connector.storage.FileStorageClient;
 import it.gov.pagopa.register.dto.operation.StorageEventDTO;
 import it.gov.pagopa.register.dto.operation.StorageEventDTO.StorageEventData;
 import it.gov.pagopa.register.dto.utils.ProductValidationResult;
-import it.gov.pagopa.register.event.producer.ProductFileProducer;
 import it.gov.pagopa.register.exception.operation.EprelException;
 import it.gov.pagopa.register.model.operation.Product;
 import it.gov.pagopa.register.model.operation.ProductFile;
+import it.gov.pagopa.register.model.operation.ProductFileCheckpoint;
+import it.gov.pagopa.register.repository.operation.ProductFileCheckpointRepository;
 import it.gov.pagopa.register.repository.operation.ProductFileRepository;
 import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.metrics.ProductIngestMetrics;
+import it.gov.pagopa.register.service.notification.NotificationOutboxService;
 import it.gov.pagopa.register.service.validator.CookinghobsValidatorService;
 import it.gov.pagopa.register.service.validator.EprelProductValidatorService;
-import it.gov.pagopa.register.utils.CsvUtils;
 import it.gov.pagopa.register.dto.utils.EventDetails;
 import org.apache.commons.csv.CSVRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -43,7 +48,6 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 class ProductFileConsumerServiceTest {
 
-  @InjectMocks
   private ProductFileConsumerService service;
 
   @Mock
@@ -59,11 +63,18 @@ class ProductFileConsumerServiceTest {
   @Mock
   private ObjectMapper objectMapper;
   @Mock
-  private NotificationServiceImpl notificationService;
+  private NotificationOutboxService notificationOutboxService;
   @Mock
-  private ProductFileProducer productFileProducer;
+  private EprelPendingEventService eprelPendingEventService;
   @Mock
-  private ConsumerControlService consumerControlService;
+  private ProductFileAbandonService productFileAbandonService;
+  @Mock
+  private ProductFileCheckpointRepository productFileCheckpointRepository;
+  @Mock
+  private MongoBulkUpserter mongoBulkUpserter;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ProductIngestMetrics productIngestMetrics = new ProductIngestMetrics(meterRegistry);
 
   private static final String ORG_ID = "ORG123";
   private static final String PRODUCT_FILE_ID = "file123";
@@ -82,9 +93,14 @@ class ProductFileConsumerServiceTest {
       productFileRepository,
       eprelProductValidator,
       cookinghobsValidatorService,
-      notificationService,
-      productFileProducer,
-      consumerControlService);
+      notificationOutboxService,
+      eprelPendingEventService,
+      productFileAbandonService,
+      productFileCheckpointRepository,
+      mongoBulkUpserter,
+      productIngestMetrics,
+      500,
+      4);
   }
 
 
@@ -98,11 +114,9 @@ class ProductFileConsumerServiceTest {
       .subject("/blobs/CSV/ORG123/ORGNAME/COOKINGHOBS/file123.csv")
       .data(data)
       .build();
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    when(fileStorageClient.download(anyString())).thenReturn(stream);
+    when(fileStorageClient.openInputStream(anyString())).thenReturn(csvStream("HEADER\nvalue"));
     when(productFileRepository.findById(anyString()))
       .thenReturn(Optional.of(new ProductFile()));
-    when(productRepository.saveAll(any())).thenReturn(List.of());
     Map<String, Product> validRecords = new HashMap<>();
     validRecords.put("model123", new Product());
 
@@ -112,14 +126,8 @@ class ProductFileConsumerServiceTest {
     when(cookinghobsValidatorService.validateRecords(any(), any(), any(), any(), any()))
       .thenReturn(new ProductValidationResult(validRecords, invalidRecords, errorMessages));
 
-    try (MockedStatic<CsvUtils> utils = mockStatic(CsvUtils.class)) {
-      CSVRecord csvRecord = mock(CSVRecord.class);
-      utils.when(() -> CsvUtils.readHeader(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of("HEADER"));
-      utils.when(() -> CsvUtils.readCsvRecords(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of(csvRecord));
-      assertDoesNotThrow(() -> service.execute(List.of(event), null));
-    }}
+    assertDoesNotThrow(() -> service.execute(List.of(event), null));
+  }
 
 
   @Test
@@ -131,11 +139,9 @@ class ProductFileConsumerServiceTest {
       .subject("/blobs/CSV/ORG123/ORGNAME/WASHINGMACHINES/file123.csv")
       .data(data)
       .build();
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    when(fileStorageClient.download(anyString())).thenReturn(stream);
+    when(fileStorageClient.openInputStream(anyString())).thenReturn(csvStream("HEADER\nvalue"));
     when(productFileRepository.findById(anyString()))
       .thenReturn(Optional.of(new ProductFile()));
-    when(productRepository.saveAll(any())).thenReturn(List.of());
     Map<String, Product> validRecords = new HashMap<>();
     validRecords.put("model123", new Product());
 
@@ -145,14 +151,8 @@ class ProductFileConsumerServiceTest {
     when(eprelProductValidator.validateRecords(any(), any(), any(), any(), any(), any(),any()))
       .thenReturn(new ProductValidationResult(validRecords, invalidRecords, errorMessages));
 
-    try (MockedStatic<CsvUtils> utils = mockStatic(CsvUtils.class)) {
-      CSVRecord csvRecord = mock(CSVRecord.class);
-      utils.when(() -> CsvUtils.readHeader(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of("HEADER"));
-      utils.when(() -> CsvUtils.readCsvRecords(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of(csvRecord));
-      assertDoesNotThrow(() -> service.execute(List.of(event), null));
-    }}
+    assertDoesNotThrow(() -> service.execute(List.of(event), null));
+  }
 
   @Test
   void testExecute_validEvent_shouldProcessFile_butThrowEprelError() {
@@ -163,52 +163,17 @@ class ProductFileConsumerServiceTest {
       .subject("/blobs/CSV/ORG123/ORGNAME/WASHINGMACHINES/file123.csv")
       .data(data)
       .build();
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    when(fileStorageClient.download(anyString())).thenReturn(stream);
+    when(fileStorageClient.openInputStream(anyString())).thenReturn(csvStream("HEADER\nvalue"));
     when(productFileRepository.findById(anyString()))
       .thenReturn(Optional.of(new ProductFile()));
     when(eprelProductValidator.validateRecords(any(), any(), any(), any(), any(), any(),any()))
       .thenThrow(new EprelException("Erorr"));
-    try (MockedStatic<CsvUtils> utils = mockStatic(CsvUtils.class)) {
-      CSVRecord csvRecord = mock(CSVRecord.class);
-      utils.when(() -> CsvUtils.readHeader(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of("HEADER"));
-      utils.when(() -> CsvUtils.readCsvRecords(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of(csvRecord));
-    }
 
     service.execute(List.of(event), null);
-    verify(consumerControlService).stopConsumer();
-    verify(consumerControlService).startEprelHealthCheck();
+    verify(eprelPendingEventService).park(List.of(event));
+    verify(productFileCheckpointRepository, never()).deleteById(any());
   }
 
-  @Test
-  void testExecute_validEvent_shouldProcessFile_butThrowEprelErrorAndJSONException() throws JsonProcessingException {
-    StorageEventData data = StorageEventData.builder()
-      .url("/CSV/ORG123/ORGNAME/WASHINGMACHINES/file123.csv")
-      .build();
-    StorageEventDTO event = StorageEventDTO.builder()
-      .subject("/blobs/CSV/ORG123/ORGNAME/WASHINGMACHINES/file123.csv")
-      .data(data)
-      .build();
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    when(fileStorageClient.download(anyString())).thenReturn(stream);
-    when(productFileRepository.findById(anyString()))
-      .thenReturn(Optional.of(new ProductFile()));
-    when(eprelProductValidator.validateRecords(any(), any(), any(), any(), any(), any(),any()))
-      .thenThrow(new EprelException("Erorr"));
-    when(objectMapper.writeValueAsString(any())).thenThrow(new JsonProcessingException("Error during serialization") {});
-    try (MockedStatic<CsvUtils> utils = mockStatic(CsvUtils.class)) {
-      CSVRecord csvRecord = mock(CSVRecord.class);
-      utils.when(() -> CsvUtils.readHeader(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of("HEADER"));
-      utils.when(() -> CsvUtils.readCsvRecords(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of(csvRecord));
-    }
-
-    service.execute(List.of(event), null);
-    verify(consumerControlService).stopConsumer();
-  }
   @Test
   void testExecute_validEvent_shouldProcessFile_Eprel_InvalidRecords() {
     StorageEventData data = StorageEventData.builder()
@@ -218,11 +183,9 @@ class ProductFileConsumerServiceTest {
       .subject("/blobs/CSV/ORG123/ORGNAME/WASHINGMACHINES/file123.csv")
       .data(data)
       .build();
-    ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    when(fileStorageClient.download(anyString())).thenReturn(stream);
+    when(fileStorageClient.openInputStream(anyString())).thenReturn(csvStream("HEADER\nvalue"));
     when(productFileRepository.findById(anyString()))
       .thenReturn(Optional.of(new ProductFile()));
-    when(productRepository.saveAll(any())).thenReturn(List.of());
     Map<String, Product> validRecords = new HashMap<>();
     validRecords.put("model123", new Product());
 
@@ -235,14 +198,55 @@ class ProductFileConsumerServiceTest {
     when(eprelProductValidator.validateRecords(any(), any(), any(), any(), any(), any(),any()))
       .thenReturn(new ProductValidationResult(validRecords, invalidRecords, errorMessages));
 
-    try (MockedStatic<CsvUtils> utils = mockStatic(CsvUtils.class)) {
-      CSVRecord csvRecord = mock(CSVRecord.class);
-      utils.when(() -> CsvUtils.readHeader(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of("HEADER"));
-      utils.when(() -> CsvUtils.readCsvRecords(any(ByteArrayOutputStream.class)))
-        .thenReturn(List.of(csvRecord));
-      assertDoesNotThrow(() -> service.execute(List.of(event), null));
-    }}
+    assertDoesNotThrow(() -> service.execute(List.of(event), null));
+  }
+
+  @Test
+  void testExecute_multipleOrganizations_shouldParkFailedOrganizationEventsInOrder() {
+    StorageEventDTO org1First = cookinghobsEvent("ORG1", "file1");
+    StorageEventDTO org2 = cookinghobsEvent("ORG2", "file2");
+    StorageEventDTO org1Second = cookinghobsEvent("ORG1", "file3");
+    when(fileStorageClient.openInputStream(anyString())).thenAnswer(invocation -> csvStream("HEADER\nvalue"));
+    when(productFileRepository.findById(anyString())).thenReturn(Optional.of(new ProductFile()));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), eq("file1"), any(), any()))
+      .thenThrow(new EprelException("Error"));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), eq("file2"), any(), any()))
+      .thenReturn(new ProductValidationResult(Map.of("gtin", new Product()), new ArrayList<>(), new HashMap<>()));
+
+    service.execute(List.of(org1First, org2, org1Second), null);
+
+    verify(eprelPendingEventService).park(List.of(org1First, org1Second));
+    verify(cookinghobsValidatorService, never()).validateRecords(any(), any(), eq("file3"), any(), any());
+    verify(mongoBulkUpserter).upsertAll(any(), eq(Product.class), any());
+  }
+
+  @Test
+  void testExecute_unexpectedError_shouldAbandonFileAndGoOn() {
+    StorageEventDTO failing = cookinghobsEvent("ORG1", "file1");
+    StorageEventDTO next = cookinghobsEvent("ORG1", "file2");
+    when(fileStorageClient.openInputStream(anyString())).thenAnswer(invocation -> csvStream("HEADER\nvalue"));
+    when(productFileRepository.findById("file1")).thenReturn(Optional.of(new ProductFile()));
+    when(productFileRepository.findById("file2")).thenReturn(Optional.of(new ProductFile()));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), eq("file1"), any(), any()))
+      .thenThrow(new IllegalStateException("boom"));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), eq("file2"), any(), any()))
+      .thenReturn(new ProductValidationResult(Map.of("gtin", new Product()), new ArrayList<>(), new HashMap<>()));
+
+    service.execute(List.of(failing, next), null);
+
+    verify(productFileAbandonService).abandon(failing.getSubject());
+    verify(productFileAbandonService, never()).abandon(next.getSubject());
+    verify(cookinghobsValidatorService).validateRecords(any(), any(), eq("file2"), any(), any());
+    verify(eprelPendingEventService, never()).park(any());
+  }
+
+  private static StorageEventDTO cookinghobsEvent(String orgId, String fileId) {
+    String path = "/CSV/" + orgId + "/ORGNAME/COOKINGHOBS/" + fileId + ".csv";
+    return StorageEventDTO.builder()
+      .subject("/blobs" + path)
+      .data(StorageEventData.builder().url(path).build())
+      .build();
+  }
 
   @Test
   void testExtractBlobPath_invalidUrl_shouldReturnNull() {
@@ -275,7 +279,7 @@ class ProductFileConsumerServiceTest {
 
   @Test
   void testProcessFileFromStorage_downloadThrowsException_setsEprelError() {
-    when(fileStorageClient.download(anyString())).thenThrow(new BlobStorageException(null,null,null));
+    when(fileStorageClient.openInputStream(anyString())).thenThrow(new BlobStorageException(null,null,null));
     when(productFileRepository.findById(anyString()))
       .thenReturn(Optional.of(new ProductFile()));
 
@@ -290,7 +294,7 @@ class ProductFileConsumerServiceTest {
 
   @Test
   void testProcessFileFromStorage_downloadReturnsNull_setsEprelError() {
-    when(fileStorageClient.download(anyString())).thenReturn(null);
+    when(fileStorageClient.openInputStream(anyString())).thenReturn(null);
     when(productFileRepository.findById(anyString()))
       .thenReturn(Optional.of(new ProductFile()));
 
@@ -337,14 +341,104 @@ class ProductFileConsumerServiceTest {
 
   @Test
   void testProcessCsvFromStorage_withExceptionInCsvParsing() {
-    ByteArrayOutputStream csvContent = new ByteArrayOutputStream();
+    InputStream csvContent = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("CSV read error");
+      }
+    };
+    when(productFileRepository.findById(PRODUCT_FILE_ID)).thenReturn(Optional.of(new ProductFile()));
+
+    assertDoesNotThrow(() -> service.processCsvFromStorage(csvContent, PRODUCT_FILE_ID, "OTHER", ORG_ID, "ORG_NAME"));
+    verify(productFileRepository, times(2)).save(any());
+  }
 
-    try (MockedStatic<CsvUtils> utils = mockStatic(CsvUtils.class)) {
-      utils.when(() -> CsvUtils.readHeader(any(ByteArrayOutputStream.class)))
-        .thenThrow(new IOException("CSV read error"));
+  @Test
+  void testProcessCsvFromStorage_unexpectedError_shouldDeleteCheckpoint() {
+    when(productFileRepository.findById(PRODUCT_FILE_ID)).thenReturn(Optional.of(new ProductFile()));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), any(), any(), any()))
+      .thenThrow(new IllegalStateException("boom"));
+
+    InputStream csvContent = csvStream("GTIN\n1");
+    assertThrows(IllegalStateException.class,
+      () -> service.processCsvFromStorage(csvContent, PRODUCT_FILE_ID, "COOKINGHOBS", ORG_ID, "ORG_NAME"));
+    verify(productFileCheckpointRepository).deleteById(PRODUCT_FILE_ID);
+  }
+
+  @Test
+  void testProcessCsvFromStorage_shouldValidateAndSaveInChunks() {
+    service = new ProductFileConsumerService(
+      "test-app",
+      productRepository,
+      fileStorageClient,
+      objectMapper,
+      productFileRepository,
+      eprelProductValidator,
+      cookinghobsValidatorService,
+      notificationOutboxService,
+      eprelPendingEventService,
+      productFileAbandonService,
+      productFileCheckpointRepository,
+      mongoBulkUpserter,
+      productIngestMetrics,
+      2,
+      4);
+    when(productFileRepository.findById(PRODUCT_FILE_ID)).thenReturn(Optional.of(new ProductFile()));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), any(), any(), any()))
+      .thenAnswer(invocation -> {
+        List<CSVRecord> chunk = invocation.getArgument(0);
+        Map<String, Product> validRecords = new LinkedHashMap<>();
+        chunk.forEach(csvRecord -> validRecords.put(csvRecord.get("GTIN"), new Product()));
+        return new ProductValidationResult(validRecords, new ArrayList<>(), new HashMap<>());
+      });
+
+    service.processCsvFromStorage(csvStream("GTIN\n1\n2\n3"), PRODUCT_FILE_ID, "COOKINGHOBS", ORG_ID, "ORG_NAME");
+
+    verify(cookinghobsValidatorService, times(2)).validateRecords(any(), any(), any(), any(), any());
+    verify(mongoBulkUpserter, times(2)).upsertAll(any(), eq(Product.class), any());
+    verify(notificationOutboxService).enqueueUploadOk(eq(PRODUCT_FILE_ID), any(), any());
+    verify(productFileCheckpointRepository).save(argThat(checkpoint -> checkpoint.getProcessedRecords() == 2));
+    verify(productFileCheckpointRepository).deleteById(PRODUCT_FILE_ID);
+    assertEquals(2, meterRegistry.get(ProductIngestMetrics.STAGE_TIMER)
+      .tags("stage", "save", "category", "COOKINGHOBS", "outcome", "success").timer().count());
+    assertEquals(2, meterRegistry.get(ProductIngestMetrics.STAGE_TIMER)
+      .tags("stage", "parse", "category", "COOKINGHOBS").timer().count());
+    assertEquals(3, meterRegistry.get(ProductIngestMetrics.RECORDS_COUNTER)
+      .tags("category", "COOKINGHOBS", "outcome", "valid").counter().count());
+  }
+
+  @Test
+  void testProcessCsvFromStorage_shouldResumeFromCheckpoint() throws IOException {
+    when(productFileRepository.findById(PRODUCT_FILE_ID)).thenReturn(Optional.of(new ProductFile()));
+    when(productFileCheckpointRepository.findById(PRODUCT_FILE_ID)).thenReturn(Optional.of(ProductFileCheckpoint.builder()
+      .id(PRODUCT_FILE_ID)
+      .processedRecords(2)
+      .savedProducts(1)
+      .savedGtins(Set.of("1"))
+      .invalidRecords(List.of(new ProductFileCheckpoint.InvalidRecord(List.of("2"), "Error")))
+      .build()));
+    when(cookinghobsValidatorService.validateRecords(any(), any(), any(), any(), any()))
+      .thenAnswer(invocation -> {
+        List<CSVRecord> chunk = invocation.getArgument(0);
+        assertEquals(List.of("3"), chunk.stream().map(csvRecord -> csvRecord.get("GTIN")).toList());
+        return new ProductValidationResult(Map.of("3", new Product()), new ArrayList<>(), new HashMap<>());
+      });
+
+    service.processCsvFromStorage(csvStream("GTIN\n1\n2\n3"), PRODUCT_FILE_ID, "COOKINGHOBS", ORG_ID, "ORG_NAME");
+
+    verify(cookinghobsValidatorService, times(1)).validateRecords(any(), any(), any(), any(), any());
+    ArgumentCaptor<AzureBlobClient.BlobContentWriter> report = ArgumentCaptor.forClass(AzureBlobClient.BlobContentWriter.class);
+    verify(fileStorageClient).upload(report.capture(), eq("Report/Partial/" + PRODUCT_FILE_ID + ".csv"), eq("text/csv"));
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    report.getValue().writeTo(content);
+    assertTrue(content.toString(StandardCharsets.UTF_8).contains("Error"));
+    verify(notificationOutboxService).enqueueUploadPartial(eq(PRODUCT_FILE_ID), any(), any());
+    verify(productFileRepository, atLeastOnce()).save(argThat(productFile -> Integer.valueOf(2).equals(productFile.getAddedProductNumber())));
+    verify(productFileCheckpointRepository).deleteById(PRODUCT_FILE_ID);
+  }
 
-      assertDoesNotThrow(() -> service.processCsvFromStorage(csvContent, PRODUCT_FILE_ID, "OTHER", ORG_ID, "ORG_NAME"));
-    }
+  private static InputStream csvStream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
   }
 
   @Test
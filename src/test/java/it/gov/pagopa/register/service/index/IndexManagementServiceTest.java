@@ -0,0 +1,103 @@
+package it.gov.pagopa.register.service.index;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IndexManagementServiceTest {
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+  @Mock
+  private IndexOperations indexOperations;
+
+  @Test
+  void ensureIndexes_shouldEnsureEveryDeclaredIndex() {
+    when(mongoTemplate.indexOps(anyString())).thenReturn(indexOperations);
+    when(indexOperations.createIndex(any(IndexDefinition.class))).thenReturn("idx");
+
+    List<String> ensured = new IndexManagementService(mongoTemplate, true).ensureIndexes();
+
+    assertEquals(IndexManagementService.DECLARED_INDEXES.size(), ensured.size());
+    verify(mongoTemplate, atLeastOnce()).indexOps("product");
+    verify(mongoTemplate, atLeastOnce()).indexOps("product_file");
+    verify(mongoTemplate).indexOps("eprel_cache");
+  }
+
+  @Test
+  void ensureIndexes_failure_shouldGoOnWithTheOthers() {
+    when(mongoTemplate.indexOps(anyString())).thenReturn(indexOperations);
+    when(indexOperations.createIndex(any(IndexDefinition.class)))
+      .thenThrow(new IllegalStateException("unsupported"))
+      .thenReturn("idx");
+
+    List<String> ensured = new IndexManagementService(mongoTemplate, true).ensureIndexes();
+
+    assertEquals(IndexManagementService.DECLARED_INDEXES.size() - 1, ensured.size());
+  }
+
+  @Test
+  void onApplicationReady_disabled_shouldNotEnsure() {
+    new IndexManagementService(mongoTemplate, false).onApplicationReady();
+
+    verifyNoInteractions(mongoTemplate);
+  }
+
+  @Test
+  void ttlIndexes_shouldBeOnTheCosmosTimestamp() {
+    for (String collection : List.of("eprel_cache", "notification_outbox")) {
+      IndexDefinition ttlIndex = IndexManagementService.DECLARED_INDEXES.stream()
+        .filter(declaration -> collection.equals(declaration.collection()))
+        .map(IndexManagementService.IndexDeclaration::index)
+        .filter(index -> index.getIndexOptions().containsKey("expireAfterSeconds"))
+        .findFirst().orElseThrow();
+
+      assertEquals(new Document("_ts", 1), ttlIndex.getIndexKeys());
+      assertEquals(Duration.ofDays(7).toSeconds(), ttlIndex.getIndexOptions().get("expireAfterSeconds"));
+    }
+  }
+
+  // Without a database to explain() the queries on, each repository query shape is checked to be served by a
+  // declared index: the equality fields as a prefix, followed by the sort fields
+  @Test
+  void queryShapes_shouldBeCoveredByADeclaredIndex() {
+    assertCovered("product", List.of("organizationId"), List.of("registrationDate", "_id"));
+    assertCovered("product", List.of("status"), List.of("registrationDate", "_id"));
+    assertCovered("product", List.of("organizationId", "status"), List.of());
+    assertCovered("product", List.of("organizationId", "category"), List.of());
+    assertCovered("product", List.of("organizationId", "productFileId"), List.of());
+    assertCovered("product", List.of("productFileId"), List.of());
+    assertCovered("product", List.of("searchTokens"), List.of());
+    assertCovered("product", List.of(), List.of("energyRank", "_id"));
+    assertCovered("product", List.of(), List.of("categoryIt", "productFileId", "_id"));
+    assertCovered("product", List.of(), List.of("brand_lower", "_id"));
+    assertCovered("product_file", List.of("organizationId", "uploadStatus"), List.of());
+    assertCovered("product_file", List.of("organizationId"), List.of("dateUpload"));
+    assertCovered("notification_outbox", List.of("state"), List.of("nextAttemptAt"));
+  }
+
+  private static void assertCovered(String collection, List<String> equalities, List<String> sort) {
+    boolean covered = IndexManagementService.DECLARED_INDEXES.stream()
+      .filter(declaration -> collection.equals(declaration.collection()))
+      .map(declaration -> new ArrayList<>(declaration.index().getIndexKeys().keySet()))
+      .anyMatch(keys -> keys.size() >= equalities.size() + sort.size()
+        && keys.subList(0, equalities.size()).containsAll(equalities)
+        && keys.subList(equalities.size(), equalities.size() + sort.size()).equals(sort));
+    assertTrue(covered, () -> "No index on " + collection + " for " + equalities + " sorted by " + sort);
+  }
+}
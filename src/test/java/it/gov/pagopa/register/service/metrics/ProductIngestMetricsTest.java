@@ -0,0 +1,37 @@
+package it.gov.pagopa.register.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static it.gov.pagopa.register.service.metrics.ProductIngestMetrics.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductIngestMetricsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ProductIngestMetrics productIngestMetrics = new ProductIngestMetrics(meterRegistry);
+
+  @Test
+  void record_shouldTagStageCategoryAndOutcome() {
+    assertEquals("ok", productIngestMetrics.record(STAGE_DB_LOOKUP, "washingmachines", () -> "ok"));
+    assertThrows(IllegalStateException.class, () -> productIngestMetrics.record(STAGE_EPREL_LOOKUP, "WASHINGMACHINES",
+      () -> {
+        throw new IllegalStateException("EPREL down");
+      }));
+
+    assertEquals(1, meterRegistry.get(STAGE_TIMER)
+      .tags("stage", STAGE_DB_LOOKUP, "category", "WASHINGMACHINES", "outcome", OUTCOME_SUCCESS).timer().count());
+    assertEquals(1, meterRegistry.get(STAGE_TIMER)
+      .tags("stage", STAGE_EPREL_LOOKUP, "category", "WASHINGMACHINES", "outcome", OUTCOME_ERROR).timer().count());
+  }
+
+  @Test
+  void countRecords_unknownCategory_shouldBeGrouped() {
+    productIngestMetrics.countRecords("not-a-category", OUTCOME_INVALID, 3);
+    productIngestMetrics.countRecords(null, OUTCOME_INVALID, 2);
+    productIngestMetrics.countRecords("OVENS", OUTCOME_VALID, 0);
+
+    assertEquals(5, meterRegistry.get(RECORDS_COUNTER).tags("category", "other", "outcome", OUTCOME_INVALID).counter().count());
+    assertTrue(meterRegistry.find(RECORDS_COUNTER).tags("category", "OVENS").counters().isEmpty());
+  }
+}
@@ -0,0 +1,73 @@
+package it.gov.pagopa.register.service.notification;
+
+import it.gov.pagopa.register.connector.notification.NotificationService;
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+  @Mock
+  private NotificationOutboxService notificationOutboxService;
+  @Mock
+  private NotificationService notificationService;
+
+  private NotificationDispatcher dispatcher;
+
+  @BeforeEach
+  void setUp() {
+    dispatcher = new NotificationDispatcher(notificationOutboxService, notificationService, true, Duration.ofSeconds(2), 2);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  void drain_shouldSendEveryDueEntry() {
+    NotificationOutboxEntry ok = NotificationOutboxEntry.builder().id("1")
+      .type(NotificationOutboxEntry.Type.UPLOAD_OK).fileName("f.csv").recipientEmail("a@mail.it").build();
+    NotificationOutboxEntry update = NotificationOutboxEntry.builder().id("2")
+      .type(NotificationOutboxEntry.Type.UPDATE_STATUS).products(List.of("n1")).status("REJECTED")
+      .formalMotivation("FORMAL").recipientEmail("b@mail.it").build();
+    when(notificationOutboxService.claimNext()).thenReturn(ok, update, null);
+
+    dispatcher.drain();
+
+    verify(notificationService, timeout(5000)).sendEmailOk("f.csv", "a@mail.it");
+    verify(notificationService, timeout(5000)).sendEmailUpdateStatus(List.of("n1"), "FORMAL", "REJECTED", "b@mail.it");
+    verify(notificationOutboxService, timeout(5000).times(2)).markSent(any());
+  }
+
+  @Test
+  void send_failure_shouldScheduleRetry() {
+    NotificationOutboxEntry partial = NotificationOutboxEntry.builder().id("1")
+      .type(NotificationOutboxEntry.Type.UPLOAD_PARTIAL).fileName("f.csv").recipientEmail("a@mail.it").build();
+    doThrow(new RuntimeException("timeout")).when(notificationService).sendEmailPartial("f.csv", "a@mail.it");
+
+    dispatcher.send(partial);
+
+    verify(notificationOutboxService).markFailed(partial, "timeout");
+    verify(notificationOutboxService, never()).markSent(any());
+  }
+
+  @Test
+  void drain_outboxUnavailable_shouldStopUntilNextPoll() {
+    when(notificationOutboxService.claimNext()).thenThrow(new IllegalStateException("down"));
+
+    dispatcher.drain();
+
+    verifyNoInteractions(notificationService);
+  }
+}
@@ -0,0 +1,139 @@
+package it.gov.pagopa.register.service.notification;
+
+import it.gov.pagopa.register.model.operation.NotificationOutboxEntry;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationOutboxServiceTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  private NotificationOutboxService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new NotificationOutboxService(mongoTemplate, Duration.ofMinutes(2), Duration.ofSeconds(30),
+      Duration.ofMinutes(5), 3, Duration.ofDays(7), Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void enqueueUpdateStatus_shouldInsertPendingEntryKeyedByTransitionAndRecipient() {
+    service.enqueueUpdateStatus("t1", List.of("n1"), "FORMAL", "REJECTED", "a@mail.it");
+
+    ArgumentCaptor<NotificationOutboxEntry> captor = ArgumentCaptor.forClass(NotificationOutboxEntry.class);
+    verify(mongoTemplate).insert(captor.capture());
+    NotificationOutboxEntry entry = captor.getValue();
+    assertEquals("UPDATE_STATUS:t1:a@mail.it", entry.getId());
+    assertEquals(NotificationOutboxEntry.State.PENDING, entry.getState());
+    assertEquals(NOW, entry.getNextAttemptAt());
+    assertEquals(List.of("n1"), entry.getProducts());
+    assertEquals(NotificationOutboxEntry.NEVER_EXPIRES, entry.getTtl());
+  }
+
+  @Test
+  void enqueueUploadOk_alreadyEnqueued_shouldBeIgnored() {
+    when(mongoTemplate.insert(any(NotificationOutboxEntry.class))).thenThrow(new DuplicateKeyException("dup"));
+
+    assertDoesNotThrow(() -> service.enqueueUploadOk("file1", "Lavatrici_file1.csv", "a@mail.it"));
+  }
+
+  @Test
+  void claimNext_shouldLeaseTheDueEntry() {
+    NotificationOutboxEntry entry = NotificationOutboxEntry.builder().id("k").build();
+    when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+      eq(NotificationOutboxEntry.class))).thenReturn(entry);
+
+    assertSame(entry, service.claimNext());
+
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).findAndModify(any(Query.class), updateCaptor.capture(), any(FindAndModifyOptions.class),
+      eq(NotificationOutboxEntry.class));
+    Document set = updateCaptor.getValue().getUpdateObject().get("$set", Document.class);
+    assertEquals(NotificationOutboxEntry.State.SENDING, set.get("state"));
+    assertEquals(NOW.plus(Duration.ofMinutes(2)), toInstant(set.get("nextAttemptAt")));
+  }
+
+  @Test
+  void markSent_shouldUpdateOnlyTheLeasedEntry() {
+    Instant leasedUntil = NOW.plus(Duration.ofMinutes(2));
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(NotificationOutboxEntry.class)))
+      .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    service.markSent(NotificationOutboxEntry.builder().id("k").state(NotificationOutboxEntry.State.SENDING)
+      .nextAttemptAt(leasedUntil).build());
+
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateFirst(queryCaptor.capture(), updateCaptor.capture(), eq(NotificationOutboxEntry.class));
+    Document query = queryCaptor.getValue().getQueryObject();
+    assertEquals("k", query.get("id"));
+    assertEquals(NotificationOutboxEntry.State.SENDING, query.get("state"));
+    assertEquals(leasedUntil, toInstant(query.get("nextAttemptAt")));
+    assertEquals(NotificationOutboxEntry.State.SENT, updateCaptor.getValue().getUpdateObject().get("$set", Document.class).get("state"));
+  }
+
+  @Test
+  void markSent_leaseExpired_shouldNotThrow() {
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(NotificationOutboxEntry.class)))
+      .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+    assertDoesNotThrow(() -> service.markSent(NotificationOutboxEntry.builder().id("k").nextAttemptAt(NOW).build()));
+  }
+
+  @Test
+  void markFailed_shouldRetryWithBackoffThenGiveUp() {
+    when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(NotificationOutboxEntry.class)))
+      .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    service.markFailed(NotificationOutboxEntry.builder().id("k").attempts(1).build(), "boom");
+    service.markFailed(NotificationOutboxEntry.builder().id("k").attempts(2).build(), "boom");
+
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updateCaptor.capture(), eq(NotificationOutboxEntry.class));
+    Document retry = updateCaptor.getAllValues().get(0).getUpdateObject().get("$set", Document.class);
+    assertEquals(NotificationOutboxEntry.State.PENDING, retry.get("state"));
+    assertEquals(NOW.plusSeconds(60), toInstant(retry.get("nextAttemptAt")));
+    Document givenUp = updateCaptor.getAllValues().get(1).getUpdateObject().get("$set", Document.class);
+    assertEquals(NotificationOutboxEntry.State.FAILED, givenUp.get("state"));
+    assertEquals((int) Duration.ofDays(7).toSeconds(), givenUp.get("ttl"));
+    assertFalse(retry.containsKey("ttl"));
+  }
+
+  @Test
+  void backoff_shouldDoubleUpToTheMaximum() {
+    assertEquals(Duration.ofSeconds(30), service.backoff(1));
+    assertEquals(Duration.ofSeconds(120), service.backoff(3));
+    assertEquals(Duration.ofMinutes(5), service.backoff(10));
+  }
+
+  private static Instant toInstant(Object value) {
+    return value instanceof Date date ? date.toInstant() : (Instant) value;
+  }
+}
@@ -0,0 +1,58 @@
+package it.gov.pagopa.register.service.operation;
+
+import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.utils.ProductSortKeys;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBackfillServiceTest {
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+  @Mock
+  private BulkOperations bulkOperations;
+
+  @Test
+  void backfill_shouldWriteTokensAndSortKeysBatchByBatch() {
+    ProductBackfillService service = new ProductBackfillService(mongoTemplate, true, 2);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+      .thenReturn(List.of(Product.builder().gtinCode("1").brand("Bosch").build(), Product.builder().gtinCode("2").build()))
+      .thenReturn(List.of(Product.builder().gtinCode("3").model("XYZ").build()));
+    when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulkOperations);
+
+    long updated = service.backfill();
+
+    assertEquals(3, updated);
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(bulkOperations, times(3)).updateOne(any(Query.class), updateCaptor.capture());
+    Document firstUpdate = updateCaptor.getAllValues().getFirst().getUpdateObject().get("$set", Document.class);
+    assertEquals("bosch", firstUpdate.get("brand_lower"));
+    assertEquals(ProductSortKeys.DEFAULT_ENERGY_RANK, firstUpdate.get("energyRank"));
+    verify(bulkOperations, times(2)).execute();
+  }
+
+  @Test
+  void backfill_nothingToDo_shouldNotWrite() {
+    ProductBackfillService service = new ProductBackfillService(mongoTemplate, true, 2);
+    when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(List.of());
+
+    assertEquals(0, service.backfill());
+    verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class));
+  }
+}
@@ -0,0 +1,66 @@
+package it.gov.pagopa.register.service.operation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCountCacheTest {
+
+  private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+
+  @Test
+  void count_sameCriteria_shouldCountOnce() {
+    ProductCountCache cache = new ProductCountCache(Duration.ofSeconds(30), 10, Clock.fixed(NOW, ZoneOffset.UTC));
+    AtomicLong calls = new AtomicLong();
+
+    assertEquals(7, cache.count(Criteria.where("brand").is("B"), () -> { calls.incrementAndGet(); return 7; }));
+    assertEquals(7, cache.count(Criteria.where("brand").is("B"), () -> { calls.incrementAndGet(); return 8; }));
+    assertEquals(9, cache.count(Criteria.where("brand").is("C"), () -> { calls.incrementAndGet(); return 9; }));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void count_expiredEntry_shouldCountAgain() {
+    AtomicReference<Instant> now = new AtomicReference<>(NOW);
+    Clock clock = new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return now.get();
+      }
+    };
+    ProductCountCache cache = new ProductCountCache(Duration.ofSeconds(30), 10, clock);
+    cache.count(new Criteria(), () -> 1);
+
+    now.set(NOW.plusSeconds(31));
+
+    assertEquals(2, cache.count(new Criteria(), () -> 2));
+  }
+
+  @Test
+  void count_zeroTtl_shouldNotCache() {
+    ProductCountCache cache = new ProductCountCache(Duration.ZERO, 10, Clock.fixed(NOW, ZoneOffset.UTC));
+    cache.count(new Criteria(), () -> 1);
+
+    assertEquals(2, cache.count(new Criteria(), () -> 2));
+  }
+}
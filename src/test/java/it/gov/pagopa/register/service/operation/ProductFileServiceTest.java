@@ -1,5 +1,8 @@
 package it.gov.pagopa.register.service.operation;
 
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import it.gov.pagopa.common.storage.AzureBlobClient;
 import it.gov.pagopa.register.connector.storage.FileStorageClient;
 import it.gov.pagopa.register.constants.AssetRegisterConstants;
 import it.gov.pagopa.register.enums.UploadCsvStatus;
@@ -15,6 +18,7 @@ import org.apache.commons.csv.CSVRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
@@ -26,10 +30,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,13 +52,15 @@ class ProductFileServiceTest {
   FileStorageClient fileStorageClient;
   @Mock
   ProductFileValidatorService productFileValidator;
+  @Mock
+  ProductFileUploadWorker productFileUploadWorker;
 
   private ProductFileService productFileService;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
-    productFileService = new ProductFileService(productFileRepository, productRepository, fileStorageClient, productFileValidator);
+    productFileService = new ProductFileService(productFileRepository, productRepository, fileStorageClient, productFileValidator, productFileUploadWorker);
   }
 
   @Test
@@ -103,7 +111,7 @@ class ProductFileServiceTest {
 
 
   @Test
-  void downloadReport_partialLoad() throws IOException {
+  void downloadReport_partialLoad() {
     String productFileId = "1";
     String organizationId = "org1";
     String fileName = "eprel_report.csv";
@@ -115,24 +123,29 @@ class ProductFileServiceTest {
       .fileName(fileName)
       .build();
 
-    ByteArrayOutputStream mockedOutput = new ByteArrayOutputStream();
-    mockedOutput.write("dummy report content".getBytes());
+    BlobInputStream blobInputStream = mock(BlobInputStream.class);
+    BlobProperties blobProperties = mock(BlobProperties.class);
+    when(blobInputStream.getProperties()).thenReturn(blobProperties);
+    when(blobProperties.getBlobSize()).thenReturn(20L);
+    when(blobProperties.getETag()).thenReturn("\"0x8DCE1\"");
 
     when(productFileRepository.findByIdAndOrganizationId(productFileId, organizationId))
       .thenReturn(Optional.of(productFile));
 
-    when(fileStorageClient.download("Report/Partial/1.csv"))
-      .thenReturn(mockedOutput);
+    when(fileStorageClient.openBlobInputStream("Report/Partial/1.csv"))
+      .thenReturn(blobInputStream);
 
     FileReportDTO reportDTO = productFileService.downloadReport(productFileId, organizationId);
 
     // Assert
     assertNotNull(reportDTO);
-    assertArrayEquals("dummy report content".getBytes(), reportDTO.getData());
+    assertSame(blobInputStream, reportDTO.getData());
     assertEquals("eprel_report_errors.csv", reportDTO.getFilename());
+    assertEquals(20L, reportDTO.getContentLength());
+    assertEquals("\"0x8DCE1\"", reportDTO.getETag());
 
     verify(productFileRepository).findByIdAndOrganizationId(productFileId, organizationId);
-    verify(fileStorageClient).download("Report/Partial/1.csv");
+    verify(fileStorageClient).openBlobInputStream("Report/Partial/1.csv");
   }
 
   @Test
@@ -156,7 +169,7 @@ class ProductFileServiceTest {
   void downloadReport_azureNull() {
     ProductFile pf = new ProductFile(); pf.setId("1"); pf.setOrganizationId("o"); pf.setUploadStatus("FORMAL_ERROR");
     when(productFileRepository.findByIdAndOrganizationId("1","o")).thenReturn(Optional.of(pf));
-    when(fileStorageClient.download("Report/Formal/1.csv")).thenReturn(null);
+    when(fileStorageClient.openBlobInputStream("Report/Formal/1.csv")).thenReturn(null);
     ReportNotFoundException ex = assertThrows(ReportNotFoundException.class,
       () -> productFileService.downloadReport("1","o"));
     assertTrue(ex.getMessage().contains("Report not found on Azure"));
@@ -184,8 +197,7 @@ class ProductFileServiceTest {
   private void testFormalError(String errorMessage) {
     MultipartFile file = createMockFile();
 
-    try (MockedStatic<CsvUtils> mockedCsv = mockStatic(CsvUtils.class);
-         MockedStatic<Files> mockedFiles = mockStatic(Files.class)) {
+    try (MockedStatic<CsvUtils> mockedCsv = mockStatic(CsvUtils.class)) {
 
       mockedCsv.when(() -> CsvUtils.readHeaders(file))
         .thenReturn(List.of("Codice GTIN/EAN", "Codice Prodotto", "Categoria", "Paese di Produzione", "Marca", "Modello"));
@@ -193,24 +205,21 @@ class ProductFileServiceTest {
       mockedCsv.when(() -> CsvUtils.readCsvRecords(file))
         .thenReturn(List.of(mock(CSVRecord.class)));
 
-      mockedCsv.when(() -> CsvUtils.writeCsvWithErrors(any(), any(), any(), any()))
-        .thenAnswer(inv -> null);
-
-      mockedFiles.when(() -> Files.newInputStream(any()))
-        .thenReturn(new ByteArrayInputStream("dummy".getBytes()));
-
-      when(fileStorageClient.upload(any(), any(), any())).thenReturn(null);
-
-      when(productFileValidator.validateFile(any(), any()))
-        .thenReturn(new ValidationResultDTO("OK", null,List.of(mock(CSVRecord.class)),List.of("Codice GTIN/EAN", "Codice Prodotto", "Categoria", "Paese di Produzione", "Marca", "Modello")));
+      mockedCsv.when(() -> CsvUtils.writeCsvWithErrors(any(), any(), any(), any(OutputStream.class)))
+        .thenAnswer(inv -> {
+          inv.getArgument(3, OutputStream.class).write("report".getBytes());
+          return null;
+        });
 
       CSVRecord invalidRecordLocal = mock(CSVRecord.class);
       List<CSVRecord> invalidRecordsLocal = Collections.singletonList(invalidRecordLocal);
       Map<CSVRecord, String> errorMessagesLocal = new HashMap<>();
       errorMessagesLocal.put(invalidRecordLocal, errorMessage);
 
-      ValidationResultDTO validationResult = new ValidationResultDTO("KO", null, invalidRecordsLocal, errorMessagesLocal);
-      when(productFileValidator.validateRecords(any(), any(), any())).thenReturn(validationResult);
+      when(productFileValidator.validateFile(any(), any()))
+        .thenReturn(ValidationResultDTO.invalidRecords(invalidRecordsLocal,
+          List.of("Codice GTIN/EAN", "Codice Prodotto", "Categoria", "Paese di Produzione", "Marca", "Modello"),
+          invalidRecordsLocal, errorMessagesLocal));
 
       ProductFile savedProductFile = ProductFile.builder().id("123").build();
       when(productFileRepository.save(any())).thenReturn(savedProductFile);
@@ -220,11 +229,46 @@ class ProductFileServiceTest {
       assertEquals("KO", result.getStatus());
       assertEquals(AssetRegisterConstants.UploadKeyConstant.REPORT_FORMAL_FILE_ERROR_KEY, result.getErrorKey());
       assertEquals("123", result.getProductFileId());
+      ArgumentCaptor<AzureBlobClient.BlobContentWriter> uploaded = ArgumentCaptor.forClass(AzureBlobClient.BlobContentWriter.class);
+      verify(fileStorageClient).upload(uploaded.capture(), eq("Report/Formal/123.csv"), eq("text/csv"));
+      ByteArrayOutputStream report = new ByteArrayOutputStream();
+      uploaded.getValue().writeTo(report);
+      mockedCsv.verify(() -> CsvUtils.writeCsvWithErrors(eq(invalidRecordsLocal), any(), eq(errorMessagesLocal), any(OutputStream.class)));
+      assertEquals("report", report.toString());
     } catch (IOException e) {
         throw new RuntimeException(e);
     }
   }
 
+  @Test
+  void whenFormalErrorReportFails_thenResultIsKo() throws IOException {
+    MultipartFile file = createMockFile();
+
+    try (MockedStatic<CsvUtils> mockedCsv = mockStatic(CsvUtils.class)) {
+      mockedCsv.when(() -> CsvUtils.writeCsvWithErrors(any(), any(), any(), any(OutputStream.class)))
+        .thenAnswer(inv -> {
+          inv.getArgument(3, OutputStream.class).write("partial".getBytes());
+          throw new IOException("write failed");
+        });
+
+      CSVRecord invalidRecordLocal = mock(CSVRecord.class);
+      when(productFileValidator.validateFile(any(), any()))
+        .thenReturn(ValidationResultDTO.invalidRecords(List.of(invalidRecordLocal), List.of("Codice GTIN/EAN"),
+          List.of(invalidRecordLocal), Map.of(invalidRecordLocal, "error")));
+      when(productFileRepository.save(any())).thenReturn(ProductFile.builder().id("123").build());
+      when(fileStorageClient.upload(any(AzureBlobClient.BlobContentWriter.class), any(), any()))
+        .thenAnswer(inv -> {
+          inv.getArgument(0, AzureBlobClient.BlobContentWriter.class).writeTo(new ByteArrayOutputStream());
+          return null;
+        });
+
+      ProductFileResult result = productFileService.uploadFile(file, "COOKINGHOBS", "org1", "user1", "email", "orgName");
+
+      assertEquals("KO", result.getStatus());
+      verify(fileStorageClient, never()).upload(any(InputStream.class), any(), any());
+    }
+  }
+
   @Test
   void whenInvalidGtin_thenReturnFormalError()  {
     testFormalError("Il Codice GTIN/EAN è obbligatorio e deve essere univoco ed alfanumerico e lungo al massimo 14 caratteri");
@@ -268,24 +312,23 @@ class ProductFileServiceTest {
         .thenReturn(List.of(rec));
 
       when(productFileValidator.validateFile(file, "cat"))
-        .thenReturn(ValidationResultDTO.ok(List.of(rec), List.of("C1")));
-
-      when(productFileValidator.validateRecords(List.of(rec), List.of("C1"), "cat"))
-        .thenReturn(ValidationResultDTO.ok());
+        .thenReturn(ValidationResultDTO.ok(List.of(rec), List.of("C1"), "abc".getBytes()));
 
       when(productFileRepository.save(any())).thenReturn(ProductFile.builder().id("42").build());
 
-      ByteArrayInputStream bis = new ByteArrayInputStream("abc".getBytes());
-      when(file.getInputStream()).thenReturn(bis);
       when(file.getOriginalFilename()).thenReturn("f.csv");
       when(file.getContentType()).thenReturn("text/csv");
 
-      when(fileStorageClient.upload(any(), any(), any())).thenReturn(null);
+      when(fileStorageClient.upload(any(InputStream.class), any(), any())).thenReturn(null);
 
       ProductFileResult res = productFileService.uploadFile(file, "cat", "org", "user","email","orgName");
 
       assertEquals("OK", res.getStatus());
       assertNull(res.getErrorKey());
+      verify(file, never()).getInputStream();
+      ArgumentCaptor<InputStream> uploaded = ArgumentCaptor.forClass(InputStream.class);
+      verify(fileStorageClient).upload(uploaded.capture(), eq("CSV/org/orgName/cat/42.csv"), eq("text/csv"));
+      assertEquals("abc", new String(uploaded.getValue().readAllBytes()));
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -323,4 +366,77 @@ class ProductFileServiceTest {
   }
 
 
+  @Test
+  void uploadFile_asyncEnabled_shouldAcceptAndValidateInBackground() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("csv", "f.csv", "text/csv", "abc".getBytes());
+    Path staged = Files.createTempFile("staged-", ".csv");
+    when(productFileUploadWorker.isEnabled()).thenReturn(true);
+    when(productFileUploadWorker.stage(file)).thenReturn(staged);
+    when(productFileRepository.save(any())).thenAnswer(inv -> {
+      ProductFile saved = inv.getArgument(0);
+      saved.setId("42");
+      return saved;
+    });
+    when(productFileUploadWorker.submit(any())).thenReturn(true);
+
+    ProductFileResult res = productFileService.uploadFile(file, "cat", "org", "user", "email", "orgName");
+
+    assertTrue(res.isAccepted());
+    assertEquals("42", res.getProductFileId());
+    verify(productFileRepository).save(argThat(pf -> UploadCsvStatus.VALIDATING.name().equals(pf.getUploadStatus())));
+    verifyNoInteractions(productFileValidator, fileStorageClient);
+    Files.deleteIfExists(staged);
+  }
+
+  @Test
+  void uploadFile_asyncEnabled_queueFull_shouldRefuse() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("csv", "f.csv", "text/csv", "abc".getBytes());
+    Path staged = Files.createTempFile("staged-", ".csv");
+    when(productFileUploadWorker.isEnabled()).thenReturn(true);
+    when(productFileUploadWorker.stage(file)).thenReturn(staged);
+    when(productFileRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    when(productFileUploadWorker.submit(any())).thenReturn(false);
+
+    ProductFileResult res = productFileService.uploadFile(file, "cat", "org", "user", "email", "orgName");
+
+    assertEquals(AssetRegisterConstants.UploadKeyConstant.UPLOAD_QUEUE_FULL, res.getErrorKey());
+    verify(productFileRepository).delete(any());
+    assertFalse(Files.exists(staged));
+  }
+
+  @Test
+  void validateAcceptedFile_valid_shouldUploadToStorage() throws Exception {
+    Path staged = Files.createTempFile("staged-", ".csv");
+    Files.write(staged, "abc".getBytes());
+    ProductFile productFile = ProductFile.builder().id("42").fileName("f.csv").category("cat")
+      .organizationId("org").organizationName("orgName").uploadStatus(UploadCsvStatus.VALIDATING.name()).build();
+    when(productFileValidator.validateFile("f.csv", "abc".getBytes(), "cat"))
+      .thenReturn(ValidationResultDTO.ok(List.of(mock(CSVRecord.class)), List.of("C1"), "abc".getBytes()));
+
+    productFileService.validateAcceptedFile(productFile, staged, "text/csv");
+
+    assertEquals(UploadCsvStatus.UPLOADED.name(), productFile.getUploadStatus());
+    assertEquals(1, productFile.getFindedProductsNumber());
+    verify(productFileRepository).save(productFile);
+    verify(fileStorageClient).upload(any(InputStream.class), eq("CSV/org/orgName/cat/42.csv"), eq("text/csv"));
+    assertFalse(Files.exists(staged));
+  }
+
+  @Test
+  void validateAcceptedFile_invalid_shouldRejectWithErrorKey() throws Exception {
+    Path staged = Files.createTempFile("staged-", ".csv");
+    ProductFile productFile = ProductFile.builder().id("42").fileName("f.csv").category("cat")
+      .uploadStatus(UploadCsvStatus.VALIDATING.name()).build();
+    when(productFileValidator.validateFile(eq("f.csv"), any(byte[].class), eq("cat")))
+      .thenReturn(ValidationResultDTO.ko(AssetRegisterConstants.UploadKeyConstant.HEADER_FILE_ERROR_KEY));
+
+    productFileService.validateAcceptedFile(productFile, staged, "text/csv");
+
+    assertEquals(UploadCsvStatus.REJECTED.name(), productFile.getUploadStatus());
+    assertEquals(AssetRegisterConstants.UploadKeyConstant.HEADER_FILE_ERROR_KEY, productFile.getErrorKey());
+    verify(productFileRepository).save(productFile);
+    verifyNoInteractions(fileStorageClient);
+    assertFalse(Files.exists(staged));
+  }
+
 }
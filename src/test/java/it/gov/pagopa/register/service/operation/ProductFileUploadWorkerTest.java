@@ -0,0 +1,77 @@
+package it.gov.pagopa.register.service.operation;
+
+import it.gov.pagopa.register.configuration.ProductFileUploadConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFileUploadWorkerTest {
+
+  @TempDir
+  Path stagingDir;
+
+  private ProductFileUploadWorker worker;
+
+  private ProductFileUploadWorker worker(int workers, int queueCapacity) {
+    ProductFileUploadConfig config = new ProductFileUploadConfig();
+    config.getAsync().setWorkers(workers);
+    config.getAsync().setQueueCapacity(queueCapacity);
+    config.getAsync().setStagingDir(stagingDir.resolve("staging").toString());
+    worker = new ProductFileUploadWorker(config);
+    return worker;
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (worker != null) {
+      worker.shutdown();
+    }
+  }
+
+  @Test
+  void constructor_enabledWithoutStagingDir_shouldFail() {
+    ProductFileUploadConfig config = new ProductFileUploadConfig();
+    config.getAsync().setEnabled(true);
+
+    assertThrows(IllegalStateException.class, () -> new ProductFileUploadWorker(config));
+  }
+
+  @Test
+  void stage_shouldCopyContentToStagingDir() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("csv", "f.csv", "text/csv", "abc".getBytes());
+
+    Path staged = worker(1, 1).stage(file);
+
+    assertEquals(stagingDir.resolve("staging"), staged.getParent());
+    assertEquals("abc", Files.readString(staged));
+  }
+
+  @Test
+  void submit_queueFull_shouldRefuse() throws Exception {
+    ProductFileUploadWorker uploadWorker = worker(1, 1);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    assertTrue(uploadWorker.submit(() -> {
+      running.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+    assertTrue(uploadWorker.submit(() -> {}));
+
+    assertFalse(uploadWorker.submit(() -> {}));
+    release.countDown();
+  }
+}
@@ -0,0 +1,74 @@
+package it.gov.pagopa.register.service.operation;
+
+import com.mongodb.client.result.UpdateResult;
+import it.gov.pagopa.register.configuration.ProductFileUploadConfig;
+import it.gov.pagopa.register.model.operation.ProductFile;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFileValidatingSweeperTest {
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  private ProductFileValidatingSweeper sweeper;
+
+  @BeforeEach
+  void setUp() {
+    ProductFileUploadConfig config = new ProductFileUploadConfig();
+    config.getAsync().setValidatingTimeout(Duration.ofMinutes(30));
+    sweeper = new ProductFileValidatingSweeper(mongoTemplate, config);
+  }
+
+  @AfterEach
+  void tearDown() {
+    sweeper.shutdown();
+  }
+
+  @Test
+  void sweep_shouldRejectFilesValidatingPastTheTimeout() {
+    when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ProductFile.class)))
+      .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+    LocalDateTime before = LocalDateTime.now().minusMinutes(30);
+    assertEquals(2, sweeper.sweep());
+    LocalDateTime after = LocalDateTime.now().minusMinutes(30);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+    verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(ProductFile.class));
+    assertEquals("VALIDATING", query.getValue().getQueryObject().get("uploadStatus"));
+    LocalDateTime cutoff = (LocalDateTime) query.getValue().getQueryObject().get("dateUpload", Document.class).get("$lt");
+    assertFalse(cutoff.isBefore(before));
+    assertFalse(cutoff.isAfter(after));
+    Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+    assertEquals("REJECTED", set.get("uploadStatus"));
+    assertEquals("GENERIC_ERROR", set.get("errorKey"));
+  }
+
+  @Test
+  void sweep_mongoError_shouldNotThrow() {
+    when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ProductFile.class)))
+      .thenThrow(new RuntimeException("down"));
+
+    assertEquals(0, sweeper.sweep());
+  }
+}
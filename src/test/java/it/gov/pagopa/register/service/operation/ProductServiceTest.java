@@ -1,12 +1,13 @@
 package it.gov.pagopa.register.service.operation;
 
-import it.gov.pagopa.register.connector.notification.NotificationService;
+import com.mongodb.client.result.UpdateResult;
 import it.gov.pagopa.register.dto.operation.*;
 import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.enums.UserRole;
 import it.gov.pagopa.register.model.operation.Product;
 import it.gov.pagopa.register.model.operation.StatusChangeEvent;
 import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.notification.NotificationOutboxService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -15,6 +16,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.core.query.Criteria;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,7 +33,10 @@ class ProductServiceTest {
   private ProductRepository productRepository;
 
   @Mock
-  private NotificationService notificationService;
+  private NotificationOutboxService notificationService;
+
+  @Spy
+  private ProductCountCache productCountCache = new ProductCountCache(Duration.ofSeconds(30), 100);
 
   @InjectMocks
   private ProductService productService;
@@ -83,13 +88,52 @@ class ProductServiceTest {
     verify(productRepository).getCount(any(Criteria.class));
   }
 
+  @Test
+  void fetchProductsByFiltersAfter_firstPage_shouldCount() {
+    Pageable pageable = PageRequest.of(0, 2);
+    ProductCriteriaDTO criteriaDTO = ProductCriteriaDTO.builder().organizationId(ORG_ID).build();
+    Product p1 = Product.builder().organizationId(ORG_ID).productName("P1").gtinCode("g1").category("DISHWASHERS")
+      .status(ProductStatus.UPLOADED.name()).registrationDate(LocalDateTime.now()).build();
+    Product p2 = Product.builder().organizationId(ORG_ID).productName("P2").gtinCode("g2").category("DISHWASHERS")
+      .status(ProductStatus.UPLOADED.name()).registrationDate(LocalDateTime.now()).build();
+
+    when(productRepository.getCriteria(criteriaDTO)).thenReturn(new Criteria());
+    when(productRepository.findByFilterAfter(any(Criteria.class), eq(pageable), isNull()))
+      .thenReturn(new ProductSliceDTO(List.of(p1, p2), "next"));
+    when(productRepository.getCount(any(Criteria.class))).thenReturn(5L);
+
+    ProductListDTO dto = productService.fetchProductsByFiltersAfter(criteriaDTO, pageable, null, UserRole.INVITALIA.getRole());
+
+    assertEquals(2, dto.getContent().size());
+    assertEquals("next", dto.getContinuationToken());
+    assertEquals(5L, dto.getTotalElements());
+    assertEquals(3, dto.getTotalPages());
+    assertNull(dto.getPageNo());
+  }
+
+  @Test
+  void fetchProductsByFiltersAfter_withToken_shouldNotCount() {
+    Pageable pageable = PageRequest.of(0, 2);
+    ProductCriteriaDTO criteriaDTO = ProductCriteriaDTO.builder().organizationId(ORG_ID).build();
+
+    when(productRepository.getCriteria(criteriaDTO)).thenReturn(new Criteria());
+    when(productRepository.findByFilterAfter(any(Criteria.class), eq(pageable), eq("token")))
+      .thenReturn(new ProductSliceDTO(List.of(), null));
+
+    ProductListDTO dto = productService.fetchProductsByFiltersAfter(criteriaDTO, pageable, "token", UserRole.INVITALIA.getRole());
+
+    assertTrue(dto.getContent().isEmpty());
+    assertNull(dto.getContinuationToken());
+    assertNull(dto.getTotalElements());
+    verify(productRepository, never()).getCount(any());
+  }
+
   @Test
   void fetchProductsByFilters_empty() {
     Pageable pageable = PageRequest.of(0, 5);
 
     when(productRepository.getCriteria(any())).thenReturn(new Criteria());
     when(productRepository.findByFilter(any(), any())).thenReturn(List.of());
-    when(productRepository.getCount(any())).thenReturn(0L);
 
     ProductListDTO dto = productService.fetchProductsByFilters(
       ORG_ID, null, null, null, null, null, null, null, null, null, pageable, null
@@ -98,6 +142,41 @@ class ProductServiceTest {
     assertEquals(0, dto.getContent().size());
     assertEquals(0, dto.getTotalElements());
     assertEquals(0, dto.getTotalPages());
+    verify(productRepository, never()).getCount(any());
+  }
+
+  @Test
+  void fetchProductsByFilters_fullPages_shouldCountOnceForSameCriteria() {
+    Product p1 = Product.builder().organizationId(ORG_ID).productName("P1").gtinCode("g1").category("DISHWASHERS")
+      .status(ProductStatus.UPLOADED.name()).registrationDate(LocalDateTime.now()).build();
+
+    when(productRepository.getCriteria(any())).thenReturn(Criteria.where("organizationId").is(ORG_ID));
+    when(productRepository.findByFilter(any(), any())).thenReturn(List.of(p1));
+    when(productRepository.getCount(any())).thenReturn(3L);
+
+    ProductListDTO first = productService.fetchProductsByFilters(
+      ORG_ID, null, null, null, null, null, null, null, null, null, PageRequest.of(0, 1), UserRole.INVITALIA.getRole());
+    ProductListDTO second = productService.fetchProductsByFilters(
+      ORG_ID, null, null, null, null, null, null, null, null, null, PageRequest.of(1, 1), UserRole.INVITALIA.getRole());
+
+    assertEquals(3, first.getTotalElements());
+    assertEquals(3, second.getTotalElements());
+    verify(productRepository, times(1)).getCount(any());
+  }
+
+  @Test
+  void fetchProductsByFilters_lastPartialPage_shouldNotCount() {
+    Product p1 = Product.builder().organizationId(ORG_ID).productName("P1").gtinCode("g1").category("DISHWASHERS")
+      .status(ProductStatus.UPLOADED.name()).registrationDate(LocalDateTime.now()).build();
+
+    when(productRepository.getCriteria(any())).thenReturn(new Criteria());
+    when(productRepository.findByFilter(any(), any())).thenReturn(List.of(p1));
+
+    ProductListDTO dto = productService.fetchProductsByFilters(
+      ORG_ID, null, null, null, null, null, null, null, null, null, PageRequest.of(2, 5), UserRole.INVITALIA.getRole());
+
+    assertEquals(11, dto.getTotalElements());
+    verify(productRepository, never()).getCount(any());
   }
 
   @Test
@@ -120,13 +199,13 @@ class ProductServiceTest {
     ProductUpdateStatusRequestDTO req = req(List.of("g1", "g2"),
       ProductStatus.UPLOADED, ProductStatus.APPROVED, "why", "FORMAL");
 
-    when(productRepository.findByIds(req.getGtinCodes()))
+    when(productRepository.findStatusesByIds(req.getGtinCodes()))
       .thenReturn(List.of(Product.builder().gtinCode("g1").status(ProductStatus.UPLOADED.name()).build())); // manca g2
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
     assertEquals("KO", res.getStatus());
     assertEquals(PRODUCT_NOT_FOUND_ERROR_KEY, res.getErrorKey());
-    verify(productRepository).findByIds(req.getGtinCodes());
+    verify(productRepository).findStatusesByIds(req.getGtinCodes());
     verifyNoMoreInteractions(productRepository, notificationService);
   }
 
@@ -138,12 +217,12 @@ class ProductServiceTest {
     Product a = Product.builder().gtinCode("g1").status(ProductStatus.UPLOADED.name()).build();
     Product b = Product.builder().gtinCode("g2").status(ProductStatus.SUPERVISED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
     assertEquals("KO", res.getStatus());
     assertEquals(MIXED_STATUS_ERROR_KEY, res.getErrorKey());
-    verify(productRepository).findByIds(req.getGtinCodes());
+    verify(productRepository).findStatusesByIds(req.getGtinCodes());
     verifyNoMoreInteractions(productRepository, notificationService);
   }
 
@@ -155,12 +234,12 @@ class ProductServiceTest {
     Product a = Product.builder().gtinCode("g1").status(ProductStatus.SUPERVISED.name()).build();
     Product b = Product.builder().gtinCode("g2").status(ProductStatus.SUPERVISED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
     assertEquals("KO", res.getStatus());
     assertEquals(INVALID_CURRENT_STATUS_ERROR_KEY, res.getErrorKey());
-    verify(productRepository).findByIds(req.getGtinCodes());
+    verify(productRepository).findStatusesByIds(req.getGtinCodes());
     verifyNoMoreInteractions(productRepository, notificationService);
   }
 
@@ -172,7 +251,7 @@ class ProductServiceTest {
     Product a = Product.builder().gtinCode("g1").status(ProductStatus.UPLOADED.name()).build();
     Product b = Product.builder().gtinCode("g2").status(ProductStatus.UPLOADED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
     when(productRepository.getAllowedInitialStates(ProductStatus.APPROVED, UserRole.INVITALIA.getRole()))
       .thenReturn(List.of(ProductStatus.SUPERVISED.name())); // non contiene UPLOADED
 
@@ -189,40 +268,77 @@ class ProductServiceTest {
     ProductUpdateStatusRequestDTO req = req(List.of("p1", "p2"),
       ProductStatus.UPLOADED, ProductStatus.APPROVED, "why", "FORMAL_OK");
 
-    Product p1 = Product.builder().gtinCode("p1").status(ProductStatus.UPLOADED.name())
-      .statusChangeChronology(new ArrayList<>()).build();
-    Product p2 = Product.builder().gtinCode("p2").status(ProductStatus.UPLOADED.name())
-      .statusChangeChronology(new ArrayList<>()).build();
+    Product p1 = Product.builder().gtinCode("p1").status(ProductStatus.UPLOADED.name()).build();
+    Product p2 = Product.builder().gtinCode("p2").status(ProductStatus.UPLOADED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(p1, p2));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(p1, p2));
     when(productRepository.getAllowedInitialStates(ProductStatus.APPROVED, UserRole.INVITALIA.getRole()))
       .thenReturn(List.of(ProductStatus.UPLOADED.name()));
-    when(productRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    when(productRepository.transitionStatuses(anyList(), any(), any(), any(), any())).thenReturn(updated(2));
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
     assertEquals("OK", res.getStatus());
 
-    // <-- usando CAPTOR, niente Iterable.get()
-    ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
-    verify(productRepository).saveAll(captor.capture());
-    List<Product> saved = captor.getValue();
-    assertEquals(2, saved.size());
-    saved.forEach(p -> {
-      assertEquals(ProductStatus.APPROVED.name(), p.getStatus());
-      assertEquals("FORMAL_OK", p.getFormalMotivation());
-      assertNotNull(p.getStatusChangeChronology());
-      assertFalse(p.getStatusChangeChronology().isEmpty());
-      StatusChangeEvent last = p.getStatusChangeChronology().get(p.getStatusChangeChronology().size() - 1);
-      assertEquals("L1", last.getRole());
-      assertEquals(ProductStatus.UPLOADED, last.getCurrentStatus());
-      assertEquals(ProductStatus.APPROVED, last.getTargetStatus());
-      assertEquals("why", last.getMotivation());
-      assertEquals(USERNAME, last.getUsername());
-    });
+    ArgumentCaptor<StatusChangeEvent> captor = ArgumentCaptor.forClass(StatusChangeEvent.class);
+    verify(productRepository).transitionStatuses(eq(List.of("p1", "p2")), eq(ProductStatus.UPLOADED),
+      eq(ProductStatus.APPROVED), eq("FORMAL_OK"), captor.capture());
+    StatusChangeEvent last = captor.getValue();
+    assertEquals("L1", last.getRole());
+    assertEquals(ProductStatus.UPLOADED, last.getCurrentStatus());
+    assertEquals(ProductStatus.APPROVED, last.getTargetStatus());
+    assertEquals("why", last.getMotivation());
+    assertEquals(USERNAME, last.getUsername());
+    verify(productRepository, never()).saveAll(anyList());
 
     verifyNoInteractions(notificationService);
   }
 
+  @Test
+  void updateStatuses_allChangedConcurrently_returnsKO_INVALID_CURRENT_STATUS() {
+    ProductUpdateStatusRequestDTO req = req(List.of("p1"),
+      ProductStatus.UPLOADED, ProductStatus.REJECTED, "why", "FORMAL");
+
+    when(productRepository.findStatusesByIds(req.getGtinCodes()))
+      .thenReturn(List.of(Product.builder().gtinCode("p1").status(ProductStatus.UPLOADED.name()).build()));
+    when(productRepository.getAllowedInitialStates(ProductStatus.REJECTED, UserRole.INVITALIA.getRole()))
+      .thenReturn(List.of(ProductStatus.UPLOADED.name()));
+    when(productRepository.transitionStatuses(anyList(), any(), any(), any(), any())).thenReturn(updated(0));
+
+    UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
+
+    assertEquals("KO", res.getStatus());
+    assertEquals(INVALID_CURRENT_STATUS_ERROR_KEY, res.getErrorKey());
+    verifyNoInteractions(notificationService);
+  }
+
+  @Test
+  void updateStatuses_someChangedConcurrently_notifiesOnlyUpdatedProducts() {
+    ProductUpdateStatusRequestDTO req = req(List.of("g1", "g2"),
+      ProductStatus.UPLOADED, ProductStatus.REJECTED, "why", "FORMAL_MAIL");
+
+    when(productRepository.findStatusesByIds(req.getGtinCodes()))
+      .thenReturn(List.of(
+        Product.builder().gtinCode("g1").status(ProductStatus.UPLOADED.name()).build(),
+        Product.builder().gtinCode("g2").status(ProductStatus.UPLOADED.name()).build()));
+    when(productRepository.getAllowedInitialStates(ProductStatus.REJECTED, UserRole.INVITALIA.getRole()))
+      .thenReturn(List.of(ProductStatus.UPLOADED.name()));
+    when(productRepository.transitionStatuses(anyList(), any(), any(), any(), any())).thenReturn(updated(1));
+    // g2 was rejected meanwhile by another reviewer: it is in the target status but carries a different event
+    when(productRepository.findIdsByStatusChange(eq(List.of("g1", "g2")), any())).thenReturn(List.of("g1"));
+    when(productRepository.getProductNamesGroupedByEmail(List.of("g1"))).thenReturn(List.of(
+      EmailProductDTO.builder().id("a@mail.it").productNames(List.of("n1")).build()));
+
+    UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
+
+    assertEquals("OK", res.getStatus());
+    verify(notificationService).enqueueUpdateStatus(anyString(), eq(List.of("n1")), eq("FORMAL_MAIL"), eq(ProductStatus.REJECTED.name()), eq("a@mail.it"));
+    ArgumentCaptor<StatusChangeEvent> pushed = ArgumentCaptor.forClass(StatusChangeEvent.class);
+    ArgumentCaptor<StatusChangeEvent> matched = ArgumentCaptor.forClass(StatusChangeEvent.class);
+    verify(productRepository).transitionStatuses(anyList(), any(), any(), any(), pushed.capture());
+    verify(productRepository).findIdsByStatusChange(anyList(), matched.capture());
+    assertSame(pushed.getValue(), matched.getValue());
+  }
+
   // ---------------- updateProductStatusesWithNotification: OK (rejected + email OK) ----------------
 
   @Test
@@ -233,55 +349,77 @@ class ProductServiceTest {
     Product a = Product.builder().gtinCode("g1").status(ProductStatus.UPLOADED.name()).build();
     Product b = Product.builder().gtinCode("g2").status(ProductStatus.UPLOADED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
     when(productRepository.getAllowedInitialStates(ProductStatus.REJECTED, UserRole.INVITALIA.getRole()))
       .thenReturn(List.of(ProductStatus.UPLOADED.name()));
-    when(productRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    when(productRepository.transitionStatuses(anyList(), any(), any(), any(), any())).thenReturn(updated(2));
     when(productRepository.getProductNamesGroupedByEmail(List.of("g1", "g2"))).thenReturn(List.of(
       EmailProductDTO.builder().id("a@mail.it").productNames(List.of("n1", "n2")).build(),
       EmailProductDTO.builder().id("b@mail.it").productNames(List.of("n3")).build()
     ));
 
-    doNothing().when(notificationService).sendEmailUpdateStatus(anyList(), anyString(), anyString(), anyString());
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
     assertEquals("OK", res.getStatus());
 
     verify(productRepository).getProductNamesGroupedByEmail(List.of("g1", "g2"));
     // niente eq(...) superflui: tutti letterali specifici
-    verify(notificationService).sendEmailUpdateStatus(List.of("n1", "n2"), "FORMAL_MAIL", ProductStatus.REJECTED.name(), "a@mail.it");
-    verify(notificationService).sendEmailUpdateStatus(List.of("n3"), "FORMAL_MAIL", ProductStatus.REJECTED.name(), "b@mail.it");
+    ArgumentCaptor<String> transitionIds = ArgumentCaptor.forClass(String.class);
+    verify(notificationService).enqueueUpdateStatus(transitionIds.capture(), eq(List.of("n1", "n2")), eq("FORMAL_MAIL"), eq(ProductStatus.REJECTED.name()), eq("a@mail.it"));
+    verify(notificationService).enqueueUpdateStatus(transitionIds.capture(), eq(List.of("n3")), eq("FORMAL_MAIL"), eq(ProductStatus.REJECTED.name()), eq("b@mail.it"));
+    // one transition, so both emails share its id and differ by recipient
+    assertEquals(transitionIds.getAllValues().get(0), transitionIds.getAllValues().get(1));
+    ArgumentCaptor<StatusChangeEvent> pushed = ArgumentCaptor.forClass(StatusChangeEvent.class);
+    verify(productRepository).transitionStatuses(anyList(), any(), any(), any(), pushed.capture());
+    assertEquals(ProductService.transitionId(List.of("g1", "g2"), pushed.getValue()), transitionIds.getValue());
+  }
+
+  @Test
+  void transitionId_isDerivedFromTheTransition() {
+    LocalDateTime updateDate = LocalDateTime.of(2025, 1, 1, 10, 0);
+    StatusChangeEvent event = rejection(updateDate);
+
+    // retrying the same transition yields the same key, whatever the order of the codes
+    assertEquals(ProductService.transitionId(List.of("g1", "g2"), event),
+      ProductService.transitionId(List.of("g2", "g1"), rejection(updateDate)));
+    assertNotEquals(ProductService.transitionId(List.of("g1", "g2"), event),
+      ProductService.transitionId(List.of("g1"), event));
+    assertNotEquals(ProductService.transitionId(List.of("g1", "g2"), event),
+      ProductService.transitionId(List.of("g1", "g2"), rejection(updateDate.plusSeconds(1))));
+  }
+
+  private static StatusChangeEvent rejection(LocalDateTime updateDate) {
+    return StatusChangeEvent.builder()
+      .currentStatus(ProductStatus.UPLOADED).targetStatus(ProductStatus.REJECTED).updateDate(updateDate).build();
   }
 
   // ---------------- updateProductStatusesWithNotification: KO su email ----------------
 
   @Test
-  void updateStatuses_targetRejected_oneEmailFails_returnsKO_EMAIL_ERROR() {
+  void updateStatuses_targetRejected_oneEmailNotEnqueued_returnsKO_EMAIL_ERROR() {
     ProductUpdateStatusRequestDTO req = req(List.of("g1", "g2"),
       ProductStatus.UPLOADED, ProductStatus.REJECTED, "why", "FORMAL_MAIL");
 
     Product a = Product.builder().gtinCode("g1").status(ProductStatus.UPLOADED.name()).build();
     Product b = Product.builder().gtinCode("g2").status(ProductStatus.UPLOADED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(a, b));
     when(productRepository.getAllowedInitialStates(ProductStatus.REJECTED, UserRole.INVITALIA.getRole()))
       .thenReturn(List.of(ProductStatus.UPLOADED.name()));
-    when(productRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    when(productRepository.transitionStatuses(anyList(), any(), any(), any(), any())).thenReturn(updated(2));
     when(productRepository.getProductNamesGroupedByEmail(List.of("g1", "g2"))).thenReturn(List.of(
       EmailProductDTO.builder().id("ok@mail.it").productNames(List.of("nOK")).build(),
       EmailProductDTO.builder().id("ko@mail.it").productNames(List.of("nKO")).build()
     ));
 
-    doNothing().when(notificationService)
-      .sendEmailUpdateStatus(List.of("nOK"), "FORMAL_MAIL", ProductStatus.REJECTED.name(), "ok@mail.it");
-    doThrow(new RuntimeException("Email service error"))
+    doThrow(new RuntimeException("Outbox unavailable"))
       .when(notificationService)
-      .sendEmailUpdateStatus(List.of("nKO"), "FORMAL_MAIL", ProductStatus.REJECTED.name(), "ko@mail.it");
+      .enqueueUpdateStatus(anyString(), eq(List.of("nKO")), eq("FORMAL_MAIL"), eq(ProductStatus.REJECTED.name()), eq("ko@mail.it"));
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.INVITALIA.getRole(), USERNAME);
     assertEquals("KO", res.getStatus());
     assertEquals(EMAIL_ERROR_KEY, res.getErrorKey());
-    verify(notificationService, times(2)).sendEmailUpdateStatus(anyList(), anyString(), anyString(), anyString());
+    verify(notificationService, times(2)).enqueueUpdateStatus(anyString(), anyList(), anyString(), anyString(), anyString());
   }
 
   // ---------------- ruolo L2 ----------------
@@ -291,23 +429,19 @@ class ProductServiceTest {
     ProductUpdateStatusRequestDTO req = req(List.of("x1"),
       ProductStatus.UPLOADED, ProductStatus.SUPERVISED, "mot", "FORMAL");
 
-    Product p = Product.builder().gtinCode("x1").status(ProductStatus.UPLOADED.name())
-      .statusChangeChronology(new ArrayList<>()).build();
+    Product p = Product.builder().gtinCode("x1").status(ProductStatus.UPLOADED.name()).build();
 
-    when(productRepository.findByIds(req.getGtinCodes())).thenReturn(List.of(p));
+    when(productRepository.findStatusesByIds(req.getGtinCodes())).thenReturn(List.of(p));
     when(productRepository.getAllowedInitialStates(ProductStatus.SUPERVISED, UserRole.OPERATORE.getRole()))
       .thenReturn(List.of(ProductStatus.UPLOADED.name()));
-    when(productRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    when(productRepository.transitionStatuses(anyList(), any(), any(), any(), any())).thenReturn(updated(1));
 
     UpdateResultDTO res = productService.updateProductStatusesWithNotification(req, UserRole.OPERATORE.getRole(), USERNAME);
     assertEquals("OK", res.getStatus());
 
-    // uso CAPTOR per evitare Iterable
-    ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
-    verify(productRepository).saveAll(captor.capture());
-    List<Product> saved = captor.getValue();
-    Product savedP = saved.get(0);
-    StatusChangeEvent last = savedP.getStatusChangeChronology().get(savedP.getStatusChangeChronology().size() - 1);
+    ArgumentCaptor<StatusChangeEvent> captor = ArgumentCaptor.forClass(StatusChangeEvent.class);
+    verify(productRepository).transitionStatuses(anyList(), any(), any(), any(), captor.capture());
+    StatusChangeEvent last = captor.getValue();
     assertEquals("L2", last.getRole());
     assertEquals(ProductStatus.UPLOADED, last.getCurrentStatus());
     assertEquals(ProductStatus.SUPERVISED, last.getTargetStatus());
@@ -318,6 +452,10 @@ class ProductServiceTest {
 
   // ---------------- helper ----------------
 
+  private static UpdateResult updated(long modified) {
+    return UpdateResult.acknowledged(modified, modified, null);
+  }
+
   private ProductUpdateStatusRequestDTO req(List<String> gtins,
                                             ProductStatus current,
                                             ProductStatus target,
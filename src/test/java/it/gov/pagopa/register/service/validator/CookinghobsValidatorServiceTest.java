@@ -1,9 +1,11 @@
 package it.gov.pagopa.register.service.validator;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import it.gov.pagopa.register.dto.utils.ProductValidationResult;
 import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.model.operation.Product;
 import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.metrics.ProductIngestMetrics;
 import org.apache.commons.csv.CSVRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,7 +15,6 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.List;
-import java.util.Optional;
 
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.CODE_GTIN_EAN;
 import static it.gov.pagopa.register.utils.ObjectMaker.buildStatusChangeEventsList;
@@ -23,7 +24,10 @@ import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {
-  CookinghobsValidatorService.class
+  CookinghobsValidatorService.class,
+  ProductLookupService.class,
+  ProductIngestMetrics.class,
+  SimpleMeterRegistry.class
 })
 class CookinghobsValidatorServiceTest {
 
@@ -53,6 +57,7 @@ class CookinghobsValidatorServiceTest {
     when(wrongStatusCsv.get(CODE_GTIN_EAN)).thenReturn("wrong-status");
 
     Product validProduct = Product.builder()
+      .gtinCode("valid-gtin")
       .organizationId(orgId)
       .status(ProductStatus.UPLOADED.name())
       .formalMotivation("formal motivation")
@@ -60,19 +65,20 @@ class CookinghobsValidatorServiceTest {
       .build();
 
     Product productWrongOrg = Product.builder()
+      .gtinCode("wrong-org")
       .organizationId("otherOrg")
       .status(ProductStatus.UPLOADED.name())
       .build();
 
     Product productWrongStatus = Product.builder()
+      .gtinCode("wrong-status")
       .organizationId(orgId)
       .status(ProductStatus.APPROVED.name())
       .statusChangeChronology(buildStatusChangeEventsList())
       .build();
 
-    when(productRepository.findById("valid-gtin")).thenReturn(Optional.of(validProduct));
-    when(productRepository.findById("wrong-org")).thenReturn(Optional.of(productWrongOrg));
-    when(productRepository.findById("wrong-status")).thenReturn(Optional.of(productWrongStatus));
+    when(productRepository.findByIds(List.of("valid-gtin", "wrong-org", "wrong-status")))
+      .thenReturn(List.of(validProduct, productWrongOrg, productWrongStatus));
 
     List<CSVRecord> records = List.of(validCsv, duplicateCsv, wrongOrgCsv, wrongStatusCsv);
 
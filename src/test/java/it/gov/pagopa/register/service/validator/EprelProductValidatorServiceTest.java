@@ -1,13 +1,20 @@
 package it.gov.pagopa.register.service.validator;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.gov.pagopa.register.configuration.EprelClientConfig;
 import it.gov.pagopa.register.configuration.EprelValidationConfig;
+import it.gov.pagopa.register.connector.eprel.EprelCircuitBreaker;
 import it.gov.pagopa.register.connector.eprel.EprelConnector;
+import it.gov.pagopa.register.connector.eprel.EprelLookupExecutor;
+import it.gov.pagopa.register.connector.eprel.EprelResponseCache;
 import it.gov.pagopa.register.dto.utils.EprelProduct;
 import it.gov.pagopa.register.dto.utils.ProductValidationResult;
 import it.gov.pagopa.register.enums.ProductStatus;
 import it.gov.pagopa.register.exception.operation.EprelException;
 import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.repository.operation.EprelCacheRepository;
 import it.gov.pagopa.register.repository.operation.ProductRepository;
+import it.gov.pagopa.register.service.metrics.ProductIngestMetrics;
 import org.apache.commons.csv.CSVRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,12 +26,12 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 
 import java.util.List;
-import java.util.Optional;
 
 import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
 import static it.gov.pagopa.register.utils.ObjectMaker.buildStatusChangeEventsList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.*;
@@ -32,7 +39,14 @@ import static org.springframework.http.HttpStatus.*;
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {
   EprelValidationConfig.class,
+  EprelClientConfig.class,
   EprelConnector.class,
+  EprelCircuitBreaker.class,
+  EprelResponseCache.class,
+  EprelLookupExecutor.class,
+  SimpleMeterRegistry.class,
+  ProductLookupService.class,
+  ProductIngestMetrics.class,
   EprelProductValidatorService.class
 })
 class EprelProductValidatorServiceTest {
@@ -46,6 +60,9 @@ class EprelProductValidatorServiceTest {
   @MockitoBean
   private ProductRepository productRepository;
 
+  @MockitoBean
+  private EprelCacheRepository eprelCacheRepository;
+
   @Test
   void testValidateRecords_withValidAndInvalidRecords(){
     String category = "WASHERDRIERS";
@@ -96,11 +113,13 @@ class EprelProductValidatorServiceTest {
     invalidProduct.setProductGroup("WASHERDRIERS");
 
     Product productWrongId = Product.builder()
+      .gtinCode("wrong-org-id-csv")
       .organizationId("test")
       .status(ProductStatus.UPLOADED.name())
       .build();
 
     Product productWrontStatus = Product.builder()
+      .gtinCode("wrong-status-csv")
       .organizationId(orgId)
       .status(ProductStatus.APPROVED.name())
       .statusChangeChronology(buildStatusChangeEventsList())
@@ -123,16 +142,14 @@ class EprelProductValidatorServiceTest {
     );
 
     Product existingRejected = Product.builder()
+      .gtinCode("valid-gtin")
       .organizationId(orgId)
       .status(ProductStatus.REJECTED.name())
       .formalMotivation("any motivation")
       .statusChangeChronology(buildStatusChangeEventsList()) // restituisce un ArrayList
       .build();
 
-    when(productRepository.findById("valid-gtin")).thenReturn(Optional.of(existingRejected));
-
-    when(productRepository.findById("wrong-org-id-csv")).thenReturn(Optional.of(productWrongId));
-    when(productRepository.findById("wrong-status-csv")).thenReturn(Optional.of(productWrontStatus));
+    when(productRepository.findByIds(anyList())).thenReturn(List.of(existingRejected, productWrongId, productWrontStatus));
 
     ProductValidationResult result = validatorService.validateRecords(records, EPREL_FIELDS, category, orgId, productFileId, null,"orgName");
 
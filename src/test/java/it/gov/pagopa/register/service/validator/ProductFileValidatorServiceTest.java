@@ -217,6 +217,37 @@ class ProductFileValidatorServiceTest {
 
     assertNotNull(result);
     assertEquals("OK", result.getStatus());
+    assertEquals(1, result.getRecords().size());
+    assertArrayEquals(file.getBytes(), result.getContent());
+  }
+
+  @Test
+  void validateFile_InvalidRecords() throws IOException {
+    MockMultipartFile file = new MockMultipartFile(
+      "file", "valid.csv", "text/csv",
+      "Codice GTIN/EAN\n12345\nABC".getBytes()
+    );
+
+    String category = "COOKINGHOBS";
+
+    LinkedHashMap<String, ColumnValidationRule> mockSchema = new LinkedHashMap<>();
+    mockSchema.put("Codice GTIN/EAN", new ColumnValidationRule(
+      (value, cat) -> value != null && value.matches("\\d+"), "Invalid GTIN"
+    ));
+
+    Map<String, LinkedHashMap<String, ColumnValidationRule>> schemas = new HashMap<>();
+    schemas.put(category.toLowerCase(), mockSchema);
+    when(validationConfig.getSchemas()).thenReturn(schemas);
+    when(validationConfig.getMaxSize()).thenReturn(100);
+
+    ValidationResultDTO result = productFileValidator.validateFile(file, category);
+
+    assertEquals("KO", result.getStatus());
+    assertEquals(AssetRegisterConstants.UploadKeyConstant.REPORT_FORMAL_FILE_ERROR_KEY, result.getErrorKey());
+    assertTrue(result.hasInvalidRecords());
+    assertEquals(1, result.getInvalidRecords().size());
+    assertEquals("ABC", result.getInvalidRecords().getFirst().get("Codice GTIN/EAN"));
+    assertEquals(List.of("Codice GTIN/EAN"), result.getHeaders());
   }
 
 
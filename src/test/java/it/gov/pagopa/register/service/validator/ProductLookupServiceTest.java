@@ -0,0 +1,48 @@
+package it.gov.pagopa.register.service.validator;
+
+import it.gov.pagopa.register.model.operation.Product;
+import it.gov.pagopa.register.repository.operation.ProductRepository;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.CODE_GTIN_EAN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductLookupServiceTest {
+
+  @Mock
+  private ProductRepository productRepository;
+
+  @Test
+  void findExistingProducts_shouldQueryDistinctGtinsInChunks() {
+    CSVRecord first = mock(CSVRecord.class);
+    when(first.get(CODE_GTIN_EAN)).thenReturn("gtin1");
+    CSVRecord duplicate = mock(CSVRecord.class);
+    when(duplicate.get(CODE_GTIN_EAN)).thenReturn("gtin1");
+    CSVRecord second = mock(CSVRecord.class);
+    when(second.get(CODE_GTIN_EAN)).thenReturn("gtin2");
+    CSVRecord third = mock(CSVRecord.class);
+    when(third.get(CODE_GTIN_EAN)).thenReturn("gtin3");
+
+    Product existing = Product.builder().gtinCode("gtin3").build();
+    when(productRepository.findByIds(List.of("gtin1", "gtin2"))).thenReturn(List.of());
+    when(productRepository.findByIds(List.of("gtin3"))).thenReturn(List.of(existing));
+
+    ProductLookupService productLookupService = new ProductLookupService(productRepository, 2);
+    Map<String, Product> result = productLookupService.findExistingProducts(List.of(first, duplicate, second, third));
+
+    assertEquals(1, result.size());
+    assertSame(existing, result.get("gtin3"));
+    verify(productRepository, times(2)).findByIds(anyList());
+    verify(productRepository, never()).findById(any());
+  }
+}
@@ -0,0 +1,37 @@
+package it.gov.pagopa.register.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvFieldUtilsTest {
+
+  private static final String[] SAMPLES = {
+    null, "", " ", "A", "abc123", "ABC 123", "12345678901234", "123456789012345", "\u00e0bc", "12-34", "\u0663", "1\n", "0"
+  };
+
+  @Test
+  void testIsAlphanumeric_matchesRegexes() {
+    for (String sample : SAMPLES) {
+      assertEquals(sample != null && sample.matches(CODE_GTIN_EAN_REGEX), CsvFieldUtils.isAlphanumeric(sample, 1, 14, false), "GTIN " + sample);
+      assertEquals(sample != null && sample.matches(CODE_PRODUCT_REGEX), CsvFieldUtils.isAlphanumeric(sample, 0, 100, true), "Product code " + sample);
+    }
+    assertFalse(CsvFieldUtils.isAlphanumeric("a".repeat(101), 0, 100, true));
+  }
+
+  @Test
+  void testIsNumeric_matchesRegex() {
+    for (String sample : SAMPLES) {
+      assertEquals(sample != null && sample.matches(CODE_EPREL_REGEX), CsvFieldUtils.isNumeric(sample), "EPREL " + sample);
+    }
+  }
+
+  @Test
+  void testIsIsoCountry() {
+    assertTrue(CsvFieldUtils.isIsoCountry("IT"));
+    assertFalse(CsvFieldUtils.isIsoCountry("it"));
+    assertFalse(CsvFieldUtils.isIsoCountry("ITA"));
+    assertFalse(CsvFieldUtils.isIsoCountry(null));
+  }
+}
@@ -5,8 +5,7 @@ import org.junit.jupiter.api.*;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -58,13 +57,11 @@ class CsvUtilsTest {
     Map<CSVRecord, String> errorMap = new HashMap<>();
     errorMap.put(records.get(0), "Invalid age format");
 
-    Path tempFile = Files.createTempFile("invalid", ".csv");
-    CsvUtils.writeCsvWithErrors(List.of(records.get(0)), headers, errorMap, tempFile);
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    CsvUtils.writeCsvWithErrors(List.of(records.get(0)), headers, errorMap, report);
 
-    List<String> lines = Files.readAllLines(tempFile);
+    List<String> lines = report.toString(StandardCharsets.UTF_8).lines().toList();
     assertTrue(lines.get(0).contains("Errori di validazione"));
     assertTrue(lines.get(1).contains("Invalid age format"));
-
-    Files.deleteIfExists(tempFile);
   }
 }
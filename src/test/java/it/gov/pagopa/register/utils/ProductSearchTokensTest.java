@@ -0,0 +1,45 @@
+package it.gov.pagopa.register.utils;
+
+import it.gov.pagopa.register.model.operation.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchTokensTest {
+
+  @Test
+  void of_shouldIndexLowercaseTrigramsOfEachField() {
+    Product product = Product.builder()
+      .gtinCode("1234")
+      .brand("BoSch")
+      .model("AB")
+      .build();
+
+    List<String> tokens = ProductSearchTokens.of(product);
+
+    assertEquals(List.of("b:bos", "b:osc", "b:sch", "g:123", "g:234"), tokens);
+  }
+
+  @Test
+  void forQuery_shouldReturnDistinctTrigrams() {
+    assertEquals(List.of("p:aaa"), ProductSearchTokens.forQuery(ProductSearchTokens.PRODUCT_NAME, "AAAA"));
+  }
+
+  @Test
+  void forQuery_shortValue_shouldReturnNoTokens() {
+    assertTrue(ProductSearchTokens.forQuery(ProductSearchTokens.BRAND, "ab").isEmpty());
+    assertTrue(ProductSearchTokens.forQuery(ProductSearchTokens.BRAND, null).isEmpty());
+  }
+
+  @Test
+  void queryTokens_shouldBeContainedInProductTokens() {
+    Product product = Product.builder().fullProductName("8001234567890 - Lavatrice Samsung 9 kg").build();
+
+    List<String> tokens = ProductSearchTokens.of(product);
+
+    assertTrue(tokens.containsAll(ProductSearchTokens.forQuery(ProductSearchTokens.FULL_PRODUCT_NAME, "samsung 9")));
+    assertFalse(tokens.containsAll(ProductSearchTokens.forQuery(ProductSearchTokens.FULL_PRODUCT_NAME, "whirlpool")));
+  }
+}
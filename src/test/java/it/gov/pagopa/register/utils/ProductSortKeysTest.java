@@ -0,0 +1,47 @@
+package it.gov.pagopa.register.utils;
+
+import it.gov.pagopa.register.model.operation.Product;
+import org.junit.jupiter.api.Test;
+
+import static it.gov.pagopa.register.constants.AssetRegisterConstants.WASHINGMACHINES;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSortKeysTest {
+
+  @Test
+  void apply_shouldSetRankCategoryAndLowercaseFields() {
+    Product product = Product.builder()
+      .gtinCode("ABC123")
+      .energyClass("A++")
+      .category(WASHINGMACHINES)
+      .organizationName("ACME Spa")
+      .brand("BoSch")
+      .build();
+
+    ProductSortKeys.apply(product);
+
+    assertEquals(9, product.getEnergyRank());
+    assertEquals("Lavatrici", product.getCategoryIt());
+    assertEquals("abc123", product.getGtinCodeLower());
+    assertEquals("acme spa", product.getOrganizationNameLower());
+    assertEquals("bosch", product.getBrandLower());
+    assertNull(product.getModelLower());
+  }
+
+  @Test
+  void energyRank_unknownOrMissingClass_shouldBeDefault() {
+    assertEquals(ProductSortKeys.DEFAULT_ENERGY_RANK, ProductSortKeys.energyRank(null));
+    assertEquals(ProductSortKeys.DEFAULT_ENERGY_RANK, ProductSortKeys.energyRank("G"));
+    assertEquals(10, ProductSortKeys.energyRank("A+++"));
+  }
+
+  @Test
+  void apply_withoutCategory_shouldLeaveCategoryItNull() {
+    Product product = Product.builder().build();
+
+    ProductSortKeys.apply(product);
+
+    assertNull(product.getCategoryIt());
+    assertEquals(ProductSortKeys.DEFAULT_ENERGY_RANK, product.getEnergyRank());
+  }
+}